@@ -0,0 +1,96 @@
+package com.github.michaelsteven.archetype.quarkus.items.configuration;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+
+/**
+ * Measures the jackson serialization of a page of items with the JsonConfig customizations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+	/** The page size. */
+	@Param({ "10", "100", "1000" })
+	public int pageSize;
+	
+	/** The object mapper. */
+	private ObjectMapper objectMapper;
+	
+	/** The page. */
+	private Page<ItemDto> page;
+	
+	/** The serialized page. */
+	private byte[] json;
+	
+	
+	/**
+	 * Setup.
+	 *
+	 * @throws JsonProcessingException the json processing exception
+	 */
+	@Setup
+	public void setup() throws JsonProcessingException {
+		objectMapper = new ObjectMapper();
+		new JsonConfig().customize(objectMapper);
+		List<ItemDto> content = new ArrayList<>(pageSize);
+		ZonedDateTime dateSubmitted = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		for (long id = 1; id <= pageSize; id++) {
+			content.add(new ItemDto(id, "wigit" + id, id + " sprocket wigit", dateSubmitted.plusSeconds(id), 0L, dateSubmitted.plusSeconds(id)));
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10L * pageSize);
+		json = objectMapper.writeValueAsBytes(page);
+	}
+	
+	
+	/**
+	 * Serialize page.
+	 *
+	 * @return the json bytes
+	 * @throws JsonProcessingException the json processing exception
+	 */
+	@Benchmark
+	public byte[] serializePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+	
+	
+	/**
+	 * Deserialize the page content, as a client of the api would.
+	 *
+	 * @return the parsed tree
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public Object parsePage() throws IOException {
+		return objectMapper.readTree(json);
+	}
+}
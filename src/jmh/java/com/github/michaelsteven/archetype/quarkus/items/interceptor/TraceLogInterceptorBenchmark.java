@@ -0,0 +1,258 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.interceptor.InvocationContext;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logmanager.LogContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.event.Level;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.michaelsteven.archetype.quarkus.items.configuration.JsonConfig;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+
+/**
+ * Measures the overhead the trace log interceptor adds to a call returning a
+ * page of 100 items, and the cost of rendering that page for the log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceLogInterceptorBenchmark {
+
+	/** The object mapper. */
+	private ObjectMapper objectMapper;
+	
+	/** The interceptor with tracing switched off. */
+	private TraceLogInterceptor disabledInterceptor;
+	
+	/** The interceptor logging at a level the logger does not have enabled. */
+	private TraceLogInterceptor levelGuardedInterceptor;
+	
+	/** The interceptor logging every call. */
+	private TraceLogInterceptor tracedInterceptor;
+	
+	/** The invocation context. */
+	private InvocationContext invocationContext;
+	
+	/** The page returned by the intercepted call. */
+	private Page<ItemDto> page;
+	
+	
+	/**
+	 * Setup.
+	 *
+	 * @throws NoSuchMethodException the no such method exception
+	 */
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		objectMapper = new ObjectMapper();
+		new JsonConfig().customize(objectMapper);
+		
+		List<ItemDto> content = new ArrayList<>();
+		ZonedDateTime dateSubmitted = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		for (long id = 1; id <= 100; id++) {
+			content.add(new ItemDto(id, "wigit" + id, id + " sprocket wigit", dateSubmitted.plusSeconds(id), 0L, dateSubmitted.plusSeconds(id)));
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, 100), 1000);
+		
+		// no handlers are installed outside of quarkus, so logged events are built but not written
+		LogContext.getLogContext().getLogger(TraceLogInterceptorBenchmark.class.getName()).setLevel(java.util.logging.Level.INFO);
+		disabledInterceptor = createInterceptor(false, Level.INFO);
+		levelGuardedInterceptor = createInterceptor(true, Level.DEBUG);
+		tracedInterceptor = createInterceptor(true, Level.INFO);
+		invocationContext = new PageInvocationContext(this, TraceLogInterceptorBenchmark.class.getMethod("getPage"));
+	}
+	
+	
+	/**
+	 * The intercepted method.
+	 *
+	 * @return the page
+	 */
+	public Page<ItemDto> getPage() {
+		return page;
+	}
+	
+	
+	/**
+	 * The call without the interceptor.
+	 *
+	 * @return the result
+	 */
+	@Benchmark
+	public Object baseline() {
+		return getPage();
+	}
+	
+	
+	/**
+	 * The call through the interceptor with tracing switched off.
+	 *
+	 * @return the result
+	 * @throws Exception the exception
+	 */
+	@Benchmark
+	public Object disabled() throws Exception {
+		return disabledInterceptor.traceMethod(invocationContext);
+	}
+	
+	
+	/**
+	 * The call through the interceptor at a level that is not enabled.
+	 *
+	 * @return the result
+	 * @throws Exception the exception
+	 */
+	@Benchmark
+	public Object levelGuarded() throws Exception {
+		return levelGuardedInterceptor.traceMethod(invocationContext);
+	}
+	
+	
+	/**
+	 * The call through the interceptor with entry and exit logged.
+	 *
+	 * @return the result
+	 * @throws Exception the exception
+	 */
+	@Benchmark
+	public Object traced() throws Exception {
+		return tracedInterceptor.traceMethod(invocationContext);
+	}
+	
+	
+	/**
+	 * Renders the page the way the interceptor does when the event is logged.
+	 *
+	 * @return the rendered result
+	 */
+	@Benchmark
+	public String renderTruncated() {
+		return TraceRenderer.result(page, 500).toString();
+	}
+	
+	
+	/**
+	 * Renders the whole page as json, as the interceptor did before rendering was bounded.
+	 *
+	 * @return the rendered result
+	 * @throws JsonProcessingException the json processing exception
+	 */
+	@Benchmark
+	public String renderFull() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(page);
+	}
+	
+	
+	/**
+	 * Creates an interceptor outside of CDI.
+	 *
+	 * @param enabled the enabled
+	 * @param level the level
+	 * @return the trace log interceptor
+	 */
+	private TraceLogInterceptor createInterceptor(boolean enabled, Level level) {
+		TraceLogInterceptor interceptor = new TraceLogInterceptor();
+		interceptor.enabled = enabled;
+		interceptor.level = level;
+		interceptor.sampleRate = 1.0;
+		interceptor.maxLength = 500;
+		interceptor.config = ConfigProvider.getConfig();
+		return interceptor;
+	}
+	
+	
+	/**
+	 * Invocation context that calls the benchmark's getPage method directly.
+	 */
+	private static final class PageInvocationContext implements InvocationContext {
+		
+		/** The target. */
+		private final TraceLogInterceptorBenchmark target;
+		
+		/** The method. */
+		private final Method method;
+		
+		/** The context data. */
+		private final Map<String, Object> contextData = new HashMap<>();
+		
+		/**
+		 * Instantiates a new page invocation context.
+		 *
+		 * @param target the target
+		 * @param method the method
+		 */
+		PageInvocationContext(TraceLogInterceptorBenchmark target, Method method) {
+			this.target = target;
+			this.method = method;
+		}
+		
+		@Override
+		public Object getTarget() {
+			return target;
+		}
+		
+		@Override
+		public Object getTimer() {
+			return null;
+		}
+		
+		@Override
+		public Method getMethod() {
+			return method;
+		}
+		
+		@Override
+		public Constructor<?> getConstructor() {
+			return null;
+		}
+		
+		@Override
+		public Object[] getParameters() {
+			return new Object[0];
+		}
+		
+		@Override
+		public void setParameters(Object[] params) {
+			// the intercepted method takes no parameters
+		}
+		
+		@Override
+		public Map<String, Object> getContextData() {
+			return contextData;
+		}
+		
+		@Override
+		public Object proceed() {
+			return target.getPage();
+		}
+	}
+}
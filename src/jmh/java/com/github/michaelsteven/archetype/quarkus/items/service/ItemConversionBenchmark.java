@@ -0,0 +1,88 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+
+
+/**
+ * Measures the entity and dto conversions of the items service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemConversionBenchmark {
+
+	/** The entity. */
+	private ItemEntity entity;
+	
+	/** The dto. */
+	private ItemDto dto;
+	
+	
+	/**
+	 * Setup.
+	 */
+	@Setup
+	public void setup() {
+		entity = new ItemEntity();
+		entity.setId(42L);
+		entity.setName("wigit42");
+		entity.setDescription("42 sprocket wigit");
+		entity.setCreatedTimestamp(Instant.parse("2021-01-01T00:00:42Z"));
+		entity.setVersion(0L);
+		dto = ItemMapper.convert(entity);
+	}
+	
+	
+	/**
+	 * Entity to dto.
+	 *
+	 * @return the item dto
+	 */
+	@Benchmark
+	public ItemDto entityToDto() {
+		return ItemMapper.convert(entity);
+	}
+	
+	
+	/**
+	 * Dto to entity.
+	 *
+	 * @return the item entity
+	 */
+	@Benchmark
+	public ItemEntity dtoToEntity() {
+		return ItemMapper.convert(dto);
+	}
+	
+	
+	/**
+	 * Creates the confirmation dto.
+	 *
+	 * @return the confirmation dto
+	 */
+	@Benchmark
+	public ConfirmationDto createConfirmationDto() {
+		return ItemsServiceImpl.createConfirmationDto(ItemStatus.SUBMITTED, entity);
+	}
+}
@@ -0,0 +1,109 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCaches;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountStrategy;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+
+
+/**
+ * Measures the read paths of the items service, with and without the item cache,
+ * against an in-memory H2 database through Hibernate and JDBC.  Each call runs in a
+ * transaction of its own, as a request does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemsServiceBenchmark {
+
+	/** The number of stored items. */
+	private static final int ITEM_COUNT = 10000;
+	
+	/** Whether the item cache is enabled. */
+	@Param({ "false", "true" })
+	public boolean cacheEnabled;
+	
+	/** The page size. */
+	@Param({ "10", "100" })
+	public int pageSize;
+	
+	/** The database. */
+	private TestDatabase database;
+	
+	/** The items service. */
+	private ItemsServiceImpl itemsService;
+	
+	/** The pageable. */
+	private Pageable pageable;
+	
+	
+	/**
+	 * Setup.
+	 */
+	@Setup
+	public void setup() {
+		database = new TestDatabase();
+		database.insertItems(ITEM_COUNT);
+		itemsService = ItemsServices.create(database, new ArrayList<>());
+		itemsService.itemCache = ItemCaches.create(cacheEnabled);
+		pageable = PageRequest.of(0, pageSize);
+	}
+	
+	
+	/**
+	 * Drops the database.
+	 */
+	@TearDown
+	public void tearDown() {
+		database.close();
+	}
+	
+	
+	/**
+	 * Gets the item by id.
+	 *
+	 * @return the item by id
+	 */
+	@Benchmark
+	public Optional<ItemDto> getItemById() {
+		long id = ThreadLocalRandom.current().nextLong(1, ITEM_COUNT + 1);
+		return database.inTransaction(() -> itemsService.getItemById(id));
+	}
+	
+	
+	/**
+	 * Gets the items.
+	 *
+	 * @return the items
+	 */
+	@Benchmark
+	public Slice<ItemDto> getItems() {
+		return database.inTransaction(() -> itemsService.getItems(pageable, new ItemFilter(), ItemField.ALL, CountStrategy.exact));
+	}
+}
@@ -0,0 +1,48 @@
+-- Checks that the item listing queries are answered from the indexes of
+-- item-indexes.sql.  The statements have the shape Hibernate generates for
+-- ItemQueryRepository, with parameter markers where it binds values.
+--
+--   db2 connect to <database>
+--   db2 "CALL SYSPROC.SYSINSTALLOBJECTS('EXPLAIN', 'C', NULL, CURRENT SCHEMA)"   -- once, creates the explain tables
+--   db2 -tvf src/main/db2/explain-item-queries.sql
+--
+-- The last query lists the scans of each statement; every one should be an
+-- IXSCAN of ITEMS_NAME_IDX or ITEMS_CREATED_IDX.  A TBSCAN of ITEMS means the
+-- index is missing or its statistics are stale.  For the full plans run
+--   db2exfmt -d <database> -1 -o item-plans.txt
+
+-- exact name, offset page sorted by id
+EXPLAIN PLAN SET QUERYNO = 1 FOR
+SELECT id, name, description, created_ts, version, updated_ts FROM items
+WHERE name = ? ORDER BY id ASC FETCH FIRST 10 ROWS ONLY;
+
+-- name prefix, sorted by name
+EXPLAIN PLAN SET QUERYNO = 2 FOR
+SELECT id, name, version FROM items
+WHERE name LIKE ? ESCAPE '!' ORDER BY name ASC FETCH FIRST 10 ROWS ONLY;
+
+-- created in a range, newest first
+EXPLAIN PLAN SET QUERYNO = 3 FOR
+SELECT id, created_ts, version FROM items
+WHERE created_ts >= ? AND created_ts < ? ORDER BY created_ts DESC FETCH FIRST 10 ROWS ONLY;
+
+-- created in a range, next keyset page, newest first
+EXPLAIN PLAN SET QUERYNO = 4 FOR
+SELECT id, created_ts, version FROM items
+WHERE created_ts >= ?
+  AND (created_ts < ? OR (created_ts = ? AND id < ?) OR created_ts IS NULL)
+ORDER BY created_ts DESC NULLS LAST, id DESC FETCH FIRST 11 ROWS ONLY;
+
+-- the total of an offset page
+EXPLAIN PLAN SET QUERYNO = 5 FOR
+SELECT COUNT(id) FROM items WHERE created_ts >= ? AND created_ts < ?;
+
+SELECT s.QUERYNO, o.OPERATOR_TYPE, VARCHAR(t.OBJECT_NAME, 30) AS OBJECT_NAME
+FROM EXPLAIN_STATEMENT s
+JOIN EXPLAIN_OPERATOR o ON o.EXPLAIN_TIME = s.EXPLAIN_TIME AND o.STMTNO = s.STMTNO AND o.SECTNO = s.SECTNO
+JOIN EXPLAIN_STREAM t ON t.EXPLAIN_TIME = o.EXPLAIN_TIME AND t.STMTNO = o.STMTNO AND t.SECTNO = o.SECTNO
+  AND t.TARGET_ID = o.OPERATOR_ID AND t.SOURCE_TYPE = 'D'
+WHERE s.EXPLAIN_LEVEL = 'P' AND s.QUERYNO BETWEEN 1 AND 5
+  AND s.EXPLAIN_TIME > CURRENT TIMESTAMP - 5 MINUTES
+  AND o.OPERATOR_TYPE IN ('IXSCAN', 'TBSCAN')
+ORDER BY s.QUERYNO;
@@ -0,0 +1,9 @@
+-- Indexes for the filtered and sorted item listings (GET /api/v1/items).
+-- The id is the second key column, so that the (property, id) ordering of sorted
+-- and keyset pages is read from the index in order without a sort.
+--   name=...        -> items_name_idx, equality on the leading column
+--   namePrefix=...  -> items_name_idx, range scan on LIKE 'prefix%'
+--   createdFrom/To  -> items_created_idx, range scan on created_ts
+CREATE INDEX items_name_idx ON items (name, id) ALLOW REVERSE SCANS;
+CREATE INDEX items_created_idx ON items (created_ts, id) ALLOW REVERSE SCANS;
+RUNSTATS ON TABLE items WITH DISTRIBUTION AND DETAILED INDEXES ALL;
@@ -0,0 +1,23 @@
+-- Migrates an items table whose id is an IDENTITY column, as created by the
+-- releases before ItemEntity took its ids from the pooled items_seq sequence.
+-- Without it inserts fail, as Hibernate now sends the id and the column is
+-- GENERATED ALWAYS, or the sequence hands out ids that already exist.
+-- Run it once, with the application stopped, using @ as statement terminator:
+--
+--   db2 connect to <database>
+--   db2 -td@ -vf src/main/db2/items-sequence-migration.sql
+--
+-- The pooled optimizer hands out the ids up to each value it reads from the
+-- sequence, starting allocationSize - 1 below it, so the sequence restarts one
+-- allocation above the highest id.  INCREMENT BY must match the allocationSize
+-- of ItemEntity.
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY@
+
+CREATE SEQUENCE items_seq AS BIGINT START WITH 1 INCREMENT BY 50@
+
+BEGIN
+  DECLARE next_id BIGINT;
+  SELECT COALESCE(MAX(id), 0) + 50 INTO next_id FROM items;
+  EXECUTE IMMEDIATE 'ALTER SEQUENCE items_seq RESTART WITH ' || VARCHAR(next_id);
+END@
@@ -0,0 +1,17 @@
+-- Adds the columns of versioned items to an items table created by the releases
+-- before ItemEntity had a version, which conditional requests (ETag, If-Match,
+-- If-None-Match, If-Modified-Since) and the optimistic locking of updates rely on.
+-- Without them every read and write of an item fails on the missing columns.
+-- Run it once, with the application stopped:
+--
+--   db2 connect to <database>
+--   db2 -tvf src/main/db2/items-version-migration.sql
+--
+-- Existing items start at version 0 and, like new ones, have no updated_ts until
+-- they are first changed.  On a table that already has the columns the ALTER fails
+-- with SQL0612N and nothing is changed.
+
+ALTER TABLE items
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0
+  ADD COLUMN updated_ts TIMESTAMP;
+
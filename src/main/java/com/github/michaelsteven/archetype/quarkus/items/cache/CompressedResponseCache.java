@@ -0,0 +1,95 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.time.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of the compressed bodies of responses that carry an entity tag, keyed by
+ * the request, the media type and the tag.  As the tag changes with the content, a
+ * changed item or page is looked up under a new key and is never served stale; the
+ * old bodies are evicted by size and by time since they were last served.  The
+ * cache is bounded by the number of compressed bytes it holds.
+ */
+@ApplicationScoped
+public class CompressedResponseCache {
+
+	/** Whether compressed bodies are cached. */
+	@ConfigProperty(name = "items.compression.cache.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The maximum number of compressed bytes cached. */
+	@ConfigProperty(name = "items.compression.cache.maximum-bytes", defaultValue = "16777216")
+	long maximumBytes;
+
+	/** How long a body stays cached after it was last served. */
+	@ConfigProperty(name = "items.compression.cache.expire-after-access", defaultValue = "PT10M")
+	Duration expireAfterAccess;
+
+	/** The meter registry. */
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** The cache. */
+	private Cache<String, byte[]> cache;
+
+
+	/**
+	 * Builds the underlying cache from the configuration and publishes its
+	 * counters as cache.* metrics tagged cache=compressed-responses.
+	 */
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder()
+				.maximumWeight(maximumBytes)
+				.weigher((String key, byte[] body) -> key.length() + body.length)
+				.expireAfterAccess(expireAfterAccess)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "compressed-responses");
+	}
+
+
+	/**
+	 * Gets a compressed body.
+	 *
+	 * @param key the key
+	 * @return the body, null if it is not cached or the cache is disabled
+	 */
+	public byte[] get(String key) {
+		return enabled ? cache.getIfPresent(key) : null;
+	}
+
+
+	/**
+	 * Caches a compressed body.
+	 *
+	 * @param key the key
+	 * @param body the body
+	 */
+	public void put(String key, byte[] body) {
+		if(enabled) {
+			cache.put(key, body);
+		}
+	}
+
+
+	/**
+	 * Gets the estimated number of cached bodies.
+	 *
+	 * @return the estimated size
+	 */
+	public long getEstimatedSize() {
+		return cache.estimatedSize();
+	}
+}
@@ -0,0 +1,263 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+
+/**
+ * The Hibernate second level cache regions of the items: the entity region of
+ * {@link ItemEntity} and the {@link #LISTING_REGION} query region of the listing
+ * and count queries.  Both are opt in, the entity region with
+ * quarkus.hibernate-orm.second-level-caching-enabled at build time and the query
+ * region with items.query-cache.enabled.
+ * <p>
+ * Writes through Hibernate keep both regions correct by themselves, bulk statements
+ * included.  The writes of the reactive api bypass Hibernate and evict through
+ * {@link #evict(Collection)} and {@link #evictListings()}.
+ * <p>
+ * At startup the region configuration is checked and what is wrong with it logged:
+ * regions configured under names that do not exist, regions in use without a bound,
+ * and query caching asked for while Hibernate's query cache is off.  The hits, misses
+ * and puts of each region are published as items.hibernate.cache.* tagged by region.
+ */
+@Startup
+@ApplicationScoped
+public class HibernateCacheRegions {
+
+	public static final Logger logger = LoggerFactory.getLogger(HibernateCacheRegions.class);
+
+	/** The entity region of the items. */
+	public static final String ITEM_REGION = ItemEntity.class.getName();
+
+	/** The query region of the item listings and counts. */
+	public static final String LISTING_REGION = "items-listing";
+
+	/** The prefix of the region configuration of the persistence unit. */
+	private static final String REGION_CONFIG_PREFIX = "quarkus.hibernate-orm.cache.";
+
+	/** The region configuration that bounds the number of entries. */
+	private static final String OBJECT_COUNT = ".memory.object-count";
+
+	/** Whether the listing queries are cached. */
+	@ConfigProperty(name = "items.query-cache.enabled", defaultValue = "false")
+	boolean queryCacheEnabled;
+
+	@Inject
+	EntityManagerFactory entityManagerFactory;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	@Inject
+	Config config;
+
+	/** The session factory. */
+	private SessionFactoryImplementor sessionFactory;
+
+
+	/**
+	 * Validates the region configuration and registers the region metrics.
+	 */
+	@PostConstruct
+	void init() {
+		sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		validate();
+		Statistics statistics = sessionFactory.getStatistics();
+		if(isEntityCacheEnabled()) {
+			register(ITEM_REGION, statistics, s -> s.getDomainDataRegionStatistics(ITEM_REGION));
+		}
+		if(isQueryCacheEnabled()) {
+			register(LISTING_REGION, statistics, s -> s.getQueryRegionStatistics(LISTING_REGION));
+		}
+	}
+
+
+	/**
+	 * Checks if the items are cached by id.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isEntityCacheEnabled() {
+		return sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled() && regionNames().contains(ITEM_REGION);
+	}
+
+
+	/**
+	 * Checks if the listing queries are cached.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isQueryCacheEnabled() {
+		return queryCacheEnabled && sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled();
+	}
+
+
+	/**
+	 * Evicts items written without Hibernate, and the listings they appear in.
+	 *
+	 * @param ids the ids
+	 */
+	public void evict(Collection<Long> ids) {
+		if(isEntityCacheEnabled()) {
+			for (Long id : ids) {
+				sessionFactory.getCache().evictEntityData(ItemEntity.class, id);
+			}
+		}
+		evictListings();
+	}
+
+
+	/**
+	 * Evicts the listings, after items were written without Hibernate.
+	 */
+	public void evictListings() {
+		if(isQueryCacheEnabled()) {
+			sessionFactory.getCache().evictQueryRegion(LISTING_REGION);
+		}
+	}
+
+
+	/**
+	 * Logs what is wrong with the region configuration.
+	 */
+	private void validate() {
+		SessionFactoryOptions options = sessionFactory.getSessionFactoryOptions();
+		if(queryCacheEnabled && !options.isQueryCacheEnabled()) {
+			logger.warn("items.query-cache.enabled is set but the Hibernate query cache is off, enable "
+					+ "quarkus.hibernate-orm.second-level-caching-enabled at build time; listings are not cached");
+		}
+		if(!options.isSecondLevelCacheEnabled()) {
+			logger.info("Items second level cache off, listing query cache off");
+			return;
+		}
+		if(!regionNames().contains(ITEM_REGION)) {
+			logger.warn("The second level cache is on but has no {} region, items are not cached by id", ITEM_REGION);
+		}
+		Set<String> known = new HashSet<>(regionNames());
+		known.addAll(Arrays.asList(LISTING_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+				RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME));
+		Set<String> bounded = new TreeSet<>();
+		for (String property : config.getPropertyNames()) {
+			if(!property.startsWith(REGION_CONFIG_PREFIX)) {
+				continue;
+			}
+			String region = regionOf(property);
+			if(null == region) {
+				logger.warn("Can not tell the region of {}, quote region names that hold dots", property);
+			}
+			else if(!known.contains(region)) {
+				logger.warn("{} configures the region {}, which does not exist; the regions are {}", property, region, new TreeSet<>(known));
+			}
+			else if(property.endsWith(OBJECT_COUNT)) {
+				bounded.add(region);
+			}
+		}
+		if(isEntityCacheEnabled() && !bounded.contains(ITEM_REGION)) {
+			logger.warn("The {} region has no {}{}{} and is bounded by the default", ITEM_REGION, REGION_CONFIG_PREFIX, quote(ITEM_REGION), OBJECT_COUNT);
+		}
+		if(isQueryCacheEnabled() && !bounded.contains(LISTING_REGION)) {
+			logger.warn("The {} region has no {}{}{} and is bounded by the default", LISTING_REGION, REGION_CONFIG_PREFIX, quote(LISTING_REGION), OBJECT_COUNT);
+		}
+		logger.info("Items second level cache {}, listing query cache {}", isEntityCacheEnabled() ? "on" : "off", isQueryCacheEnabled() ? "on" : "off");
+	}
+
+
+	/**
+	 * Gets the names of the entity and collection regions.
+	 *
+	 * @return the region names, empty when the second level cache is off
+	 */
+	private Set<String> regionNames() {
+		Set<String> names = sessionFactory.getCache().getCacheRegionNames();
+		return null == names ? Collections.emptySet() : names;
+	}
+
+
+	/**
+	 * Gets the region a region configuration property is about.
+	 *
+	 * @param property the property, starting with the region configuration prefix
+	 * @return the region, null if it can not be told
+	 */
+	static String regionOf(String property) {
+		String rest = property.substring(REGION_CONFIG_PREFIX.length());
+		if(rest.startsWith("\"")) {
+			int end = rest.indexOf('"', 1);
+			return end < 0 ? null : rest.substring(1, end);
+		}
+		int end = rest.indexOf('.');
+		String region = end < 0 ? rest : rest.substring(0, end);
+		// an unquoted name with dots is split by the config, what follows is not memory or expiration
+		String setting = end < 0 ? "" : rest.substring(end + 1);
+		return setting.startsWith("memory.") || setting.startsWith("expiration.") ? region : null;
+	}
+
+
+	/**
+	 * Quotes a region name for a property.
+	 *
+	 * @param region the region
+	 * @return the quoted region
+	 */
+	private static String quote(String region) {
+		return "\"" + region + "\"";
+	}
+
+
+	/**
+	 * Registers the items.hibernate.cache.* meters of a region.
+	 *
+	 * @param region the region
+	 * @param statistics the statistics
+	 * @param regionStatistics gets the statistics of the region, null until it is first used
+	 */
+	private void register(String region, Statistics statistics, Function<Statistics, CacheRegionStatistics> regionStatistics) {
+		FunctionCounter.builder("items.hibernate.cache.gets", statistics, s -> count(regionStatistics.apply(s), CacheRegionStatistics::getHitCount))
+				.tag("region", region).tag("result", "hit").description("The lookups in the second level cache region").register(meterRegistry);
+		FunctionCounter.builder("items.hibernate.cache.gets", statistics, s -> count(regionStatistics.apply(s), CacheRegionStatistics::getMissCount))
+				.tag("region", region).tag("result", "miss").description("The lookups in the second level cache region").register(meterRegistry);
+		FunctionCounter.builder("items.hibernate.cache.puts", statistics, s -> count(regionStatistics.apply(s), CacheRegionStatistics::getPutCount))
+				.tag("region", region).description("The entries put in the second level cache region").register(meterRegistry);
+		Gauge.builder("items.hibernate.cache.size", statistics, s -> count(regionStatistics.apply(s), CacheRegionStatistics::getElementCountInMemory))
+				.tag("region", region).description("The entries in the second level cache region").register(meterRegistry);
+	}
+
+
+	/**
+	 * Reads a count of region statistics.
+	 *
+	 * @param regionStatistics the region statistics, may be null
+	 * @param count the count
+	 * @return the count, 0 without statistics
+	 */
+	private static double count(CacheRegionStatistics regionStatistics, ToLongFunction<CacheRegionStatistics> count) {
+		return null == regionStatistics ? 0 : Math.max(0, count.applyAsLong(regionStatistics));
+	}
+}
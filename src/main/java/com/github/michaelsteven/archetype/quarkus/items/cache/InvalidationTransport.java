@@ -0,0 +1,34 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemInvalidationEvent;
+
+/**
+ * The Interface InvalidationTransport.  How the {@link ItemInvalidationBus} reaches
+ * the other replicas; the {@link LoopbackInvalidationTransport} is used unless the
+ * application provides another bean, such as one over a message broker topic or
+ * database notifications.  Delivery may be late, repeated or out of order, which the
+ * item versions of the events make harmless, but an event that is never delivered
+ * leaves a peer's copy stale until it expires.
+ */
+public interface InvalidationTransport {
+
+	/**
+	 * Sends an event to every subscriber, including those of this replica.
+	 *
+	 * @param event the event
+	 * @throws IOException Signals that the event could not be sent.
+	 */
+	public abstract void publish(ItemInvalidationEvent event) throws IOException;
+
+
+	/**
+	 * Subscribes to the events of every replica.
+	 *
+	 * @param listener the listener
+	 */
+	public abstract void subscribe(Consumer<ItemInvalidationEvent> listener);
+
+}
@@ -0,0 +1,252 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of converted items keyed by id.  Entries are bounded by
+ * size and by time since they were written, and are invalidated by the write
+ * paths of the items service and, for changes made on other replicas, by the
+ * {@link ItemInvalidationBus}.
+ */
+@ApplicationScoped
+public class ItemCache {
+
+	/** Whether the cache is enabled. */
+	@ConfigProperty(name = "items.cache.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The maximum number of cached items. */
+	@ConfigProperty(name = "items.cache.maximum-size", defaultValue = "10000")
+	long maximumSize;
+
+	/** How long an item stays cached after it was loaded. */
+	@ConfigProperty(name = "items.cache.expire-after-write", defaultValue = "PT5M")
+	Duration expireAfterWrite;
+
+	/** The transaction synchronization registry. */
+	@Inject
+	TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+	/** The meter registry. */
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** The cache. */
+	private Cache<Long, ItemDto> cache;
+
+	/** The lowest version that may be cached, by item id, after an invalidation. */
+	private Cache<Long, Long> minimumVersions;
+
+
+	/**
+	 * Builds the underlying cache from the configuration and publishes its
+	 * counters as cache.* metrics tagged cache=items.
+	 */
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "items");
+		minimumVersions = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.build();
+	}
+
+
+	/**
+	 * Gets the item for the id, loading and caching it on a miss.
+	 * Items that are not found are not cached.  The loader runs outside of the
+	 * cache, so a slow read, which may wait for a batch of other requests, holds
+	 * up neither the other keys of the cache nor the invalidations of this one;
+	 * the reads of concurrent misses are shared by the loader instead.
+	 *
+	 * @param id the id
+	 * @param loader the loader used on a cache miss
+	 * @return the item
+	 */
+	public Optional<ItemDto> get(long id, LongFunction<Optional<ItemDto>> loader) {
+		if(!enabled) {
+			return loader.apply(id);
+		}
+		ItemDto cached = cache.getIfPresent(id);
+		if(null != cached) {
+			if(!isStale(cached)) {
+				return Optional.of(cached);
+			}
+			// loaded before a change that committed elsewhere was invalidated
+			cache.asMap().remove(id, cached);
+		}
+		Optional<ItemDto> loaded = loader.apply(id);
+		loaded.ifPresent(this::put);
+		return loaded;
+	}
+
+
+	/**
+	 * Caches a loaded item unless it is older than the lowest version that may be
+	 * cached, or another reader cached it meanwhile.  The version is checked again
+	 * once the item is in the cache, as an invalidation may have come in between.
+	 *
+	 * @param itemDto the item dto
+	 */
+	private void put(ItemDto itemDto) {
+		if(isStale(itemDto)) {
+			return;
+		}
+		if(null == cache.asMap().putIfAbsent(itemDto.getId(), itemDto) && isStale(itemDto)) {
+			cache.asMap().remove(itemDto.getId(), itemDto);
+		}
+	}
+
+
+	/**
+	 * Gets the item for the id if it is cached, without loading it.
+	 *
+	 * @param id the id
+	 * @return the item, null if it is not cached or the cache is disabled
+	 */
+	public ItemDto getIfPresent(long id) {
+		return enabled ? cache.getIfPresent(id) : null;
+	}
+
+
+	/**
+	 * Removes the item from the cache.
+	 *
+	 * @param id the id
+	 */
+	public void invalidate(long id) {
+		cache.invalidate(id);
+	}
+
+
+	/**
+	 * Removes the item from the cache unless it is cached at the version or later,
+	 * and from now on refuses to cache it at an earlier version, which a reader may
+	 * still be loading.  Invalidations may come in any order, the highest version wins.
+	 *
+	 * @param id the id
+	 * @param version the version after the change, null when the item was deleted
+	 */
+	public void invalidate(long id, Long version) {
+		long minimum = null == version ? Long.MAX_VALUE : version;
+		minimumVersions.asMap().merge(id, minimum, Math::max);
+		cache.asMap().computeIfPresent(id, (key, cached) -> isStale(cached) ? null : cached);
+	}
+
+
+	/**
+	 * Checks whether an item is older than the lowest version that may be cached.
+	 *
+	 * @param itemDto the item dto
+	 * @return true, if stale
+	 */
+	private boolean isStale(ItemDto itemDto) {
+		Long minimum = minimumVersions.getIfPresent(itemDto.getId());
+		return null != minimum && (null == itemDto.getVersion() || itemDto.getVersion() < minimum);
+	}
+
+
+	/**
+	 * Removes the item from the cache now and again once the current transaction
+	 * completes, so a reader that loaded the old row before the commit can not
+	 * leave it cached.  Without an active transaction this is the same as
+	 * {@link #invalidate(long)}.
+	 *
+	 * @param id the id
+	 */
+	public void invalidateAfterCompletion(long id) {
+		invalidate(id);
+		if(transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+			transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {
+					// nothing to do before completion
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					invalidate(id);
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Removes the items from the cache now and again once the current transaction
+	 * completes, registering one synchronization for all of them.
+	 *
+	 * @param ids the ids
+	 */
+	public void invalidateAfterCompletion(Collection<Long> ids) {
+		cache.invalidateAll(ids);
+		if(transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+			transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {
+					// nothing to do before completion
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					cache.invalidateAll(ids);
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Checks if the cache is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+
+	/**
+	 * Gets the number of cached items.
+	 *
+	 * @return the estimated size
+	 */
+	public long getEstimatedSize() {
+		return cache.estimatedSize();
+	}
+
+
+	/**
+	 * Gets the hit, miss and eviction counters.
+	 *
+	 * @return the stats
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,200 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of the item counts by filter, for the cached count strategy.  A count is
+ * queried once per filter and time to live and kept up to date in between by the
+ * item changes of this replica once they commit: a created item is counted by the
+ * filters it passes, a deleted one is taken off the unfiltered count, and the
+ * filtered counts it may have been part of, which the event can not tell, are
+ * dropped, as are the name filtered ones on an update that may have renamed an item.
+ * Changes made elsewhere show once the count expires.
+ * <p>
+ * A count queried while a change commits may or may not hold it, so adjusting it
+ * would count the change twice or not at all.  Changes are therefore tracked from the
+ * moment they are made in their transaction: a count queried while one is under way
+ * is not cached, and one cached while another began is dropped again.  The changes of
+ * the v2 api have committed by the time they are told, so they drop the counts they
+ * affect instead of adjusting them.
+ */
+@ApplicationScoped
+public class ItemCountCache {
+
+	/** The maximum number of cached counts. */
+	@ConfigProperty(name = "items.count.cache.maximum-size", defaultValue = "1000")
+	long maximumSize;
+
+	/** How long a count is kept after it was queried. */
+	@ConfigProperty(name = "items.count.cache.expire-after-write", defaultValue = "PT1M")
+	Duration expireAfterWrite;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	@Inject
+	TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+	/** The counts, adjusted in place so that an adjustment does not extend their life. */
+	private Cache<ItemFilter, AtomicLong> cache;
+
+	/** The changes made but not yet applied to the counts. */
+	private final AtomicInteger changing = new AtomicInteger();
+
+	/** Advances whenever a change begins or is applied. */
+	private final AtomicLong generation = new AtomicLong();
+
+
+	/**
+	 * Builds the underlying cache from the configuration and publishes its
+	 * counters as cache.* metrics tagged cache=item-counts.
+	 */
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "item-counts");
+	}
+
+
+	/**
+	 * Gets the count of a filter, counting it on a miss and caching it unless a change
+	 * raced the count.
+	 *
+	 * @param filter the filter
+	 * @param counter counts the items that pass the filter
+	 * @return the count
+	 */
+	public long get(ItemFilter filter, LongSupplier counter) {
+		AtomicLong cached = cache.getIfPresent(filter);
+		if(null != cached) {
+			return Math.max(0, cached.get());
+		}
+		long before = generation.get();
+		boolean quiet = 0 == changing.get();
+		long count = counter.getAsLong();
+		if(quiet) {
+			AtomicLong loaded = new AtomicLong(count);
+			cache.put(filter, loaded);
+			// a change that began meanwhile may be in the count or not, drop it again
+			if(before != generation.get()) {
+				cache.asMap().remove(filter, loaded);
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Notes a change as it is made, before its transaction commits.
+	 *
+	 * @param event the event
+	 */
+	void onChanging(@Observes ItemChangeEvent event) {
+		changing.incrementAndGet();
+		generation.incrementAndGet();
+	}
+
+
+	/**
+	 * Applies a change to the cached counts once its transaction has completed.  A
+	 * rolled back change leaves them as they are.
+	 *
+	 * @param event the event
+	 */
+	void onChange(@Observes(during = TransactionPhase.AFTER_COMPLETION) ItemChangeEvent event) {
+		try {
+			int status = transactionSynchronizationRegistry.getTransactionStatus();
+			if(Status.STATUS_COMMITTED == status) {
+				adjust(event);
+			}
+			else if(Status.STATUS_NO_TRANSACTION == status) {
+				drop(event);
+			}
+		}
+		finally {
+			generation.incrementAndGet();
+			changing.decrementAndGet();
+		}
+	}
+
+
+	/**
+	 * Adjusts the cached counts to a committed change.
+	 *
+	 * @param event the event
+	 */
+	private void adjust(ItemChangeEvent event) {
+		if(ItemChangeType.created == event.getType() && null != event.getItem()) {
+			cache.asMap().forEach((filter, count) -> {
+				if(filter.matches(event.getItem())) {
+					count.incrementAndGet();
+				}
+			});
+		}
+		else if(ItemChangeType.deleted == event.getType()) {
+			cache.asMap().forEach((filter, count) -> {
+				if(filter.isEmpty()) {
+					count.decrementAndGet();
+				}
+				else {
+					cache.invalidate(filter);
+				}
+			});
+		}
+		else if(ItemChangeType.updated == event.getType()) {
+			dropNameFiltered();
+		}
+	}
+
+
+	/**
+	 * Drops the cached counts a change may have altered.
+	 *
+	 * @param event the event
+	 */
+	private void drop(ItemChangeEvent event) {
+		if(ItemChangeType.created == event.getType() && null != event.getItem()) {
+			cache.asMap().keySet().removeIf(filter -> filter.matches(event.getItem()));
+		}
+		else if(ItemChangeType.updated == event.getType()) {
+			dropNameFiltered();
+		}
+		else {
+			cache.invalidateAll();
+		}
+	}
+
+
+	/**
+	 * Drops the name filtered counts, after an update that may have renamed an item.
+	 */
+	private void dropNameFiltered() {
+		cache.asMap().keySet().removeIf(filter -> null != filter.getName() || null != filter.getNamePrefix());
+	}
+}
@@ -0,0 +1,159 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemInvalidationEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+
+/**
+ * Keeps the item caches of the replicas coherent.  Once a change has committed, the
+ * item id and its new version are broadcast over the {@link InvalidationTransport};
+ * each peer then drops its cached copy unless it is already at that version or
+ * later, and refuses to cache older copies that readers were loading meanwhile.  As
+ * the versions only grow, events that arrive late, twice or out of order can not
+ * bring a stale copy back.  The events of the peers are fired on to local observers,
+ * such as the search index.
+ * <p>
+ * Events are counted as items.cache.invalidations by result.
+ */
+@Startup
+@ApplicationScoped
+public class ItemInvalidationBus {
+
+	public static final Logger logger = LoggerFactory.getLogger(ItemInvalidationBus.class);
+
+	/** Whether invalidations are broadcast to and received from the peers. */
+	@ConfigProperty(name = "items.cache.invalidation.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The id of this replica, a random one when not set. */
+	@ConfigProperty(name = "items.cache.invalidation.node-id")
+	Optional<String> configuredNodeId;
+
+	@Inject
+	ItemCache itemCache;
+	
+	@Inject
+	HibernateCacheRegions hibernateCacheRegions;
+
+	@Inject
+	InvalidationTransport transport;
+
+	@Inject
+	MeterRegistry meterRegistry;
+	
+	@Inject
+	Event<ItemInvalidationEvent> peerInvalidations;
+
+	/** The id of this replica. */
+	private String nodeId;
+
+	/** The events sent. */
+	private Counter published;
+
+	/** The events of peers applied. */
+	private Counter received;
+
+	/** The events that could not be sent. */
+	private Counter failed;
+
+
+	/**
+	 * Registers the counters and subscribes to the events of the peers.
+	 */
+	@PostConstruct
+	void init() {
+		nodeId = configuredNodeId.orElseGet(() -> UUID.randomUUID().toString());
+		published = counter("published");
+		received = counter("received");
+		failed = counter("failed");
+		if(enabled) {
+			transport.subscribe(this::onInvalidation);
+		}
+	}
+
+
+	/**
+	 * Gets the id of this replica.
+	 *
+	 * @return the node id
+	 */
+	public String getNodeId() {
+		return nodeId;
+	}
+
+
+	/**
+	 * Applies a committed change to the local cache and broadcasts it, creations
+	 * included as the peers' search indexes need them.  A failure to
+	 * send is logged rather than thrown, as the change has already committed; the
+	 * peers' copies then expire with the cache.
+	 *
+	 * @param event the event
+	 */
+	void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ItemChangeEvent event) {
+		Long version = ItemChangeType.deleted == event.getType() || null == event.getItem() ? null : event.getItem().getVersion();
+		itemCache.invalidate(event.getItemId(), version);
+		if(!enabled) {
+			return;
+		}
+		try {
+			transport.publish(new ItemInvalidationEvent(nodeId, event.getItemId(), version));
+			published.increment();
+		}
+		catch(IOException | RuntimeException e) {
+			failed.increment();
+			logger.warn("Could not broadcast the invalidation of item {}", event.getItemId(), e);
+		}
+	}
+
+
+	/**
+	 * Applies the invalidation of a peer and fires it to the local observers; those of
+	 * this replica were applied when sent.  The Hibernate regions of this replica only
+	 * see its own writes, so the item is evicted from them as well, or the item cache
+	 * would reload the stale copy from the second level cache.
+	 *
+	 * @param event the event
+	 */
+	void onInvalidation(ItemInvalidationEvent event) {
+		if(nodeId.equals(event.getOrigin()) || null == event.getItemId()) {
+			return;
+		}
+		hibernateCacheRegions.evict(Collections.singleton(event.getItemId()));
+		itemCache.invalidate(event.getItemId(), event.getVersion());
+		received.increment();
+		peerInvalidations.fire(event);
+	}
+
+
+	/**
+	 * Registers an items.cache.invalidations counter.
+	 *
+	 * @param result the result tag
+	 * @return the counter
+	 */
+	private Counter counter(String result) {
+		return Counter.builder("items.cache.invalidations").tag("result", result)
+				.description("The item invalidations exchanged with the other replicas").register(meterRegistry);
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemInvalidationEvent;
+
+import io.quarkus.arc.DefaultBean;
+
+/**
+ * In process transport that hands each event to the subscribers of this JVM as it
+ * is published.  With a single replica there are no peers to reach; it stands in for
+ * a broker in development and lets a test subscribe peers of its own.
+ */
+@DefaultBean
+@ApplicationScoped
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+	/** The subscribers. */
+	private final List<Consumer<ItemInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+
+	/**
+	 * Hands the event to every subscriber.
+	 *
+	 * @param event the event
+	 */
+	@Override
+	public void publish(ItemInvalidationEvent event) {
+		for (Consumer<ItemInvalidationEvent> listener : listeners) {
+			listener.accept(event);
+		}
+	}
+
+
+	/**
+	 * Subscribes to the events.
+	 *
+	 * @param listener the listener
+	 */
+	@Override
+	public void subscribe(Consumer<ItemInvalidationEvent> listener) {
+		listeners.add(listener);
+	}
+}
@@ -0,0 +1,499 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceOutcome;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import io.vertx.core.Context;
+
+/**
+ * Publishes compliance events off the request thread.  A call only records the
+ * action, source, resource id, outcome, time and trace id in a lock-free ring
+ * buffer; a single publisher thread builds the {@link ComplianceEvent}s and writes
+ * them to the {@link ComplianceSink} in batches of items.compliance.batch-size, or
+ * of whatever arrived within items.compliance.flush-interval.  What a call does
+ * when the buffer is full is set by items.compliance.overflow.  Calls on an event
+ * loop thread, as the results of the v2 api complete, must neither wait
+ * nor write files; unless the policy is drop, their overflowing events are handed to
+ * the publisher thread to buffer or spill, up to as many as the buffer holds, and
+ * dropped beyond that.
+ * <p>
+ * The number of buffered events is published as items.compliance.buffered, the
+ * age in seconds of the oldest event not yet written as items.compliance.lag and
+ * the written, dropped, spilled and failed events as items.compliance.events.
+ */
+@Startup
+@ApplicationScoped
+public class CompliancePublisher {
+
+	public static final Logger logger = LoggerFactory.getLogger(CompliancePublisher.class);
+
+	/** How long a blocked call waits before it retries the buffer. */
+	private static final long BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/** Whether compliance events are published. */
+	@ConfigProperty(name = "items.compliance.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The number of events the buffer holds, rounded up to a power of two. */
+	@ConfigProperty(name = "items.compliance.buffer-size", defaultValue = "8192")
+	int bufferSize;
+
+	/** The maximum number of events written to the sink at once. */
+	@ConfigProperty(name = "items.compliance.batch-size", defaultValue = "500")
+	int batchSize;
+
+	/** How long an event waits for its batch to fill. */
+	@ConfigProperty(name = "items.compliance.flush-interval", defaultValue = "PT1S")
+	Duration flushInterval;
+
+	/** What a call does when the buffer is full. */
+	@ConfigProperty(name = "items.compliance.overflow", defaultValue = "block")
+	OverflowPolicy overflow;
+
+	/** The file overflowing events are spilled to. */
+	@ConfigProperty(name = "items.compliance.spill-file", defaultValue = "compliance-spill.ndjson")
+	String spillFile;
+
+	/** The sink. */
+	@Inject
+	ComplianceSink sink;
+
+	/** The object mapper. */
+	@Inject
+	ObjectMapper objectMapper;
+
+	/** The meter registry. */
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** The buffer, null when disabled. */
+	private RingBuffer<ComplianceRecord> buffer;
+
+	/** The overflowing events of event loop threads, for the publisher thread. */
+	private final Queue<ComplianceRecord> deferred = new ConcurrentLinkedQueue<>();
+
+	/** The number of deferred events. */
+	private final AtomicInteger deferredCount = new AtomicInteger();
+
+	/** The spill file. */
+	private ComplianceSpill spill;
+
+	/** The publisher thread. */
+	private Thread publisher;
+
+	/** Whether the publisher keeps waiting for events. */
+	private volatile boolean running;
+
+	/** Whether the publisher is parked with nothing to write. */
+	private volatile boolean idle;
+
+	/** The time in epoch millis of the oldest event not yet written, 0 if there is none. */
+	private volatile long oldestPending;
+
+	/** The written events. */
+	private Counter written;
+
+	/** The dropped events. */
+	private Counter dropped;
+
+	/** The spilled events. */
+	private Counter spilled;
+
+	/** The events that could not be written or spilled. */
+	private Counter failed;
+
+
+	/**
+	 * Creates the buffer, publishes the metrics and starts the publisher thread.
+	 */
+	@PostConstruct
+	void init() {
+		if(!enabled) {
+			return;
+		}
+		buffer = new RingBuffer<>(bufferSize);
+		spill = new ComplianceSpill(Paths.get(spillFile), objectMapper.writerFor(ComplianceEvent.class));
+		Gauge.builder("items.compliance.buffered", buffer, RingBuffer::size)
+			.description("The number of compliance events waiting in the buffer").register(meterRegistry);
+		Gauge.builder("items.compliance.lag", this, CompliancePublisher::lagSeconds)
+			.description("The age in seconds of the oldest compliance event not yet written").register(meterRegistry);
+		written = counter("written");
+		dropped = counter("dropped");
+		spilled = counter("spilled");
+		failed = counter("failed");
+		running = true;
+		publisher = new Thread(this::run, "items-compliance");
+		publisher.setDaemon(true);
+		publisher.start();
+	}
+
+
+	/**
+	 * Stops the publisher thread once it has written the buffered events.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@PreDestroy
+	void shutdown() throws InterruptedException {
+		if(null == publisher) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(publisher);
+		publisher.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+
+	/**
+	 * Records a compliance event.  Only the buffer is touched unless it is full.
+	 *
+	 * @param action the action
+	 * @param source the source
+	 * @param resourceId the id of the item, null if the call is not about one item
+	 * @param outcome the outcome
+	 */
+	public void publish(ComplianceAction action, String source, Long resourceId, ComplianceOutcome outcome) {
+		if(null == buffer) {
+			return;
+		}
+		ComplianceRecord record = new ComplianceRecord(action, source, resourceId, outcome,
+				System.currentTimeMillis(), MDC.get("traceId"));
+		if(!buffer.offer(record)) {
+			LockSupport.unpark(publisher);
+			if(!overflow(record)) {
+				return;
+			}
+		}
+		if(idle || buffer.size() == batchSize) {
+			LockSupport.unpark(publisher);
+		}
+	}
+
+
+	/**
+	 * Applies the overflow policy to an event that did not fit in the buffer.
+	 *
+	 * @param record the record
+	 * @return true, if the event was buffered after all
+	 */
+	private boolean overflow(ComplianceRecord record) {
+		if(OverflowPolicy.drop != overflow && Context.isOnEventLoopThread()) {
+			defer(record);
+			return false;
+		}
+		switch(overflow) {
+			case drop:
+				dropped.increment();
+				return false;
+			case spill:
+				List<ComplianceEvent> events = new ArrayList<>(1);
+				events.add(record.toEvent());
+				spill(events);
+				return false;
+			default:
+				while(!buffer.offer(record)) {
+					if(!running) {
+						dropped.increment();
+						return false;
+					}
+					LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+				}
+				return true;
+		}
+	}
+
+
+	/**
+	 * Hands an overflowing event of an event loop thread to the publisher thread, or
+	 * drops it when as many as the buffer holds are waiting already.
+	 *
+	 * @param record the record
+	 */
+	private void defer(ComplianceRecord record) {
+		if(deferredCount.incrementAndGet() > buffer.capacity()) {
+			deferredCount.decrementAndGet();
+			dropped.increment();
+			return;
+		}
+		deferred.add(record);
+		LockSupport.unpark(publisher);
+	}
+
+
+	/**
+	 * Takes the deferred events, into the batch or, with the spill policy, to the
+	 * spill file.
+	 *
+	 * @param batch the batch
+	 */
+	private void takeDeferred(List<ComplianceRecord> batch) {
+		List<ComplianceEvent> spills = new ArrayList<>();
+		ComplianceRecord record;
+		while((OverflowPolicy.spill == overflow || batch.size() < batchSize) && null != (record = deferred.poll())) {
+			deferredCount.decrementAndGet();
+			if(OverflowPolicy.spill == overflow) {
+				spills.add(record.toEvent());
+			}
+			else {
+				batch.add(record);
+			}
+		}
+		if(!spills.isEmpty()) {
+			spill(spills);
+		}
+	}
+
+
+	/**
+	 * Drains the buffer into batches until shut down.
+	 */
+	private void run() {
+		long flushIntervalNanos = flushInterval.toNanos();
+		long retryReplayAt = System.nanoTime();
+		List<ComplianceRecord> batch = new ArrayList<>(batchSize);
+		long deadline = 0;
+		while(running || buffer.size() > 0 || !deferred.isEmpty() || !batch.isEmpty()) {
+			boolean wasEmpty = batch.isEmpty();
+			takeDeferred(batch);
+			buffer.drainTo(batch, batchSize - batch.size());
+			if(wasEmpty && !batch.isEmpty()) {
+				oldestPending = batch.get(0).timestamp;
+				deadline = System.nanoTime() + flushIntervalNanos;
+			}
+			if(batch.size() >= batchSize || (!batch.isEmpty() && (!running || System.nanoTime() - deadline >= 0))) {
+				write(batch);
+				batch.clear();
+				oldestPending = 0;
+				continue;
+			}
+			if(!batch.isEmpty()) {
+				LockSupport.parkNanos(this, deadline - System.nanoTime());
+				continue;
+			}
+			if(spill.isPending() && System.nanoTime() - retryReplayAt >= 0) {
+				if(!replay()) {
+					retryReplayAt = System.nanoTime() + flushIntervalNanos;
+				}
+				continue;
+			}
+			idle = true;
+			if(running && buffer.size() == 0 && deferred.isEmpty()) {
+				LockSupport.parkNanos(this, flushIntervalNanos);
+			}
+			idle = false;
+		}
+		if(spill.isPending()) {
+			replay();
+		}
+		try {
+			spill.close();
+		}
+		catch(IOException e) {
+			logger.warn("Could not close the compliance spill file", e);
+		}
+	}
+
+
+	/**
+	 * Writes a batch to the sink.  A batch that cannot be written is spilled when
+	 * the overflow policy is spill, and otherwise counted as failed.
+	 *
+	 * @param batch the batch
+	 */
+	private void write(List<ComplianceRecord> batch) {
+		List<ComplianceEvent> events = new ArrayList<>(batch.size());
+		for (ComplianceRecord record : batch) {
+			events.add(record.toEvent());
+		}
+		try {
+			sink.write(events);
+			written.increment(events.size());
+		}
+		catch(IOException | RuntimeException e) {
+			logger.error("Could not write {} compliance events", events.size(), e);
+			if(OverflowPolicy.spill == overflow) {
+				spill(events);
+			}
+			else {
+				failed.increment(events.size());
+			}
+		}
+	}
+
+
+	/**
+	 * Appends events to the spill file.
+	 *
+	 * @param events the events
+	 */
+	private void spill(List<ComplianceEvent> events) {
+		try {
+			spill.append(events);
+			spilled.increment(events.size());
+		}
+		catch(IOException e) {
+			logger.error("Could not spill {} compliance events", events.size(), e);
+			failed.increment(events.size());
+		}
+	}
+
+
+	/**
+	 * Writes the spilled events to the sink in batches.  When a batch fails the
+	 * file is kept and replayed again from the start, so spilled events are
+	 * written at least once.
+	 *
+	 * @return true, if the spilled events were written
+	 */
+	private boolean replay() {
+		Path path = null;
+		try {
+			path = spill.detach();
+			if(null == path) {
+				return true;
+			}
+			ObjectReader eventReader = objectMapper.readerFor(ComplianceEvent.class);
+			List<ComplianceEvent> events = new ArrayList<>(batchSize);
+			try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				String line;
+				while(null != (line = reader.readLine())) {
+					if(!line.isEmpty()) {
+						events.add(eventReader.readValue(line));
+					}
+					if(events.size() == batchSize) {
+						sink.write(events);
+						written.increment(events.size());
+						events.clear();
+					}
+				}
+			}
+			if(!events.isEmpty()) {
+				sink.write(events);
+				written.increment(events.size());
+			}
+			spill.replayed(path);
+			return true;
+		}
+		catch(IOException | RuntimeException e) {
+			logger.error("Could not replay the compliance events spilled to {}", path, e);
+			return false;
+		}
+	}
+
+
+	/**
+	 * Gets the age in seconds of the oldest event not yet written.
+	 *
+	 * @return the lag
+	 */
+	double lagSeconds() {
+		long oldest = oldestPending;
+		return 0 == oldest ? 0.0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+	}
+
+
+	/**
+	 * Registers an items.compliance.events counter.
+	 *
+	 * @param result the result tag
+	 * @return the counter
+	 */
+	private Counter counter(String result) {
+		return Counter.builder("items.compliance.events").tag("result", result)
+				.description("The compliance events by what became of them").register(meterRegistry);
+	}
+
+
+	/**
+	 * What a call records in the buffer; the event is built by the publisher thread.
+	 */
+	private static final class ComplianceRecord {
+
+		/** The action. */
+		final ComplianceAction action;
+
+		/** The source. */
+		final String source;
+
+		/** The resource id. */
+		final Long resourceId;
+
+		/** The outcome. */
+		final ComplianceOutcome outcome;
+
+		/** The time in epoch millis. */
+		final long timestamp;
+
+		/** The trace id. */
+		final String traceId;
+
+		/**
+		 * Instantiates a new compliance record.
+		 *
+		 * @param action the action
+		 * @param source the source
+		 * @param resourceId the resource id
+		 * @param outcome the outcome
+		 * @param timestamp the timestamp
+		 * @param traceId the trace id
+		 */
+		ComplianceRecord(ComplianceAction action, String source, Long resourceId, ComplianceOutcome outcome,
+				long timestamp, String traceId) {
+			this.action = action;
+			this.source = source;
+			this.resourceId = resourceId;
+			this.outcome = outcome;
+			this.timestamp = timestamp;
+			this.traceId = traceId;
+		}
+
+		/**
+		 * Builds the event.
+		 *
+		 * @return the compliance event
+		 */
+		ComplianceEvent toEvent() {
+			ComplianceEvent event = new ComplianceEvent();
+			event.setAction(action);
+			event.setResource(null == resourceId ? "items" : "items/" + resourceId);
+			event.setEventSource(source);
+			event.setTimestamp(Instant.ofEpochMilli(timestamp));
+			event.setOutcome(outcome);
+			event.setTraceId(traceId);
+			return event;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceEvent;
+
+/**
+ * The Interface ComplianceSink.  Where the compliance publisher writes its batches;
+ * the {@link FileComplianceSink} is used unless the application provides another bean.
+ * Only called from the publisher thread.
+ */
+public interface ComplianceSink {
+	
+	/**
+	 * Writes a batch of events.
+	 *
+	 * @param events the events, oldest first
+	 * @throws IOException Signals that the batch could not be written.
+	 */
+	public abstract void write(List<ComplianceEvent> events) throws IOException;
+
+}
@@ -0,0 +1,129 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceEvent;
+
+/**
+ * The spill file of the compliance publisher.  Events that do not fit in the
+ * buffer, or whose batch could not be written, are appended as newline delimited
+ * json; once the buffer has drained the publisher detaches the file and replays it.
+ */
+final class ComplianceSpill {
+
+	/** The file events are appended to. */
+	private final Path path;
+
+	/** The file being replayed, kept until the replay succeeds. */
+	private final Path replayPath;
+
+	/** The event writer. */
+	private final ObjectWriter eventWriter;
+
+	/** The writer, opened by the first spilled event. */
+	private Writer writer;
+
+	/** Whether there are spilled events that have not been replayed. */
+	private volatile boolean pending;
+
+
+	/**
+	 * Instantiates a new compliance spill.  Events left by a previous run are replayed.
+	 *
+	 * @param path the path
+	 * @param eventWriter the event writer
+	 */
+	ComplianceSpill(Path path, ObjectWriter eventWriter) {
+		this.path = path;
+		this.replayPath = Paths.get(path.toString() + ".replay");
+		this.eventWriter = eventWriter;
+		this.pending = Files.exists(path) || Files.exists(replayPath);
+	}
+
+
+	/**
+	 * Appends events.
+	 *
+	 * @param events the events
+	 * @throws IOException Signals that the file could not be written.
+	 */
+	synchronized void append(List<ComplianceEvent> events) throws IOException {
+		if(null == writer) {
+			writer = FileComplianceSink.open(path);
+		}
+		StringBuilder lines = new StringBuilder(events.size() * 160);
+		for (ComplianceEvent event : events) {
+			lines.append(eventWriter.writeValueAsString(event)).append('\n');
+		}
+		writer.write(lines.toString());
+		writer.flush();
+		pending = true;
+	}
+
+
+	/**
+	 * Checks for spilled events that have not been replayed.
+	 *
+	 * @return true, if there are
+	 */
+	boolean isPending() {
+		return pending;
+	}
+
+
+	/**
+	 * Detaches the spilled events for replay.  A replay file left by a failed
+	 * replay is returned first; otherwise the spill file is closed and renamed, so
+	 * events spilled during the replay start a new file.
+	 *
+	 * @return the file to replay, null if there is none
+	 * @throws IOException Signals that the file could not be renamed.
+	 */
+	synchronized Path detach() throws IOException {
+		if(Files.exists(replayPath)) {
+			return replayPath;
+		}
+		if(null != writer) {
+			writer.close();
+			writer = null;
+		}
+		if(!Files.exists(path)) {
+			pending = false;
+			return null;
+		}
+		Files.move(path, replayPath, StandardCopyOption.REPLACE_EXISTING);
+		return replayPath;
+	}
+
+
+	/**
+	 * Deletes a replayed file.
+	 *
+	 * @param replayed the replayed file
+	 * @throws IOException Signals that the file could not be deleted.
+	 */
+	synchronized void replayed(Path replayed) throws IOException {
+		Files.deleteIfExists(replayed);
+		pending = Files.exists(path);
+	}
+
+
+	/**
+	 * Closes the spill file; events that were not replayed stay on disk for the next run.
+	 *
+	 * @throws IOException Signals that the file could not be closed.
+	 */
+	synchronized void close() throws IOException {
+		if(null != writer) {
+			writer.close();
+			writer = null;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceEvent;
+
+import io.quarkus.arc.DefaultBean;
+
+/**
+ * Appends compliance events to a local file as newline delimited json.  Each
+ * batch is flushed to the file before the next one is written; a batch written
+ * after the file was closed reopens it.
+ */
+@DefaultBean
+@ApplicationScoped
+public class FileComplianceSink implements ComplianceSink {
+
+	/** The file the events are appended to. */
+	@ConfigProperty(name = "items.compliance.file", defaultValue = "compliance-events.ndjson")
+	String file;
+
+	/** The object mapper. */
+	@Inject
+	ObjectMapper objectMapper;
+
+	/** The writer, opened by the first batch. */
+	private Writer writer;
+
+
+	/**
+	 * Writes a batch of events.
+	 *
+	 * @param events the events
+	 * @throws IOException Signals that the file could not be written.
+	 */
+	@Override
+	public synchronized void write(List<ComplianceEvent> events) throws IOException {
+		if(null == writer) {
+			writer = open(Paths.get(file));
+		}
+		ObjectWriter eventWriter = objectMapper.writerFor(ComplianceEvent.class);
+		StringBuilder lines = new StringBuilder(events.size() * 160);
+		for (ComplianceEvent event : events) {
+			lines.append(eventWriter.writeValueAsString(event)).append('\n');
+		}
+		writer.write(lines.toString());
+		writer.flush();
+	}
+
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException Signals that the file could not be closed.
+	 */
+	@PreDestroy
+	synchronized void close() throws IOException {
+		if(null != writer) {
+			writer.close();
+			writer = null;
+		}
+	}
+
+
+	/**
+	 * Opens a file for appending, creating it and its directory when missing.
+	 *
+	 * @param path the path
+	 * @return the writer
+	 * @throws IOException Signals that the file could not be opened.
+	 */
+	static Writer open(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if(null != parent) {
+			Files.createDirectories(parent);
+		}
+		return Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+}
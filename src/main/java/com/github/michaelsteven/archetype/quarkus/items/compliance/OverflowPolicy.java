@@ -0,0 +1,12 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+/**
+ * The Enum OverflowPolicy.  What a call does with its compliance event when the
+ * buffer is full: wait for the publisher to make room, drop the event and count
+ * it, or append it to the spill file to be published once the buffer has drained.
+ */
+public enum OverflowPolicy {
+	block,
+	drop,
+	spill;
+}
@@ -0,0 +1,124 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.  Each slot
+ * carries a sequence number telling whether it is free for the producer of a
+ * position or filled for the consumer, so a producer claims a position with one
+ * compare-and-set and neither side ever takes a lock.  The capacity is rounded
+ * up to a power of two.
+ *
+ * @param <E> the element type
+ */
+public final class RingBuffer<E> {
+
+	/** The elements. */
+	private final AtomicReferenceArray<E> elements;
+
+	/** The sequence of each slot. */
+	private final AtomicLongArray sequences;
+
+	/** The mask mapping a position to its slot. */
+	private final int mask;
+
+	/** The next position to be claimed by a producer. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The next position to be read by the consumer. */
+	private final AtomicLong head = new AtomicLong();
+
+
+	/**
+	 * Instantiates a new ring buffer.
+	 *
+	 * @param capacity the minimum capacity
+	 */
+	public RingBuffer(int capacity) {
+		if(capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity) {
+			size <<= 1;
+		}
+		elements = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+
+	/**
+	 * Adds an element unless the buffer is full.
+	 *
+	 * @param element the element
+	 * @return true, if added
+	 */
+	public boolean offer(E element) {
+		for (;;) {
+			long position = tail.get();
+			int slot = (int) position & mask;
+			long available = sequences.get(slot) - position;
+			if(available < 0) {
+				return false;
+			}
+			if(available == 0 && tail.compareAndSet(position, position + 1)) {
+				elements.lazySet(slot, element);
+				sequences.set(slot, position + 1);
+				return true;
+			}
+		}
+	}
+
+
+	/**
+	 * Moves up to the given number of elements to the list.  Only called by the consumer.
+	 *
+	 * @param target the target
+	 * @param max the maximum number of elements
+	 * @return the number of elements moved
+	 */
+	public int drainTo(List<? super E> target, int max) {
+		long position = head.get();
+		int count = 0;
+		while(count < max) {
+			int slot = (int) position & mask;
+			if(sequences.get(slot) != position + 1) {
+				break;
+			}
+			target.add(elements.get(slot));
+			elements.lazySet(slot, null);
+			sequences.set(slot, position + mask + 1);
+			position++;
+			count++;
+		}
+		head.lazySet(position);
+		return count;
+	}
+
+
+	/**
+	 * Gets the number of elements in the buffer, including those still being added.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return (int) Math.max(0, tail.get() - head.get());
+	}
+
+
+	/**
+	 * Gets the capacity.
+	 *
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+}
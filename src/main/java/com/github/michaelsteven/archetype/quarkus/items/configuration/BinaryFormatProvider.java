@@ -0,0 +1,165 @@
+package com.github.michaelsteven.archetype.quarkus.items.configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.validation.ValidationException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Reads and writes request and response bodies as CBOR or Smile, the compact binary
+ * encodings of the json data model, for clients that ask for them with Accept or
+ * Content-Type.  The mappers are configured as {@link JsonConfig} configures the json
+ * one, except that dates are written as epoch milliseconds rather than as ISO strings.
+ */
+@Provider
+@Consumes({ BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+@Produces({ BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+public class BinaryFormatProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+	/** The media type of CBOR, RFC 8949. */
+	public static final String APPLICATION_CBOR = "application/cbor";
+
+	/** The media type of Jackson's Smile. */
+	public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+	/** The CBOR mapper. */
+	private static final ObjectMapper CBOR_MAPPER = mapper(new CBORFactory());
+
+	/** The Smile mapper. */
+	private static final ObjectMapper SMILE_MAPPER = mapper(new SmileFactory());
+
+
+	/**
+	 * Checks if readable.
+	 *
+	 * @param type the type
+	 * @param genericType the generic type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @return true, if readable
+	 */
+	@Override
+	public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return null != mapperFor(mediaType) && !InputStream.class.isAssignableFrom(type);
+	}
+
+
+	/**
+	 * Reads a body.
+	 *
+	 * @param type the type
+	 * @param genericType the generic type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @param httpHeaders the http headers
+	 * @param entityStream the entity stream
+	 * @return the object
+	 * @throws IOException Signals that the body could not be read.
+	 */
+	@Override
+	public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+		ObjectMapper mapper = mapperFor(mediaType);
+		try {
+			return mapper.readValue(entityStream, mapper.constructType(genericType));
+		}
+		catch(JsonProcessingException e) {
+			throw new ValidationException("Malformed " + mediaType.getSubtype() + " body: " + e.getOriginalMessage());
+		}
+	}
+
+
+	/**
+	 * Checks if writeable.
+	 *
+	 * @param type the type
+	 * @param genericType the generic type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @return true, if writeable
+	 */
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return null != mapperFor(mediaType);
+	}
+
+
+	/**
+	 * Writes a body.  The runtime type of the entity decides how it is written, as it
+	 * does for json.
+	 *
+	 * @param t the entity
+	 * @param type the type
+	 * @param genericType the generic type
+	 * @param annotations the annotations
+	 * @param mediaType the media type
+	 * @param httpHeaders the http headers
+	 * @param entityStream the entity stream
+	 * @throws IOException Signals that the body could not be written.
+	 */
+	@Override
+	public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+		mapperFor(mediaType).writeValue(entityStream, t);
+	}
+
+
+	/**
+	 * Gets the mapper of a media type.
+	 *
+	 * @param mediaType the media type, may be null
+	 * @return the mapper, null if the media type is neither CBOR nor Smile
+	 */
+	private static ObjectMapper mapperFor(MediaType mediaType) {
+		if(null == mediaType || !"application".equalsIgnoreCase(mediaType.getType())) {
+			return null;
+		}
+		if("cbor".equalsIgnoreCase(mediaType.getSubtype())) {
+			return CBOR_MAPPER;
+		}
+		if("x-jackson-smile".equalsIgnoreCase(mediaType.getSubtype())) {
+			return SMILE_MAPPER;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Creates a mapper over a binary factory.  Quarkus' json mapper ignores unknown
+	 * properties, so these do too.
+	 *
+	 * @param factory the factory
+	 * @return the object mapper
+	 */
+	private static ObjectMapper mapper(JsonFactory factory) {
+		factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		ObjectMapper mapper = new ObjectMapper(factory);
+		new JsonConfig().customize(mapper);
+		mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		mapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		mapper.disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+		mapper.disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
+		return mapper;
+	}
+}
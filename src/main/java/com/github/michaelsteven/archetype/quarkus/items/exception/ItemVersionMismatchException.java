@@ -0,0 +1,35 @@
+package com.github.michaelsteven.archetype.quarkus.items.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when an item is not at the version a conditional update expected.
+ */
+@Getter
+public class ItemVersionMismatchException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The id of the item. */
+	private final Long id;
+
+	/** The version the update expected. */
+	private final long expectedVersion;
+
+	/** The version the item is at. */
+	private final Long currentVersion;
+
+	/**
+	 * Instantiates a new item version mismatch exception.
+	 *
+	 * @param id the id
+	 * @param expectedVersion the expected version
+	 * @param currentVersion the current version
+	 */
+	public ItemVersionMismatchException(Long id, long expectedVersion, Long currentVersion) {
+		super("Expected version " + expectedVersion + " of item " + id + " but it is at version " + currentVersion);
+		this.id = id;
+		this.expectedVersion = expectedVersion;
+		this.currentVersion = currentVersion;
+	}
+}
@@ -0,0 +1,33 @@
+package com.github.michaelsteven.archetype.quarkus.items.exception;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ApiError;
+
+/**
+ * Maps a failed version precondition to 412, with the entity tag of the current
+ * version so the client can fetch the item and retry.
+ */
+@Provider
+public class ItemVersionMismatchExceptionMapper implements ExceptionMapper<ItemVersionMismatchException> {
+
+	/**
+	 * To response.
+	 *
+	 * @param exception the exception
+	 * @return the response
+	 */
+	@Override
+	public Response toResponse(ItemVersionMismatchException exception) {
+		ApiError apiError = new ApiError(Status.PRECONDITION_FAILED, "The item has been modified", exception.getMessage());
+		Response.ResponseBuilder builder = Response.status(apiError.getStatus()).entity(apiError);
+		if(null != exception.getCurrentVersion()) {
+			builder.tag(new EntityTag(String.valueOf(exception.getCurrentVersion())));
+		}
+		return builder.build();
+	}
+}
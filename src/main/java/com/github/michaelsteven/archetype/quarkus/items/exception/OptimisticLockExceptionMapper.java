@@ -0,0 +1,29 @@
+package com.github.michaelsteven.archetype.quarkus.items.exception;
+
+import javax.persistence.OptimisticLockException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ApiError;
+
+/**
+ * Maps an update that lost the race against a concurrent one to 409.
+ */
+@Provider
+public class OptimisticLockExceptionMapper implements ExceptionMapper<OptimisticLockException> {
+
+	/**
+	 * To response.
+	 *
+	 * @param exception the exception
+	 * @return the response
+	 */
+	@Override
+	public Response toResponse(OptimisticLockException exception) {
+		String errorMessage = "The item was modified concurrently, fetch it and retry";
+		ApiError apiError = new ApiError(Status.CONFLICT, errorMessage, errorMessage);
+		return Response.status(apiError.getStatus()).entity(apiError).build();
+	}
+}
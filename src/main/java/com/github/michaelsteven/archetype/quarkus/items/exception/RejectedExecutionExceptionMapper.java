@@ -0,0 +1,35 @@
+package com.github.michaelsteven.archetype.quarkus.items.exception;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ApiError;
+
+/**
+ * The Class RejectedExecutionExceptionMapper.  A full offload queue means the
+ * database is saturated, which is reported as a retryable 503.
+ */
+@Provider
+public class RejectedExecutionExceptionMapper implements ExceptionMapper<RejectedExecutionException> {
+
+	/**
+	 * To response.
+	 *
+	 * @param exception the exception
+	 * @return the response
+	 */
+	@Override
+	public Response toResponse(RejectedExecutionException exception) {
+		String errorMessage = "Too many requests are waiting for the database, retry later";
+        List<String> errors = new ArrayList<>();
+        errors.add(errorMessage);
+        ApiError apiError = new ApiError(Status.SERVICE_UNAVAILABLE, errorMessage, errors);
+        return Response.status(apiError.getStatus()).header("Retry-After", 1).entity(apiError).build();
+	}
+}
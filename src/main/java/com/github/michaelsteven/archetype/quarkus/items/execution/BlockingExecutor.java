@@ -0,0 +1,202 @@
+package com.github.michaelsteven.archetype.quarkus.items.execution;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.threads.EnhancedQueueExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.runtime.ExecutorRecorder;
+import io.quarkus.runtime.Startup;
+import io.vertx.core.Context;
+
+/**
+ * Runs the blocking work of the item endpoints.  In worker mode the work runs on the
+ * calling http worker thread, as before.  In offload mode it is handed to a bounded pool
+ * sized to the JDBC connection pool, so the http workers are released while requests
+ * wait on the database and a burst queues in front of the connections instead of
+ * occupying every worker; cache hits and other endpoints keep being served.
+ * <p>
+ * The threads held by item work are published as items.execution.active, tagged with
+ * the mode; the size of the http worker pool as executor.pool.size with name=worker and
+ * the offload pool as the executor.* metrics with name=items.blocking.
+ */
+@Startup
+@ApplicationScoped
+public class BlockingExecutor {
+	
+	public static final Logger logger = LoggerFactory.getLogger(BlockingExecutor.class);
+	
+	/** The execution mode. */
+	@ConfigProperty(name = "items.execution.mode", defaultValue = "worker")
+	ExecutionMode mode;
+	
+	/** The number of threads of the offload pool. */
+	@ConfigProperty(name = "items.execution.threads", defaultValue = "20")
+	int threads;
+	
+	/** The number of tasks that can wait for an offload thread before requests are rejected. */
+	@ConfigProperty(name = "items.execution.queue-size", defaultValue = "1000")
+	int queueSize;
+	
+	/** The maximum size of the JDBC connection pool. */
+	@ConfigProperty(name = "quarkus.datasource.jdbc.max-size", defaultValue = "20")
+	int connections;
+	
+	/** The meter registry. */
+	@Inject
+	MeterRegistry meterRegistry;
+	
+	/** The number of threads running blocking work. */
+	private final AtomicInteger active = new AtomicInteger();
+	
+	/** The offload pool, null in worker mode. */
+	private ThreadPoolExecutor executor;
+	
+	
+	/**
+	 * Creates the offload pool and publishes the pool metrics.
+	 */
+	@PostConstruct
+	void init() {
+		Gauge.builder("items.execution.active", active, AtomicInteger::get).tag("mode", mode.name())
+			.description("The number of threads running blocking item work").register(meterRegistry);
+		// the worker pool only keeps active and queued counts when jboss-threads statistics are enabled
+		Executor workers = ExecutorRecorder.getCurrent();
+		if(workers instanceof EnhancedQueueExecutor) {
+			Gauge.builder("executor.pool.size", (EnhancedQueueExecutor) workers, EnhancedQueueExecutor::getPoolSize).tag("name", "worker")
+				.description("The current number of threads in the pool").register(meterRegistry);
+		}
+		if(ExecutionMode.offload != mode) {
+			return;
+		}
+		if(threads > connections) {
+			logger.warn("items.execution.threads={} exceeds the {} JDBC connections, the extra threads can only wait for a connection",
+					threads, connections);
+		}
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueSize), new BlockingThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		ExecutorServiceMetrics.monitor(meterRegistry, executor, "items.blocking", Tags.empty());
+	}
+	
+	
+	/**
+	 * Shuts the offload pool down.
+	 */
+	@PreDestroy
+	void shutdown() {
+		if(null != executor) {
+			executor.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * Gets the execution mode.
+	 *
+	 * @return the mode
+	 */
+	public ExecutionMode getMode() {
+		return mode;
+	}
+	
+	
+	/**
+	 * Runs blocking work.  In worker mode it runs on the calling thread, which must not
+	 * be an event loop thread.  In offload mode it runs on the offload pool in a request
+	 * context of its own and with the logging context of the caller; when the queue is
+	 * full a {@link java.util.concurrent.RejectedExecutionException} is thrown.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result
+	 */
+	public <T> CompletionStage<T> execute(Supplier<T> work) {
+		if(null == executor) {
+			if(Context.isOnEventLoopThread()) {
+				throw new IllegalStateException("Blocking item operations must not run on an event loop thread");
+			}
+			return CompletableFuture.completedFuture(run(work));
+		}
+		Map<String, String> mdc = MDC.getCopyOfContextMap();
+		return CompletableFuture.supplyAsync(() -> {
+			ManagedContext requestContext = Arc.container().requestContext();
+			requestContext.activate();
+			if(null != mdc) {
+				MDC.setContextMap(mdc);
+			}
+			try {
+				return run(work);
+			}
+			finally {
+				MDC.clear();
+				requestContext.terminate();
+			}
+		}, executor);
+	}
+	
+	
+	/**
+	 * Runs work, counting it as active while it runs.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result
+	 */
+	private <T> T run(Supplier<T> work) {
+		active.incrementAndGet();
+		try {
+			return work.get();
+		}
+		finally {
+			active.decrementAndGet();
+		}
+	}
+	
+	
+	/**
+	 * Creates the daemon threads of the offload pool.
+	 */
+	private static class BlockingThreadFactory implements ThreadFactory {
+	
+		/** The thread count. */
+		private final AtomicInteger count = new AtomicInteger();
+	
+	
+		/**
+		 * New thread.
+		 *
+		 * @param runnable the runnable
+		 * @return the thread
+		 */
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "items-blocking-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
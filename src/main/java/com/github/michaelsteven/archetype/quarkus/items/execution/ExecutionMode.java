@@ -0,0 +1,11 @@
+package com.github.michaelsteven.archetype.quarkus.items.execution;
+
+/**
+ * The Enum ExecutionMode.  Where the blocking item endpoints run: on the http
+ * worker thread that received the request, or offloaded to the bounded pool of
+ * the {@link BlockingExecutor}.
+ */
+public enum ExecutionMode {
+	worker,
+	offload;
+}
@@ -0,0 +1,214 @@
+package com.github.michaelsteven.archetype.quarkus.items.execution;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical reads that are in flight at the same time, so that one query
+ * serves every caller asking for the same key meanwhile rather than each of them
+ * querying the database, as happens after a deploy or a cache flush.  The first
+ * caller of a key loads it on its own thread; those that arrive before it is done
+ * wait for its result, or its exception, and share it.  Results must therefore not
+ * be changed by the callers.
+ * <p>
+ * A caller waits at most the timeout of the name, items.coalesce.&lt;name&gt;.timeout
+ * or else items.coalesce.timeout, and then loads the key itself, so a stuck query
+ * does not hold up every request behind it.  Calls are counted as
+ * items.coalesce.requests tagged by name and result (loaded, joined or timed-out),
+ * and the share of them served by another caller's query published as
+ * items.coalesce.ratio.
+ */
+@ApplicationScoped
+public class RequestCoalescer {
+
+	/** Whether identical reads are coalesced. */
+	@ConfigProperty(name = "items.coalesce.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** How long a caller waits for the read of another, unless set for the name. */
+	@ConfigProperty(name = "items.coalesce.timeout", defaultValue = "PT2S")
+	Duration timeout;
+
+	@Inject
+	Config config;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** The reads in flight and their metrics, by name. */
+	private final Map<String, Flights> flights = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Checks the timeout.
+	 */
+	@PostConstruct
+	void init() {
+		if(timeout.isNegative() || timeout.isZero()) {
+			throw new IllegalArgumentException("items.coalesce.timeout must be positive, not " + timeout);
+		}
+	}
+
+
+	/**
+	 * Reads a key, sharing the read with the callers of the same name and key that
+	 * are in flight.
+	 *
+	 * @param <V> the result type
+	 * @param name the name of the read, for the timeout and the metrics
+	 * @param key the key, with value equality
+	 * @param loader the read
+	 * @return the result
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V coalesce(String name, Object key, Supplier<V> loader) {
+		if(!enabled) {
+			return loader.get();
+		}
+		return (V) flights.computeIfAbsent(name, Flights::new).coalesce(key, (Supplier<Object>) loader);
+	}
+
+
+	/**
+	 * The reads in flight of a name.
+	 */
+	private class Flights {
+
+		/** The reads in flight by key. */
+		private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+		/** How long a caller waits for the read of another. */
+		private final long timeoutMillis;
+
+		/** The calls that loaded. */
+		private final Counter loaded;
+
+		/** The calls served by the read of another. */
+		private final Counter joined;
+
+		/** The calls that gave up waiting and loaded. */
+		private final Counter timedOut;
+
+
+		/**
+		 * Instantiates the flights of a name and registers their metrics.
+		 *
+		 * @param name the name
+		 */
+		Flights(String name) {
+			Duration nameTimeout = config.getOptionalValue("items.coalesce." + name + ".timeout", Duration.class).orElse(timeout);
+			timeoutMillis = Math.max(1, nameTimeout.toMillis());
+			loaded = counter(name, "loaded");
+			joined = counter(name, "joined");
+			timedOut = counter(name, "timed-out");
+			Gauge.builder("items.coalesce.ratio", this, Flights::ratio).tag("name", name)
+				.description("The share of the reads served by the query of another request").register(meterRegistry);
+			Gauge.builder("items.coalesce.in-flight", inFlight, Map::size).tag("name", name)
+				.description("The keys being read").register(meterRegistry);
+		}
+
+
+		/**
+		 * Reads a key, or waits for the read in flight.
+		 *
+		 * @param key the key
+		 * @param loader the read
+		 * @return the result
+		 */
+		Object coalesce(Object key, Supplier<Object> loader) {
+			CompletableFuture<Object> flight = new CompletableFuture<>();
+			CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+			if(null == leader) {
+				loaded.increment();
+				try {
+					Object result = loader.get();
+					flight.complete(result);
+					return result;
+				}
+				catch(RuntimeException | Error e) {
+					flight.completeExceptionally(e);
+					throw e;
+				}
+				finally {
+					inFlight.remove(key, flight);
+				}
+			}
+			try {
+				Object result = leader.get(timeoutMillis, TimeUnit.MILLISECONDS);
+				joined.increment();
+				return result;
+			}
+			catch(TimeoutException e) {
+				timedOut.increment();
+				return loader.get();
+			}
+			catch(ExecutionException e) {
+				joined.increment();
+				throw rethrow(e.getCause());
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted waiting for the read of " + key, e);
+			}
+		}
+
+
+		/**
+		 * Gets the share of the calls served by the read of another.
+		 *
+		 * @return the ratio, 0 before any call
+		 */
+		double ratio() {
+			double joins = joined.count();
+			double total = joins + loaded.count() + timedOut.count();
+			return 0 == total ? 0 : joins / total;
+		}
+
+
+		/**
+		 * Registers an items.coalesce.requests counter.
+		 *
+		 * @param name the name
+		 * @param result the result tag
+		 * @return the counter
+		 */
+		private Counter counter(String name, String result) {
+			return Counter.builder("items.coalesce.requests").tag("name", name).tag("result", result)
+					.description("The coalesced reads by outcome").register(meterRegistry);
+		}
+	}
+
+
+	/**
+	 * Gets the exception to throw for the failure of the read of another caller.
+	 *
+	 * @param cause the cause
+	 * @return the exception
+	 */
+	private static RuntimeException rethrow(Throwable cause) {
+		if(cause instanceof Error) {
+			throw (Error) cause;
+		}
+		if(cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return new IllegalStateException(cause);
+	}
+}
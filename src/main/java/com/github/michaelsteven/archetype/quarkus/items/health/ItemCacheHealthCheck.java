@@ -0,0 +1,42 @@
+package com.github.michaelsteven.archetype.quarkus.items.health;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Liveness;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCache;
+
+/**
+ * Reports the item cache counters alongside the other health checks.
+ */
+@Liveness
+@ApplicationScoped
+public class ItemCacheHealthCheck implements HealthCheck {
+
+	/** The item cache. */
+	@Inject
+	ItemCache itemCache;
+
+
+	/**
+	 * Call.
+	 *
+	 * @return the health check response
+	 */
+	@Override
+	public HealthCheckResponse call() {
+		CacheStats stats = itemCache.getStats();
+		return HealthCheckResponse.named("item-cache")
+				.up()
+				.withData("enabled", itemCache.isEnabled())
+				.withData("size", itemCache.getEstimatedSize())
+				.withData("hitCount", stats.hitCount())
+				.withData("missCount", stats.missCount())
+				.withData("evictionCount", stats.evictionCount())
+				.build();
+	}
+}
@@ -0,0 +1,192 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+import com.github.michaelsteven.archetype.quarkus.items.compliance.CompliancePublisher;
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.Compliance;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceOutcome;
+
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Compliance interceptor.  Audits every call of a method annotated with @Compliance
+ * through the {@link CompliancePublisher}, after the call has completed so the outcome
+ * is known; a {@link Uni} is audited when it emits its item or failure.  A call about
+ * several items is audited with one event per item.
+ * Priority 20 runs it inside the trace log interceptor.
+ */
+@Priority(20)
+@Compliance
+@Interceptor
+public class ComplianceInterceptor {
+
+	/** The compliance publisher. */
+	@Inject
+	CompliancePublisher compliancePublisher;
+
+	/** The action and source of each intercepted method. */
+	private final Map<Method, MethodCompliance> methodCompliances = new ConcurrentHashMap<>();
+
+	/**
+	 * Audit method.
+	 *
+	 * @param ctx the ctx
+	 * @return the object
+	 * @throws Exception the exception
+	 */
+	@AroundInvoke
+	public Object auditMethod(InvocationContext ctx) throws Exception {
+		MethodCompliance compliance = methodCompliances.computeIfAbsent(ctx.getMethod(), MethodCompliance::new);
+		Object result;
+		try {
+			result = ctx.proceed();
+		}
+		catch(Exception e) {
+			publish(compliance, ctx.getParameters(), null, e);
+			throw e;
+		}
+		if(result instanceof Uni) {
+			return ((Uni<?>) result).onItemOrFailure().invoke((item, failure) ->
+				publish(compliance, ctx.getParameters(), item, failure));
+		}
+		publish(compliance, ctx.getParameters(), result, null);
+		return result;
+	}
+
+
+	/**
+	 * Publishes the events of a completed call.  A bulk call answering with confirmations
+	 * gets one event per confirmation, failed if the confirmation is; any other call gets
+	 * one event per item id of its first parameter or, failing those, of the item it
+	 * created, and a single event without an id if it is not about items by id.
+	 *
+	 * @param compliance the method compliance
+	 * @param parameters the parameters
+	 * @param result the result, null if the call failed
+	 * @param failure the failure, null if the call succeeded
+	 */
+	private void publish(MethodCompliance compliance, Object[] parameters, Object result, Throwable failure) {
+		if(null == failure && isConfirmations(result)) {
+			for(Object element : (List<?>) result) {
+				ConfirmationDto confirmationDto = (ConfirmationDto) element;
+				compliancePublisher.publish(compliance.action, compliance.source, confirmationDto.getId(),
+						ItemStatus.FAILED == confirmationDto.getStatus() ? ComplianceOutcome.failure : ComplianceOutcome.success);
+			}
+			return;
+		}
+		ComplianceOutcome outcome = null == failure ? ComplianceOutcome.success : ComplianceOutcome.failure;
+		List<Long> resourceIds = resourceIds(parameters);
+		if(resourceIds.isEmpty() && result instanceof ConfirmationDto && null != ((ConfirmationDto) result).getId()) {
+			resourceIds.add(((ConfirmationDto) result).getId());
+		}
+		if(resourceIds.isEmpty()) {
+			compliancePublisher.publish(compliance.action, compliance.source, null, outcome);
+			return;
+		}
+		for(Long resourceId : resourceIds) {
+			compliancePublisher.publish(compliance.action, compliance.source, resourceId, outcome);
+		}
+	}
+
+
+	/**
+	 * Gets the ids of the items a call is about from its first parameter, an id, an item
+	 * or a collection of either.  The ids of entities are read after the call, so the
+	 * ids of inserted entities are included.
+	 *
+	 * @param parameters the parameters
+	 * @return the ids, empty if the call is not about items by id
+	 */
+	private static List<Long> resourceIds(Object[] parameters) {
+		List<Long> resourceIds = new ArrayList<>();
+		if(null == parameters || 0 == parameters.length) {
+			return resourceIds;
+		}
+		if(parameters[0] instanceof Collection) {
+			for(Object element : (Collection<?>) parameters[0]) {
+				addResourceId(resourceIds, element);
+			}
+		}
+		else {
+			addResourceId(resourceIds, parameters[0]);
+		}
+		return resourceIds;
+	}
+
+
+	/**
+	 * Adds the id of an item, if the value is about one and it has an id.
+	 *
+	 * @param resourceIds the resource ids
+	 * @param value an id, an item dto or an item entity
+	 */
+	private static void addResourceId(List<Long> resourceIds, Object value) {
+		Long resourceId = null;
+		if(value instanceof Number) {
+			resourceId = ((Number) value).longValue();
+		}
+		else if(value instanceof ItemDto) {
+			resourceId = ((ItemDto) value).getId();
+		}
+		else if(value instanceof ItemEntity) {
+			resourceId = ((ItemEntity) value).getId();
+		}
+		if(null != resourceId) {
+			resourceIds.add(resourceId);
+		}
+	}
+
+
+	/**
+	 * Checks if the result of a call is a list of confirmations, the answer of a bulk call.
+	 *
+	 * @param result the result
+	 * @return true, if the result is a non empty list of confirmations
+	 */
+	private static boolean isConfirmations(Object result) {
+		return result instanceof List && !((List<?>) result).isEmpty() && ((List<?>) result).get(0) instanceof ConfirmationDto;
+	}
+
+
+	/**
+	 * The action and source of an intercepted method.
+	 */
+	static final class MethodCompliance {
+
+		/** The action. */
+		final ComplianceAction action;
+
+		/** The source, the simple class name and method name. */
+		final String source;
+
+		/**
+		 * Instantiates a new method compliance from the annotation on the method or its class.
+		 *
+		 * @param method the method
+		 */
+		MethodCompliance(Method method) {
+			Compliance compliance = method.getAnnotation(Compliance.class);
+			if(null == compliance) {
+				compliance = method.getDeclaringClass().getAnnotation(Compliance.class);
+			}
+			this.action = null == compliance ? ComplianceAction.read : compliance.action();
+			this.source = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+		}
+	}
+}
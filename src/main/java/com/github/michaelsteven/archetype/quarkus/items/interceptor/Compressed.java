@@ -0,0 +1,17 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.ws.rs.NameBinding;
+
+/**
+ * Binds {@link CompressionInterceptor} to the responses of a resource.
+ */
+@NameBinding
+@Target( {ElementType.TYPE, ElementType.METHOD } )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface Compressed {
+}
@@ -0,0 +1,248 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.CompressedResponseCache;
+
+/**
+ * Gzips the response bodies of the {@link Compressed} resources for clients that
+ * accept it.  Bodies are serialized into a buffer and sent as they are when shorter
+ * than items.compression.min-size, where compressing saves less than it costs;
+ * streamed bodies, such as the export, are compressed as they are written.  The
+ * compressed bodies of GET responses that carry an entity tag are kept in the
+ * {@link CompressedResponseCache}, so an unchanged item or page is neither
+ * serialized nor compressed again.
+ * <p>
+ * The resources write JSON, CBOR or Smile as the Accept header asks, so their
+ * responses vary on Accept as well as on Accept-Encoding, even when compression is
+ * off.  The gzipped representation is a different one, so its entity tag, and that of
+ * the 304 answering a client that accepts gzip, gets the {@link #TAG_SUFFIX}; the
+ * resources strip it again when they match preconditions.
+ */
+@Provider
+@Compressed
+public class CompressionInterceptor implements ContainerResponseFilter, WriterInterceptor {
+
+	/** The request property set when the body is to be compressed. */
+	private static final String ACCEPTED_PROPERTY = CompressionInterceptor.class.getName() + ".accepted";
+
+	/** The request property holding the cache key of the body. */
+	private static final String KEY_PROPERTY = CompressionInterceptor.class.getName() + ".key";
+
+	/** The gzip content coding. */
+	private static final String GZIP = "gzip";
+
+	/** The suffix of the entity tags of gzipped representations. */
+	public static final String TAG_SUFFIX = "-gzip";
+
+	/** Whether responses are compressed. */
+	@ConfigProperty(name = "items.compression.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The size, in bytes, from which a body is compressed. */
+	@ConfigProperty(name = "items.compression.min-size", defaultValue = "1024")
+	int minSize;
+
+	/** The deflate level, from 1 for the fastest to 9 for the smallest. */
+	@ConfigProperty(name = "items.compression.level", defaultValue = "6")
+	int level;
+
+	/** The compressed response cache. */
+	@Inject
+	CompressedResponseCache compressedResponseCache;
+
+
+	/**
+	 * Checks the deflate level.
+	 */
+	@PostConstruct
+	void init() {
+		if(level < 1 || level > 9) {
+			throw new IllegalArgumentException("items.compression.level must be from 1 to 9, not " + level);
+		}
+	}
+
+
+	/**
+	 * Adds the Vary header, decides whether the body will be compressed and under
+	 * which key it is cached, while the request and the response headers are both at
+	 * hand, and tags the gzipped representation.
+	 *
+	 * @param requestContext the request context
+	 * @param responseContext the response context
+	 */
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		boolean notModified = Status.NOT_MODIFIED.getStatusCode() == responseContext.getStatus();
+		if(!responseContext.hasEntity() && !notModified) {
+			return;
+		}
+		responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		if(!enabled || responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			return;
+		}
+		responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if(!acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+			return;
+		}
+		EntityTag tag = responseContext.getEntityTag();
+		if(null != tag) {
+			responseContext.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + TAG_SUFFIX, tag.isWeak()));
+		}
+		if(notModified) {
+			return;
+		}
+		requestContext.setProperty(ACCEPTED_PROPERTY, Boolean.TRUE);
+		if(HttpMethod.GET.equals(requestContext.getMethod()) && Status.OK.getStatusCode() == responseContext.getStatus() && null != tag) {
+			requestContext.setProperty(KEY_PROPERTY, requestContext.getUriInfo().getRequestUri() + " " + responseContext.getMediaType()
+					+ " " + (tag.isWeak() ? "W/" : "") + tag.getValue());
+		}
+	}
+
+
+	/**
+	 * Compresses the body.
+	 *
+	 * @param context the context
+	 * @throws IOException Signals that the body could not be written.
+	 * @throws WebApplicationException the web application exception
+	 */
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		if(null == context.getProperty(ACCEPTED_PROPERTY)) {
+			context.proceed();
+			return;
+		}
+		OutputStream original = context.getOutputStream();
+		MultivaluedMap<String, Object> headers = context.getHeaders();
+		if(context.getEntity() instanceof StreamingOutput) {
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+			GzipStream gzip = new GzipStream(original, level, true);
+			context.setOutputStream(gzip);
+			try {
+				context.proceed();
+			}
+			finally {
+				gzip.close();
+			}
+			return;
+		}
+		String key = (String) context.getProperty(KEY_PROPERTY);
+		byte[] cached = null == key ? null : compressedResponseCache.get(key);
+		if(null != cached) {
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+			original.write(cached);
+			return;
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		context.setOutputStream(buffer);
+		context.proceed();
+		context.setOutputStream(original);
+		if(buffer.size() < minSize) {
+			buffer.writeTo(original);
+			return;
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.size() / 4 + 64);
+		try (GzipStream gzip = new GzipStream(compressed, level, false)) {
+			buffer.writeTo(gzip);
+		}
+		byte[] body = compressed.toByteArray();
+		if(null != key) {
+			compressedResponseCache.put(key, body);
+		}
+		headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+		original.write(body);
+	}
+
+
+	/**
+	 * Checks whether an Accept-Encoding header allows gzip, by name or by *, with a
+	 * quality above zero.
+	 *
+	 * @param acceptEncoding the Accept-Encoding header, may be null
+	 * @return true, if gzip is accepted
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if(null == acceptEncoding) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			if(!GZIP.equalsIgnoreCase(name) && !"x-gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+				continue;
+			}
+			boolean accepted = true;
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if(parameter.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(parameter.substring(2)) > 0;
+					}
+					catch(NumberFormatException e) {
+						accepted = false;
+					}
+				}
+			}
+			if(accepted) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * A gzip stream at a given level whose close finishes the compressed data but
+	 * leaves the underlying stream open, for the container to close.
+	 */
+	private static final class GzipStream extends GZIPOutputStream {
+
+		/** Whether the stream is finished. */
+		private boolean closed;
+
+		/**
+		 * Instantiates a new gzip stream.
+		 *
+		 * @param out the underlying stream
+		 * @param level the deflate level
+		 * @param syncFlush whether a flush sends what was written so far
+		 * @throws IOException Signals that the header could not be written.
+		 */
+		GzipStream(OutputStream out, int level, boolean syncFlush) throws IOException {
+			super(out, 8192, syncFlush);
+			def.setLevel(level);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(!closed) {
+				closed = true;
+				finish();
+				def.end();
+				out.flush();
+			}
+		}
+	}
+}
@@ -1,20 +1,30 @@
 package com.github.michaelsteven.archetype.quarkus.items.interceptor;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.annotation.Priority;
+import javax.inject.Inject;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
 
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.event.Level;
 
 /**
  * Trace log interceptor.  Logs the entry and exit of methods for classess that are annotated with @TraceLog
  * Priority 10 is an arbitrary priority, change as needed. 
+ * 
+ * Tracing is guarded by the configured level and sampled per method, so a call that is not traced costs a
+ * map lookup.  Arguments and results are only rendered when the log event is written, and rendering stops
+ * at the configured maximum length.  The sample rate of a single method can be overridden with
+ * items.trace.sample-rate.[simple class name].[method name].
  *
  */
 @Priority(10)
@@ -22,19 +32,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Interceptor
 public class TraceLogInterceptor {
 
+	/** The prefix of the per method sample rate properties. */
+	private static final String SAMPLE_RATE_PROPERTY = "items.trace.sample-rate";
 	
-	/** The object mapper. */
-	private ObjectMapper objectMapper;
+	/** Whether tracing is enabled. */
+	@ConfigProperty(name = "items.trace.enabled", defaultValue = "true")
+	boolean enabled;
 	
-	/**
-	 * Constructor.
-	 *
-	 * @param objectMapper the object mapper
-	 */
-	public TraceLogInterceptor(ObjectMapper objectMapper) {
-		this.objectMapper = objectMapper;
-	}
+	/** The level the entry and exit are logged at. */
+	@ConfigProperty(name = "items.trace.level", defaultValue = "INFO")
+	Level level;
+	
+	/** The default fraction of calls that are traced. */
+	@ConfigProperty(name = SAMPLE_RATE_PROPERTY, defaultValue = "1.0")
+	double sampleRate;
+	
+	/** The maximum length of a rendered argument list or result. */
+	@ConfigProperty(name = "items.trace.max-length", defaultValue = "500")
+	int maxLength;
+	
+	@Inject
+	Config config;
 	
+	/** The logger and sample rate of each intercepted method. */
+	private final Map<Method, MethodTrace> methodTraces = new ConcurrentHashMap<>();
 	
 	/**
 	 * Trace method.
@@ -45,20 +66,26 @@ public class TraceLogInterceptor {
 	 */
 	@AroundInvoke
 	public Object traceMethod(InvocationContext ctx) throws Exception {
-		Logger logger = this.getLogger(ctx);
+		MethodTrace trace = methodTraces.computeIfAbsent(ctx.getMethod(), this::createMethodTrace);
+		Logger logger = trace.logger;
+		boolean traced = enabled && isEnabled(logger, level) && trace.sample();
 		
-		logger.info("Entered: {} () with arguments = {}" , 
-				ctx.getMethod().getName(),
-				Arrays.deepToString(ctx.getParameters()));
+		if(traced) {
+			log(logger, "Entered: {} () with arguments = {}", 
+					trace.methodName,
+					TraceRenderer.arguments(ctx.getParameters(), maxLength));
+		}
 	    try {
 	    	Object object = ctx.proceed();
-	    	logger.info("Exited: {} () with result = {}", 
-	    			ctx.getMethod().getName(), objectMapper.writeValueAsString(object)
-	    		);
+	    	if(traced) {
+	    		log(logger, "Exited: {} () with result = {}", 
+	    				trace.methodName, TraceRenderer.result(object, maxLength)
+	    			);
+	    	}
 	    	return object;
 	    } catch( Exception e) {
-	    	logger.error("Exception {} in {}()", Arrays.toString(ctx.getParameters()),
-	    			ctx.getMethod().getName()
+	    	logger.error("Exception {} in {}()", TraceRenderer.arguments(ctx.getParameters(), maxLength),
+	    			trace.methodName
 	    		);
 	    	throw e;
 	    }
@@ -66,12 +93,104 @@ public class TraceLogInterceptor {
 	
 	
 	/**
-	 * Gets the logger.
+	 * Creates the trace settings of a method.
 	 *
-	 * @param ctx the ctx
-	 * @return the logger
+	 * @param method the method
+	 * @return the method trace
+	 */
+	MethodTrace createMethodTrace(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		String property = SAMPLE_RATE_PROPERTY + "." + declaringClass.getSimpleName() + "." + method.getName();
+		double methodSampleRate = config.getOptionalValue(property, Double.class).orElse(sampleRate);
+		return new MethodTrace(LoggerFactory.getLogger(declaringClass), method.getName(), methodSampleRate);
+	}
+	
+	
+	/**
+	 * Logs at the configured level.
+	 *
+	 * @param logger the logger
+	 * @param format the format
+	 * @param methodName the method name
+	 * @param rendered the lazily rendered arguments or result
 	 */
-	Logger getLogger(InvocationContext ctx) {
-		return LoggerFactory.getLogger(ctx.getTarget().getClass());
+	private void log(Logger logger, String format, String methodName, Object rendered) {
+		switch(level) {
+			case ERROR:
+				logger.error(format, methodName, rendered);
+				break;
+			case WARN:
+				logger.warn(format, methodName, rendered);
+				break;
+			case INFO:
+				logger.info(format, methodName, rendered);
+				break;
+			case DEBUG:
+				logger.debug(format, methodName, rendered);
+				break;
+			default:
+				logger.trace(format, methodName, rendered);
+		}
+	}
+	
+	
+	/**
+	 * Checks if the logger is enabled for the level.
+	 *
+	 * @param logger the logger
+	 * @param level the level
+	 * @return true, if enabled
+	 */
+	private static boolean isEnabled(Logger logger, Level level) {
+		switch(level) {
+			case ERROR:
+				return logger.isErrorEnabled();
+			case WARN:
+				return logger.isWarnEnabled();
+			case INFO:
+				return logger.isInfoEnabled();
+			case DEBUG:
+				return logger.isDebugEnabled();
+			default:
+				return logger.isTraceEnabled();
+		}
+	}
+	
+	
+	/**
+	 * The logger, name and sample rate of an intercepted method.
+	 */
+	static final class MethodTrace {
+		
+		/** The logger of the declaring class. */
+		final Logger logger;
+		
+		/** The method name. */
+		final String methodName;
+		
+		/** The fraction of calls that are traced. */
+		final double sampleRate;
+		
+		/**
+		 * Instantiates a new method trace.
+		 *
+		 * @param logger the logger
+		 * @param methodName the method name
+		 * @param sampleRate the sample rate
+		 */
+		MethodTrace(Logger logger, String methodName, double sampleRate) {
+			this.logger = logger;
+			this.methodName = methodName;
+			this.sampleRate = sampleRate;
+		}
+		
+		/**
+		 * Decides whether the current call is traced.
+		 *
+		 * @return true, if sampled
+		 */
+		boolean sample() {
+			return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+		}
 	}
 }
@@ -0,0 +1,246 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.core.Response;
+
+import org.springframework.data.domain.Page;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
+
+/**
+ * Renders trace log arguments and results lazily.  The returned objects do no
+ * work until the logger calls toString, and stop rendering once the maximum
+ * length is reached instead of building the full text and truncating it.
+ */
+final class TraceRenderer {
+
+	/** The marker appended to truncated output. */
+	private static final String ELLIPSIS = "...";
+	
+	/**
+	 * Instantiates a new trace renderer.
+	 */
+	private TraceRenderer() {
+	}
+	
+	
+	/**
+	 * Renders the arguments of a call like Arrays.deepToString.
+	 *
+	 * @param parameters the parameters
+	 * @param maxLength the max length
+	 * @return the lazily rendered arguments
+	 */
+	static Object arguments(Object[] parameters, int maxLength) {
+		return lazy(parameters, maxLength);
+	}
+	
+	
+	/**
+	 * Renders a result.  Pages, collections and jax-rs responses are rendered
+	 * element by element, so only the elements that fit are converted to text.
+	 *
+	 * @param result the result
+	 * @param maxLength the max length
+	 * @return the lazily rendered result
+	 */
+	static Object result(Object result, int maxLength) {
+		return lazy(result, maxLength);
+	}
+	
+	
+	/**
+	 * Wraps a value in an object that renders it when toString is called.
+	 *
+	 * @param value the value
+	 * @param maxLength the max length
+	 * @return the lazily rendered value
+	 */
+	private static Object lazy(Object value, int maxLength) {
+		return new Object() {
+			@Override
+			public String toString() {
+				BoundedWriter writer = new BoundedWriter(maxLength);
+				try {
+					appendValue(writer, value);
+				}
+				catch(LimitReachedException e) {
+					return writer.toString() + ELLIPSIS;
+				}
+				return writer.toString();
+			}
+		};
+	}
+	
+	
+	/**
+	 * Appends a value.
+	 *
+	 * @param writer the writer
+	 * @param value the value
+	 */
+	private static void appendValue(BoundedWriter writer, Object value) {
+		if(value instanceof Object[]) {
+			appendAll(writer, Arrays.asList((Object[]) value));
+		}
+		else if(value instanceof Collection) {
+			appendAll(writer, (Collection<?>) value);
+		}
+		else if(value instanceof Response) {
+			Response response = (Response) value;
+			writer.append("Response(status=").append(String.valueOf(response.getStatus())).append(", entity=");
+			appendValue(writer, response.getEntity());
+			writer.append(')');
+		}
+		else if(value instanceof Page) {
+			Page<?> page = (Page<?>) value;
+			writer.append("Page(number=").append(String.valueOf(page.getNumber()))
+				.append(", size=").append(String.valueOf(page.getSize()))
+				.append(", totalElements=").append(String.valueOf(page.getTotalElements()))
+				.append(", content=");
+			appendAll(writer, page.getContent());
+			writer.append(')');
+		}
+		else if(value instanceof KeysetPage) {
+			KeysetPage<?> page = (KeysetPage<?>) value;
+			writer.append("KeysetPage(size=").append(String.valueOf(page.getSize()))
+				.append(", nextCursor=").append(String.valueOf(page.getNextCursor()))
+				.append(", content=");
+			appendAll(writer, page.getContent());
+			writer.append(')');
+		}
+		else if(value instanceof CompletableFuture) {
+			CompletableFuture<?> future = (CompletableFuture<?>) value;
+			if(future.isDone() && !future.isCompletedExceptionally()) {
+				appendValue(writer, future.join());
+			}
+			else {
+				writer.append(future.isDone() ? "CompletableFuture(failed)" : "CompletableFuture(pending)");
+			}
+		}
+		else if(value instanceof Optional) {
+			Optional<?> optional = (Optional<?>) value;
+			writer.append("Optional[");
+			appendValue(writer, optional.orElse(null));
+			writer.append(']');
+		}
+		else {
+			writer.append(String.valueOf(value));
+		}
+	}
+	
+	
+	/**
+	 * Appends the elements of a collection in brackets.
+	 *
+	 * @param writer the writer
+	 * @param values the values
+	 */
+	private static void appendAll(BoundedWriter writer, Collection<?> values) {
+		writer.append('[');
+		boolean first = true;
+		for (Object value : values) {
+			if(!first) {
+				writer.append(", ");
+			}
+			first = false;
+			appendValue(writer, value);
+		}
+		writer.append(']');
+	}
+	
+	
+	/**
+	 * Signals that the rendered output reached the maximum length.
+	 */
+	private static final class LimitReachedException extends RuntimeException {
+		
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Instantiates a new limit reached exception without a stack trace.
+		 */
+		LimitReachedException() {
+			super(null, null, false, false);
+		}
+	}
+	
+	
+	/**
+	 * A writer that keeps at most a maximum number of characters and aborts the
+	 * rendering once it is full.
+	 */
+	private static final class BoundedWriter extends Writer {
+		
+		/** The buffer. */
+		private final StringBuilder buffer;
+		
+		/** The max length. */
+		private final int maxLength;
+		
+		/**
+		 * Instantiates a new bounded writer.
+		 *
+		 * @param maxLength the max length
+		 */
+		BoundedWriter(int maxLength) {
+			this.maxLength = Math.max(0, maxLength);
+			this.buffer = new StringBuilder(Math.min(this.maxLength, 256));
+		}
+		
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			int room = maxLength - buffer.length();
+			buffer.append(cbuf, off, Math.min(room, len));
+			if(len > room) {
+				throw new LimitReachedException();
+			}
+		}
+		
+		@Override
+		public void write(String str, int off, int len) {
+			int room = maxLength - buffer.length();
+			buffer.append(str, off, off + Math.min(room, len));
+			if(len > room) {
+				throw new LimitReachedException();
+			}
+		}
+		
+		@Override
+		public BoundedWriter append(CharSequence csq) {
+			String value = String.valueOf(csq);
+			write(value, 0, value.length());
+			return this;
+		}
+		
+		@Override
+		public BoundedWriter append(char c) {
+			if(buffer.length() >= maxLength) {
+				throw new LimitReachedException();
+			}
+			buffer.append(c);
+			return this;
+		}
+		
+		@Override
+		public void flush() {
+			// nothing to flush
+		}
+		
+		@Override
+		public void close() {
+			// nothing to close
+		}
+		
+		@Override
+		public String toString() {
+			return buffer.toString();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.github.michaelsteven.archetype.quarkus.items.model;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
@@ -22,6 +23,12 @@ public class ConfirmationDto {
 	/** The status. */
 	private ItemStatus status;
 	
+	/** The version of the item after the change. */
+	private Long version;
+	
 	/** The date submitted. */
 	private ZonedDateTime dateSubmitted;
+	
+	/** The errors, only set when the status is FAILED. */
+	private List<String> errors;
 }
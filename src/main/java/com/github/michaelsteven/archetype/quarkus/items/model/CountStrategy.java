@@ -0,0 +1,40 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.validation.ValidationException;
+
+/**
+ * The Enum CountStrategy.  How the total of an offset paged listing is found.
+ */
+public enum CountStrategy {
+	/** A count query with every page. */
+	exact,
+	/** A count query once per filter and time to live, kept up to date by the changes in between. */
+	cached,
+	/** The row count of the table statistics of the database, for unfiltered listings. */
+	approximate,
+	/** No total, the page only tells whether there is a next one. */
+	none;
+
+
+	/**
+	 * Parses a count strategy name.
+	 *
+	 * @param strategy the name, null or empty for the default
+	 * @param defaultStrategy the default
+	 * @return the count strategy
+	 */
+	public static CountStrategy parse(String strategy, CountStrategy defaultStrategy) {
+		if(null == strategy || strategy.trim().isEmpty()) {
+			return defaultStrategy;
+		}
+		try {
+			return valueOf(strategy.trim().toLowerCase(Locale.ROOT));
+		}
+		catch(IllegalArgumentException e) {
+			throw new ValidationException("Unknown count " + strategy.trim() + ", the counts are " + Arrays.toString(values()));
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * A page whose total was found with the given {@link CountStrategy}, which is
+ * returned with it since a cached or approximate total may be off.
+ *
+ * @param <T> the content type
+ */
+@Schema(name = "CountedPage")
+@RegisterForReflection
+public class CountedPage<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** How the total was found. */
+	private final CountStrategy countStrategy;
+
+
+	/**
+	 * Instantiates a new counted page.
+	 *
+	 * @param content the content
+	 * @param pageable the pageable
+	 * @param total the total
+	 * @param countStrategy how the total was found
+	 */
+	public CountedPage(List<T> content, Pageable pageable, long total, CountStrategy countStrategy) {
+		super(content, pageable, total);
+		this.countStrategy = countStrategy;
+	}
+
+
+	/**
+	 * Gets how the total was found.
+	 *
+	 * @return the count strategy
+	 */
+	public CountStrategy getCountStrategy() {
+		return countStrategy;
+	}
+}
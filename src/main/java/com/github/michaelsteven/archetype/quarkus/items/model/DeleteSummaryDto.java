@@ -0,0 +1,24 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+
+
+/**
+ * Instantiates a new delete summary dto.
+ */
+@Data
+@Schema(name="DeleteSummary")
+@RegisterForReflection
+public class DeleteSummaryDto {
+	
+	/** The number of ids read. */
+	@Schema(description="The number of ids read")
+	private long requested;
+	
+	/** The number of items deleted. */
+	@Schema(description="The number of items deleted; ids that did not exist are not counted")
+	private long deleted;
+}
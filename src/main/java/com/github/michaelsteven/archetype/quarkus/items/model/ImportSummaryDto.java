@@ -0,0 +1,35 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+
+
+/**
+ * Instantiates a new import summary dto.
+ */
+@Data
+@Schema(name="ImportSummary")
+@RegisterForReflection
+public class ImportSummaryDto {
+	
+	/** The number of records saved. */
+	@Schema(description="The number of records saved")
+	private long accepted;
+	
+	/** The number of records that could not be parsed or failed validation. */
+	@Schema(description="The number of records that could not be parsed or failed validation")
+	private long rejected;
+	
+	/** The number of valid records whose batch could not be written. */
+	@Schema(description="The number of valid records whose batch could not be written")
+	private long failed;
+	
+	/** The first errors, each prefixed with the number of its record. */
+	@Schema(description="The first errors, each prefixed with the number of its record")
+	private List<String> errors = new ArrayList<>();
+}
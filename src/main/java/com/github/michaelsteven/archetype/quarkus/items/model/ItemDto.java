@@ -22,6 +22,8 @@ import lombok.NoArgsConstructor;
  * @param name the name
  * @param description the description
  * @param dateSubmitted the date submitted
+ * @param version the version
+ * @param dateModified the date modified
  */
 @Data
 @NoArgsConstructor
@@ -49,4 +51,12 @@ public class ItemDto {
 	@Schema(hidden = true)
 	private ZonedDateTime dateSubmitted;
 	
+	/** The version, incremented by every change. */
+	@Schema(name = "version", description="The version of the item, incremented by every change", readOnly = true, example = "3")
+	private Long version;
+	
+	/** The date modified. */
+	@Schema(hidden = true)
+	private ZonedDateTime dateModified;
+	
 }
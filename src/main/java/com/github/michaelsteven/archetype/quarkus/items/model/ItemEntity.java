@@ -2,12 +2,18 @@ package com.github.michaelsteven.archetype.quarkus.items.model;
 
 import java.time.Instant;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,12 +24,17 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "items")
+@Cacheable // only once quarkus.hibernate-orm.second-level-caching-enabled is set
+@Table(name = "items", indexes = {
+		// the id makes the ordering unique, so sorted and keyset pages are read from the index in order
+		@Index(name = "items_name_idx", columnList = "name, id"),
+		@Index(name = "items_created_idx", columnList = "created_ts, id") })
 public class ItemEntity {
 
-	/** The id. */
+	/** The id.  Taken from a pooled sequence so that inserts can be batched, which IDENTITY columns prevent; src/main/db2/items-sequence-migration.sql migrates an IDENTITY id. */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+	@SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
 	@Column(name = "id", unique = true, nullable = false)
 	private Long id;
 	
@@ -35,4 +46,23 @@ public class ItemEntity {
 	
 	@Column(name = "created_ts")
 	private Instant createdTimestamp;
+	
+	/** The version, incremented by every update. */
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
+	
+	/** The time of the last change. */
+	@Column(name = "updated_ts")
+	private Instant updatedTimestamp;
+	
+	
+	/**
+	 * Sets the updated timestamp before the item is inserted or updated.
+	 */
+	@PrePersist
+	@PreUpdate
+	void touch() {
+		updatedTimestamp = Instant.now();
+	}
 }
@@ -0,0 +1,128 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import javax.validation.ValidationException;
+
+/**
+ * The Enum ItemField.  The fields of an item that a listing can be narrowed to,
+ * each named as in the json and mapped to the entity property it is selected from.
+ */
+public enum ItemField {
+	id("id"),
+	name("name"),
+	description("description"),
+	dateSubmitted("createdTimestamp"),
+	version("version"),
+	dateModified("updatedTimestamp");
+
+	/** Every field. */
+	public static final Set<ItemField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ItemField.class));
+
+	/** The entity property. */
+	private final String property;
+
+
+	/**
+	 * Instantiates a new item field.
+	 *
+	 * @param property the property
+	 */
+	ItemField(String property) {
+		this.property = property;
+	}
+
+
+	/**
+	 * Gets the entity property.
+	 *
+	 * @return the property
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+
+	/**
+	 * Sets the field of an item from a selected property value.
+	 *
+	 * @param itemDto the item dto
+	 * @param value the value, as selected from the entity
+	 */
+	public void set(ItemDto itemDto, Object value) {
+		switch(this) {
+			case id:
+				itemDto.setId((Long) value);
+				break;
+			case name:
+				itemDto.setName((String) value);
+				break;
+			case description:
+				itemDto.setDescription((String) value);
+				break;
+			case dateSubmitted:
+				itemDto.setDateSubmitted(toDate((Instant) value));
+				break;
+			case version:
+				itemDto.setVersion((Long) value);
+				break;
+			default:
+				itemDto.setDateModified(toDate((Instant) value));
+		}
+	}
+
+
+	/**
+	 * Parses a comma separated list of field names.
+	 *
+	 * @param fields the field names, null or empty for every field
+	 * @return the fields
+	 */
+	public static Set<ItemField> parse(String fields) {
+		if(null == fields || fields.trim().isEmpty()) {
+			return ALL;
+		}
+		Set<ItemField> parsed = EnumSet.noneOf(ItemField.class);
+		for (String field : fields.split(",")) {
+			try {
+				parsed.add(valueOf(field.trim()));
+			}
+			catch(IllegalArgumentException e) {
+				throw new ValidationException("Unknown field " + field.trim() + ", the fields are " + ALL);
+			}
+		}
+		return parsed;
+	}
+
+
+	/**
+	 * Gets the field selected from an entity property.
+	 *
+	 * @param property the property
+	 * @return the field
+	 */
+	public static ItemField ofProperty(String property) {
+		for (ItemField field : values()) {
+			if(field.property.equals(property)) {
+				return field;
+			}
+		}
+		throw new ValidationException("Cannot sort on " + property);
+	}
+
+
+	/**
+	 * Converts a timestamp to a date.
+	 *
+	 * @param instant the instant
+	 * @return the date
+	 */
+	private static ZonedDateTime toDate(Instant instant) {
+		return null == instant ? null : ZonedDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+}
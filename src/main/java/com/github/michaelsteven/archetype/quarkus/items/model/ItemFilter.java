@@ -0,0 +1,108 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import javax.validation.ValidationException;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Instantiates a new item filter.  The predicates a listing is narrowed by, each
+ * pushed down into the where clause; null predicates do not filter.
+ *
+ * @param name the name
+ * @param namePrefix the name prefix
+ * @param createdFrom the created from
+ * @param createdTo the created to
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFilter {
+
+	/** The exact name. */
+	private String name;
+
+	/** The start of the name. */
+	private String namePrefix;
+
+	/** The earliest creation time, inclusive. */
+	private Instant createdFrom;
+
+	/** The latest creation time, exclusive. */
+	private Instant createdTo;
+
+
+	/**
+	 * Checks if the filter has no predicates.
+	 *
+	 * @return true, if empty
+	 */
+	public boolean isEmpty() {
+		return null == name && null == namePrefix && null == createdFrom && null == createdTo;
+	}
+
+
+	/**
+	 * Checks whether an item passes the filter, as the where clause would decide.
+	 *
+	 * @param itemDto the item dto
+	 * @return true, if it passes
+	 */
+	public boolean matches(ItemDto itemDto) {
+		if(null != name && !name.equals(itemDto.getName())) {
+			return false;
+		}
+		if(null != namePrefix && (null == itemDto.getName() || !itemDto.getName().startsWith(namePrefix))) {
+			return false;
+		}
+		if(null == createdFrom && null == createdTo) {
+			return true;
+		}
+		Instant created = null == itemDto.getDateSubmitted() ? null : itemDto.getDateSubmitted().toInstant();
+		return null != created && (null == createdFrom || !created.isBefore(createdFrom))
+				&& (null == createdTo || created.isBefore(createdTo));
+	}
+
+
+	/**
+	 * Creates a filter from request parameters.
+	 *
+	 * @param name the exact name, may be null
+	 * @param namePrefix the start of the name, may be null
+	 * @param createdFrom the earliest creation time as an ISO-8601 instant, may be null
+	 * @param createdTo the latest creation time, exclusive, as an ISO-8601 instant, may be null
+	 * @return the item filter
+	 */
+	public static ItemFilter of(String name, String namePrefix, String createdFrom, String createdTo) {
+		ItemFilter filter = new ItemFilter(name, null == namePrefix || namePrefix.isEmpty() ? null : namePrefix,
+				parse("createdFrom", createdFrom), parse("createdTo", createdTo));
+		if(null != filter.createdFrom && null != filter.createdTo && !filter.createdFrom.isBefore(filter.createdTo)) {
+			throw new ValidationException("createdFrom must be before createdTo");
+		}
+		return filter;
+	}
+
+
+	/**
+	 * Parses an instant.
+	 *
+	 * @param parameter the parameter name
+	 * @param value the value, may be null
+	 * @return the instant
+	 */
+	private static Instant parse(String parameter, String value) {
+		if(null == value || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return Instant.parse(value);
+		}
+		catch(DateTimeParseException e) {
+			throw new ValidationException(parameter + " must be an ISO-8601 instant such as 2021-01-31T12:00:00Z");
+		}
+	}
+}
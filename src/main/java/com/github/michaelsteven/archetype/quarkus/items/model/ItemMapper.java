@@ -0,0 +1,67 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Converts between items and their entities, for the services and for the outbox,
+ * the search index and the batch loader that publish or hold items.
+ */
+public final class ItemMapper {
+	
+	/**
+	 * Instantiates a new item mapper.
+	 */
+	private ItemMapper() {
+	}
+	
+	
+	/**
+	 * Convert.
+	 *
+	 * @param sourceDto the source dto
+	 * @return the item entity
+	 */
+	public static ItemEntity convert(ItemDto sourceDto) {
+		ItemEntity entity = new ItemEntity();
+		applyToEntity(sourceDto, entity);
+		return entity;
+	}
+	
+	/**
+	 * Apply changes to entity.
+	 *
+	 * @param sourceDto the source dto
+	 * @param targetEntity the target entity
+	 */
+	public static void applyToEntity(ItemDto sourceDto, ItemEntity targetEntity) {
+		if(null != targetEntity) {
+			targetEntity.setId(sourceDto.getId());
+			targetEntity.setName(sourceDto.getName());
+			targetEntity.setDescription(sourceDto.getDescription());
+		}
+	}
+	
+	/**
+	 * Convert.
+	 *
+	 * @param sourceEntity the source entity
+	 * @return the item dto
+	 */
+	public static ItemDto convert(ItemEntity sourceEntity) {
+		if(null == sourceEntity) {
+			return null;
+		}
+		ZonedDateTime dateSubmitted = null;
+		ZonedDateTime dateModified = null;
+		
+		if(null != sourceEntity.getCreatedTimestamp()) {
+			dateSubmitted = ZonedDateTime.ofInstant(sourceEntity.getCreatedTimestamp(), ZoneOffset.UTC);
+		}
+		if(null != sourceEntity.getUpdatedTimestamp()) {
+			dateModified = ZonedDateTime.ofInstant(sourceEntity.getUpdatedTimestamp(), ZoneOffset.UTC);
+		}
+		return new ItemDto(sourceEntity.getId(), sourceEntity.getName(), sourceEntity.getDescription(), dateSubmitted,
+				sourceEntity.getVersion(), dateModified);
+	}
+}
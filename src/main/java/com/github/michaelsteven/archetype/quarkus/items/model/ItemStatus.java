@@ -5,5 +5,6 @@ package com.github.michaelsteven.archetype.quarkus.items.model;
  */
 public enum ItemStatus {
 	SUBMITTED, 
-	PROCESSED
+	PROCESSED,
+	FAILED
 }
\ No newline at end of file
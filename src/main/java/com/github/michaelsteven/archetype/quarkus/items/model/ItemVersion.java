@@ -0,0 +1,26 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Instantiates a new item version.  What conditional requests are checked
+ * against, without the rest of the item.
+ *
+ * @param version the version
+ * @param lastModified the last modified
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemVersion {
+	
+	/** The version. */
+	private Long version;
+	
+	/** The time of the last change. */
+	private Instant lastModified;
+}
@@ -0,0 +1,38 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * A page of a keyset (seek) paginated collection.  Unlike a spring data Page
+ * it carries no total count; the next page is requested with the opaque
+ * continuation token in nextCursor.
+ *
+ * @param <T> the content type
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name="KeysetPage")
+@RegisterForReflection
+public class KeysetPage<T> {
+
+	/** The content. */
+	private List<T> content;
+	
+	/** The requested page size. */
+	private int size;
+	
+	/** Whether there is a next page. */
+	private boolean hasNext;
+	
+	/** The continuation token for the next page, null on the last page. */
+	private String nextCursor;
+}
@@ -0,0 +1,52 @@
+package com.github.michaelsteven.archetype.quarkus.items.model;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Instantiates a new outbox entity.  One item change, written in the transaction
+ * of the change and removed once it has been relayed.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "item_outbox")
+public class OutboxEntity {
+
+	/** The id.  Taken from a pooled sequence so that the entries are batched with the items they describe. */
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_outbox_seq")
+	@SequenceGenerator(name = "item_outbox_seq", sequenceName = "item_outbox_seq", allocationSize = 50)
+	@Column(name = "id", unique = true, nullable = false)
+	private Long id;
+	
+	/** The id of the changed item. */
+	@Column(name = "item_id", nullable = false)
+	private Long itemId;
+	
+	/** The type of change. */
+	@Enumerated(EnumType.STRING)
+	@Column(name = "change_type", length = 10, nullable = false)
+	private ItemChangeType changeType;
+	
+	/** The item after the change as json, null when it was deleted. */
+	@Column(name = "payload", length = 2000)
+	private String payload;
+	
+	@Column(name = "created_ts", nullable = false)
+	private Instant createdTimestamp;
+}
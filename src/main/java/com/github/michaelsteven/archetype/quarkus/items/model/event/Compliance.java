@@ -5,11 +5,16 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import javax.enterprise.util.Nonbinding;
+import javax.interceptor.InterceptorBinding;
+
 
 /**
- * The compliance annotation
+ * The compliance annotation.  Every call of an annotated method is audited
+ * as a {@link ComplianceEvent} with the given action.
  */
-@Target({ ElementType.METHOD})
+@InterceptorBinding
+@Target({ ElementType.TYPE, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Compliance {
 	
@@ -18,5 +23,6 @@ public @interface Compliance {
 	 *
 	 * @return the compliance action
 	 */
-	ComplianceAction action();
+	@Nonbinding
+	ComplianceAction action() default ComplianceAction.read;
 }
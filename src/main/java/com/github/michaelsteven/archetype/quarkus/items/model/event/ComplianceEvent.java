@@ -1,11 +1,15 @@
 package com.github.michaelsteven.archetype.quarkus.items.model.event;
 
+import java.time.Instant;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Data;
 
 /**
  * Compliance Event
  */
 @Data
+@RegisterForReflection
 public class ComplianceEvent {
 	
 	/** The action. */
@@ -16,4 +20,13 @@ public class ComplianceEvent {
 	
 	/** The event source. */
 	private String eventSource;
+	
+	/** The time of the call. */
+	private Instant timestamp;
+	
+	/** The outcome. */
+	private ComplianceOutcome outcome;
+	
+	/** The trace id of the request. */
+	private String traceId;
 }
@@ -0,0 +1,9 @@
+package com.github.michaelsteven.archetype.quarkus.items.model.event;
+
+/**
+ * The Enum ComplianceOutcome.
+ */
+public enum ComplianceOutcome {
+	success,
+	failure;
+}
@@ -0,0 +1,32 @@
+package com.github.michaelsteven.archetype.quarkus.items.model.event;
+
+import java.time.Instant;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+
+/**
+ * Item change event, relayed from the outbox to downstream systems and fired to
+ * local observers when it is recorded.
+ */
+@Data
+@RegisterForReflection
+public class ItemChangeEvent {
+	
+	/** The id of the outbox entry, increasing in the order the changes were recorded. */
+	private Long id;
+	
+	/** The id of the changed item. */
+	private Long itemId;
+	
+	/** The type of change. */
+	private ItemChangeType type;
+	
+	/** The item after the change, null when it was deleted. */
+	private ItemDto item;
+	
+	/** The time of the change. */
+	private Instant timestamp;
+}
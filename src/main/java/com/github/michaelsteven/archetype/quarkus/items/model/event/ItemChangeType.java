@@ -0,0 +1,10 @@
+package com.github.michaelsteven.archetype.quarkus.items.model.event;
+
+/**
+ * The Enum ItemChangeType.
+ */
+public enum ItemChangeType {
+	created,
+	updated,
+	deleted;
+}
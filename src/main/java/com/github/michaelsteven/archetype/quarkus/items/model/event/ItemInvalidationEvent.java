@@ -0,0 +1,26 @@
+package com.github.michaelsteven.archetype.quarkus.items.model.event;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Item invalidation event, broadcast to the other replicas once a change of an
+ * item has committed so they drop their cached copies older than the change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class ItemInvalidationEvent {
+
+	/** The id of the replica the change committed on. */
+	private String origin;
+
+	/** The id of the changed item. */
+	private Long itemId;
+
+	/** The version of the item after the change, null when it was deleted. */
+	private Long version;
+}
@@ -0,0 +1,30 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+
+/**
+ * The Interface ItemChangeSink.  Where the outbox relay delivers item changes;
+ * the {@link LoggingItemChangeSink} is used unless the application provides
+ * another bean.  A batch is removed from the outbox only when publish returns,
+ * so a sink must tolerate receiving a batch again after a failure.
+ * <p>
+ * The order of the changes holds within a batch only.  The relays of several
+ * instances claim batches in parallel, skipping each other's locked rows, so a
+ * later change of an item may be published before an earlier one.  Consumers must
+ * order the changes of an item by the version of their payload, and treat a
+ * delete, which has no payload, as final, as ids are never reused.
+ */
+public interface ItemChangeSink {
+	
+	/**
+	 * Publishes a batch of changes.
+	 *
+	 * @param events the events, in outbox order within the batch
+	 * @throws IOException Signals that the batch could not be delivered.
+	 */
+	public abstract void publish(List<ItemChangeEvent> events) throws IOException;
+
+}
@@ -0,0 +1,207 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import org.hibernate.query.NativeQuery;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.OutboxEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemQueryRepository;
+
+/**
+ * Records item changes in the outbox table.  An entry is persisted in the transaction
+ * of the change, so it is committed exactly when the change is, and is relayed
+ * afterwards by the {@link OutboxRelay}.  Each change is also fired as a CDI
+ * {@link ItemChangeEvent}, for local observers such as the search index that
+ * observe it once the transaction has committed.
+ */
+@ApplicationScoped
+public class ItemOutbox {
+	
+	/** Inserts a deleted entry for each existing item among the ids. */
+	private static final String INSERT_DELETED = "INSERT INTO item_outbox (id, item_id, change_type, payload, created_ts)"
+			+ " SELECT NEXT VALUE FOR item_outbox_seq, id, :type, NULL, :createdTimestamp FROM items WHERE id IN (:ids)";
+	
+	@Inject
+	EntityManager entityManager;
+	
+	@Inject
+	ObjectMapper objectMapper;
+	
+	@Inject
+	Event<ItemChangeEvent> itemChanges;
+	
+	@Inject
+	ItemQueryRepository itemQueryRepository;
+	
+	
+	/**
+	 * Records that an item was created or updated.
+	 *
+	 * @param type the type of change
+	 * @param entity the entity after the change, with its id
+	 */
+	@Transactional(Transactional.TxType.MANDATORY)
+	public void record(ItemChangeType type, ItemEntity entity) {
+		ItemDto itemDto = ItemMapper.convert(entity);
+		OutboxEntity entry = createEntry(type, entity.getId(), payload(itemDto));
+		entityManager.persist(entry);
+		itemChanges.fire(createEvent(entry, itemDto));
+	}
+	
+	
+	/**
+	 * Records that an item was deleted.
+	 *
+	 * @param id the id
+	 */
+	@Transactional(Transactional.TxType.MANDATORY)
+	public void recordDeleted(long id) {
+		OutboxEntity entry = createEntry(ItemChangeType.deleted, id, null);
+		entityManager.persist(entry);
+		itemChanges.fire(createEvent(entry, null));
+	}
+	
+	
+	/**
+	 * Records that the existing items among the ids are about to be deleted, in one
+	 * statement that selects them without loading them.  Called before the items are
+	 * deleted in the same transaction.  Events are fired for the existing items only;
+	 * when some ids were missing they are told apart with a query for the existing ids.
+	 *
+	 * @param ids the ids
+	 * @return the number of recorded deletions
+	 */
+	@Transactional(Transactional.TxType.MANDATORY)
+	public int recordDeleted(Collection<Long> ids) {
+		Instant now = Instant.now();
+		int recorded = entityManager.createNativeQuery(INSERT_DELETED)
+				.unwrap(NativeQuery.class)
+				// only the outbox is written, so the cached items and listings stay valid
+				.addSynchronizedEntityClass(OutboxEntity.class)
+				.setParameter("type", ItemChangeType.deleted.name())
+				.setParameter("createdTimestamp", now)
+				.setParameter("ids", ids)
+				.executeUpdate();
+		Collection<Long> deleted = recorded == ids.size() ? ids
+				: 0 == recorded ? Collections.<Long>emptyList() : itemQueryRepository.findExistingIds(ids);
+		for (Long id : deleted) {
+			OutboxEntity entry = createEntry(ItemChangeType.deleted, id, null);
+			entry.setCreatedTimestamp(now);
+			itemChanges.fire(createEvent(entry, null));
+		}
+		return recorded;
+	}
+	
+	
+	/**
+	 * Fires the event of a change that was recorded and committed without a JTA
+	 * transaction, as the reactive api writes its outbox entries in sql.  With no
+	 * transaction active the observers of committed changes are notified at once.
+	 *
+	 * @param type the type of change
+	 * @param itemId the item id
+	 * @param entity the entity after the change, null when it was deleted
+	 */
+	public void fireCommitted(ItemChangeType type, long itemId, ItemEntity entity) {
+		OutboxEntity entry = createEntry(type, itemId, null);
+		itemChanges.fire(createEvent(entry, null == entity ? null : ItemMapper.convert(entity)));
+	}
+	
+	
+	/**
+	 * Gets the payload of an entry, the item as json.
+	 *
+	 * @param entity the entity
+	 * @return the payload
+	 */
+	public String payload(ItemEntity entity) {
+		return payload(ItemMapper.convert(entity));
+	}
+	
+	
+	/**
+	 * Gets the payload of an entry, the item as json.
+	 *
+	 * @param itemDto the item dto
+	 * @return the payload
+	 */
+	private String payload(ItemDto itemDto) {
+		try {
+			return objectMapper.writeValueAsString(itemDto);
+		}
+		catch(JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	/**
+	 * Reads the item of a payload.
+	 *
+	 * @param payload the payload, may be null
+	 * @return the item dto, null if there is no payload
+	 */
+	ItemDto item(String payload) {
+		if(null == payload) {
+			return null;
+		}
+		try {
+			return objectMapper.readValue(payload, ItemDto.class);
+		}
+		catch(JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	/**
+	 * Creates the event of an outbox entry.
+	 *
+	 * @param entry the entry
+	 * @param itemDto the item, null when it was deleted
+	 * @return the item change event
+	 */
+	private static ItemChangeEvent createEvent(OutboxEntity entry, ItemDto itemDto) {
+		ItemChangeEvent event = new ItemChangeEvent();
+		event.setId(entry.getId());
+		event.setItemId(entry.getItemId());
+		event.setType(entry.getChangeType());
+		event.setItem(itemDto);
+		event.setTimestamp(entry.getCreatedTimestamp());
+		return event;
+	}
+	
+	
+	/**
+	 * Creates an outbox entry.
+	 *
+	 * @param type the type
+	 * @param itemId the item id
+	 * @param payload the payload
+	 * @return the outbox entity
+	 */
+	private static OutboxEntity createEntry(ItemChangeType type, long itemId, String payload) {
+		OutboxEntity entry = new OutboxEntity();
+		entry.setItemId(itemId);
+		entry.setChangeType(type);
+		entry.setPayload(payload);
+		entry.setCreatedTimestamp(Instant.now());
+		return entry;
+	}
+}
@@ -0,0 +1,35 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+
+import io.quarkus.arc.DefaultBean;
+
+/**
+ * Local stand-in for a message broker that logs each item change.
+ */
+@DefaultBean
+@ApplicationScoped
+public class LoggingItemChangeSink implements ItemChangeSink {
+
+	public static final Logger logger = LoggerFactory.getLogger(LoggingItemChangeSink.class);
+
+
+	/**
+	 * Publishes a batch of changes.
+	 *
+	 * @param events the events
+	 */
+	@Override
+	public void publish(List<ItemChangeEvent> events) {
+		for (ItemChangeEvent event : events) {
+			logger.info("Item {} {} (outbox entry {})", event.getItemId(), event.getType(), event.getId());
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.OutboxEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+
+/**
+ * Relays the item outbox to the {@link ItemChangeSink}.  Every poll interval the
+ * relay claims the oldest items.outbox.batch-size entries, publishes them in id
+ * order and deletes them, all in one transaction, and repeats while batches come
+ * back full.  Claimed rows stay locked until the commit and are skipped by the
+ * relays of other instances, so several instances drain the outbox in parallel
+ * without publishing an entry twice; a failed publish rolls back and the batch is
+ * claimed again later.  Entries are in order within a batch only, as the batches of
+ * several instances are published in parallel; see {@link ItemChangeSink}.
+ * <p>
+ * The relayed entries and the failed batches are published as items.outbox.relayed
+ * and items.outbox.failures.
+ */
+@Startup
+@ApplicationScoped
+public class OutboxRelay {
+
+	public static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+	/** Whether this instance relays the outbox. */
+	@ConfigProperty(name = "items.outbox.relay.enabled", defaultValue = "true")
+	boolean enabled;
+
+	/** The maximum number of entries claimed per transaction. */
+	@ConfigProperty(name = "items.outbox.batch-size", defaultValue = "100")
+	int batchSize;
+
+	/** How long the relay waits after the outbox was found empty. */
+	@ConfigProperty(name = "items.outbox.poll-interval", defaultValue = "PT1S")
+	Duration pollInterval;
+
+	/** The clause that locks the claimed rows and skips locked ones. */
+	@ConfigProperty(name = "items.outbox.claim-lock", defaultValue = "FOR READ ONLY WITH RS USE AND KEEP UPDATE LOCKS SKIP LOCKED DATA")
+	String claimLock;
+
+	@Inject
+	OutboxRepository outboxRepository;
+
+	@Inject
+	ItemOutbox itemOutbox;
+
+	@Inject
+	ItemChangeSink itemChangeSink;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** The relay thread. */
+	private ScheduledExecutorService scheduler;
+
+	/** The relayed entries. */
+	private Counter relayed;
+
+	/** The batches that could not be relayed. */
+	private Counter failures;
+
+
+	/**
+	 * Starts the relay thread.
+	 */
+	@PostConstruct
+	void init() {
+		if(!enabled) {
+			return;
+		}
+		relayed = Counter.builder("items.outbox.relayed")
+				.description("The item changes relayed from the outbox").register(meterRegistry);
+		failures = Counter.builder("items.outbox.failures")
+				.description("The outbox batches that could not be relayed").register(meterRegistry);
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "items-outbox-relay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = pollInterval.toMillis();
+		scheduler.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Stops the relay thread.
+	 */
+	@PreDestroy
+	void shutdown() {
+		if(null != scheduler) {
+			scheduler.shutdown();
+		}
+	}
+
+
+	/**
+	 * Relays batches until one comes back short.
+	 */
+	void drain() {
+		try {
+			while(relayBatch() == batchSize) {
+				// the outbox holds more entries
+			}
+		}
+		catch(RuntimeException e) {
+			failures.increment();
+			logger.warn("Could not relay the item outbox", e);
+		}
+	}
+
+
+	/**
+	 * Claims, publishes and deletes one batch of entries.
+	 *
+	 * @return the number of relayed entries
+	 */
+	@Transactional
+	int relayBatch() {
+		List<OutboxEntity> entries = outboxRepository.claim(batchSize, claimLock);
+		if(entries.isEmpty()) {
+			return 0;
+		}
+		List<ItemChangeEvent> events = new ArrayList<>(entries.size());
+		List<Long> ids = new ArrayList<>(entries.size());
+		for (OutboxEntity entry : entries) {
+			ItemChangeEvent event = new ItemChangeEvent();
+			event.setId(entry.getId());
+			event.setItemId(entry.getItemId());
+			event.setType(entry.getChangeType());
+			event.setItem(itemOutbox.item(entry.getPayload()));
+			event.setTimestamp(entry.getCreatedTimestamp());
+			events.add(event);
+			ids.add(entry.getId());
+		}
+		try {
+			itemChangeSink.publish(events);
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		outboxRepository.deleteAllById(ids);
+		relayed.increment(entries.size());
+		return entries.size();
+	}
+}
@@ -0,0 +1,364 @@
+package com.github.michaelsteven.archetype.quarkus.items.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.HibernateCacheRegions;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemVersion;
+
+
+/**
+ * Hand written item queries that can not be expressed as spring data repository methods.
+ */
+@ApplicationScoped
+public class ItemQueryRepository {
+
+	/** The entity manager. */
+	@Inject
+	EntityManager entityManager;
+	
+	/** The entity manager factory. */
+	@Inject
+	EntityManagerFactory entityManagerFactory;
+	
+	/** The query of the number of items in the table statistics of the database. */
+	@ConfigProperty(name = "items.count.approximate-query",
+			defaultValue = "SELECT CARD FROM SYSCAT.TABLES WHERE TABSCHEMA = CURRENT SCHEMA AND TABNAME = 'ITEMS'")
+	String approximateCountQuery;
+	
+	/** Whether the listing and count queries are cached in the listing query region. */
+	@ConfigProperty(name = "items.query-cache.enabled", defaultValue = "false")
+	boolean queryCacheEnabled;
+	
+	
+	/**
+	 * Finds a page of items, selecting only the given fields into item dtos rather
+	 * than loading managed entities.
+	 *
+	 * @param fields the fields to select, at least two
+	 * @param filter the filter
+	 * @param sort the sort, on entity properties
+	 * @param offset the number of items to skip
+	 * @param limit the maximum number of items to return
+	 * @return the items
+	 */
+	public List<ItemDto> findAll(Set<ItemField> fields, ItemFilter filter, Sort sort, long offset, int limit) {
+		StringBuilder jpql = select(fields);
+		where(jpql, filter);
+		String separator = " order by ";
+		for (Sort.Order order : sort) {
+			jpql.append(separator).append("e.").append(ItemField.ofProperty(order.getProperty()).getProperty())
+				.append(order.isAscending() ? " asc" : " desc");
+			separator = ", ";
+		}
+		return toItems(fields, cacheable(bind(entityManager.createQuery(jpql.toString(), Object[].class), filter))
+				.setFirstResult((int) offset)
+				.setMaxResults(limit)
+				.getResultList());
+	}
+	
+	
+	/**
+	 * Finds the items that follow the given position in (property, id) order,
+	 * seeking on the key instead of skipping an offset.  Null property values sort last.
+	 * Only the given fields are selected, into item dtos rather than managed entities.
+	 * The property is used in the query as is and must be validated by the caller.
+	 *
+	 * @param fields the fields to select, at least two
+	 * @param filter the filter
+	 * @param property the entity property to sort on
+	 * @param ascending whether the sort is ascending
+	 * @param lastKey the property value of the last item of the previous page
+	 * @param lastId the id of the last item of the previous page, null for the first page
+	 * @param limit the maximum number of items to return
+	 * @return the items
+	 */
+	public List<ItemDto> findAfter(Set<ItemField> fields, ItemFilter filter, String property, boolean ascending, Object lastKey, Long lastId, int limit) {
+		String direction = ascending ? " asc" : " desc";
+		String comparison = ascending ? " > " : " < ";
+		boolean sortById = "id".equals(property);
+		
+		StringBuilder jpql = select(fields);
+		String keyword = where(jpql, filter) ? " and " : " where ";
+		if(null != lastId) {
+			if(sortById) {
+				jpql.append(keyword).append("e.id").append(comparison).append(":lastId");
+			}
+			else if(null == lastKey) {
+				jpql.append(keyword).append("e.").append(property).append(" is null and e.id").append(comparison).append(":lastId");
+			}
+			else {
+				jpql.append(keyword).append("(e.").append(property).append(comparison).append(":lastKey")
+					.append(" or (e.").append(property).append(" = :lastKey and e.id").append(comparison).append(":lastId)")
+					.append(" or e.").append(property).append(" is null)");
+			}
+		}
+		jpql.append(" order by ");
+		if(!sortById) {
+			jpql.append("e.").append(property).append(direction).append(" nulls last, ");
+		}
+		jpql.append("e.id").append(direction);
+		
+		TypedQuery<Object[]> query = cacheable(bind(entityManager.createQuery(jpql.toString(), Object[].class), filter));
+		if(null != lastId) {
+			query.setParameter("lastId", lastId);
+			if(!sortById && null != lastKey) {
+				query.setParameter("lastKey", lastKey);
+			}
+		}
+		return toItems(fields, query.setMaxResults(limit).getResultList());
+	}
+	
+	
+	/**
+	 * Counts the items that pass a filter.
+	 *
+	 * @param filter the filter
+	 * @return the count
+	 */
+	public long count(ItemFilter filter) {
+		StringBuilder jpql = new StringBuilder("select count(e) from ItemEntity e");
+		where(jpql, filter);
+		return cacheable(bind(entityManager.createQuery(jpql.toString(), Long.class), filter)).getSingleResult();
+	}
+	
+	
+	/**
+	 * Estimates the number of items from the table statistics, which are as recent as
+	 * the last time they were collected, e.g. by RUNSTATS on DB2.
+	 *
+	 * @return the estimate, empty if the statistics have not been collected
+	 */
+	public OptionalLong estimateCount() {
+		List<?> rows = entityManager.createNativeQuery(approximateCountQuery).getResultList();
+		if(rows.isEmpty() || !(rows.get(0) instanceof Number) || ((Number) rows.get(0)).longValue() < 0) {
+			return OptionalLong.empty();
+		}
+		return OptionalLong.of(((Number) rows.get(0)).longValue());
+	}
+	
+	
+	/**
+	 * Caches the results of a listing query in the listing query region, when
+	 * enabled.  Hibernate invalidates them whenever it writes to the items table.
+	 *
+	 * @param <T> the query type
+	 * @param query the query
+	 * @return the query
+	 */
+	private <T extends Query> T cacheable(T query) {
+		if(queryCacheEnabled) {
+			query.setHint(QueryHints.CACHEABLE, true);
+			query.setHint(QueryHints.CACHE_REGION, HibernateCacheRegions.LISTING_REGION);
+		}
+		return query;
+	}
+	
+	
+	/**
+	 * Appends the where clause of a filter.  Each predicate compares a column on its
+	 * own, so that it can be answered from an index on that column.
+	 *
+	 * @param jpql the jpql
+	 * @param filter the filter
+	 * @return true, if a where clause was appended
+	 */
+	private static boolean where(StringBuilder jpql, ItemFilter filter) {
+		String keyword = " where ";
+		if(null != filter.getName()) {
+			jpql.append(keyword).append("e.name = :name");
+			keyword = " and ";
+		}
+		if(null != filter.getNamePrefix()) {
+			jpql.append(keyword).append("e.name like :namePrefix escape '!'");
+			keyword = " and ";
+		}
+		if(null != filter.getCreatedFrom()) {
+			jpql.append(keyword).append("e.createdTimestamp >= :createdFrom");
+			keyword = " and ";
+		}
+		if(null != filter.getCreatedTo()) {
+			jpql.append(keyword).append("e.createdTimestamp < :createdTo");
+			keyword = " and ";
+		}
+		return " and ".equals(keyword);
+	}
+	
+	
+	/**
+	 * Binds the parameters of a filter.
+	 *
+	 * @param <T> the query type
+	 * @param query the query
+	 * @param filter the filter
+	 * @return the query
+	 */
+	private static <T extends Query> T bind(T query, ItemFilter filter) {
+		if(null != filter.getName()) {
+			query.setParameter("name", filter.getName());
+		}
+		if(null != filter.getNamePrefix()) {
+			query.setParameter("namePrefix", filter.getNamePrefix().replaceAll("([!%_])", "!$1") + "%");
+		}
+		if(null != filter.getCreatedFrom()) {
+			query.setParameter("createdFrom", filter.getCreatedFrom());
+		}
+		if(null != filter.getCreatedTo()) {
+			query.setParameter("createdTo", filter.getCreatedTo());
+		}
+		return query;
+	}
+	
+	
+	/**
+	 * Starts a query selecting the properties of the given fields.
+	 *
+	 * @param fields the fields
+	 * @return the jpql
+	 */
+	private static StringBuilder select(Set<ItemField> fields) {
+		StringBuilder jpql = new StringBuilder("select ");
+		String separator = "";
+		for (ItemField field : fields) {
+			jpql.append(separator).append("e.").append(field.getProperty());
+			separator = ", ";
+		}
+		return jpql.append(" from ItemEntity e");
+	}
+	
+	
+	/**
+	 * Builds item dtos from selected rows.
+	 *
+	 * @param fields the selected fields, in the order of the columns
+	 * @param rows the rows
+	 * @return the items
+	 */
+	private static List<ItemDto> toItems(Set<ItemField> fields, List<Object[]> rows) {
+		List<ItemDto> items = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			ItemDto itemDto = new ItemDto();
+			int column = 0;
+			for (ItemField field : fields) {
+				field.set(itemDto, row[column++]);
+			}
+			items.add(itemDto);
+		}
+		return items;
+	}
+	
+	
+	/**
+	 * Finds the version and last modification time of an item, selecting only
+	 * those two columns.
+	 *
+	 * @param id the id
+	 * @return the version, empty if there is no such item
+	 */
+	public Optional<ItemVersion> findVersion(long id) {
+		return entityManager.createQuery("select new " + ItemVersion.class.getName() + "(e.version, e.updatedTimestamp)"
+				+ " from ItemEntity e where e.id = :id", ItemVersion.class)
+				.setParameter("id", id)
+				.getResultList().stream().findFirst();
+	}
+	
+	
+	/**
+	 * Updates the name and description of an item in one statement if it is at the
+	 * expected version, incrementing the version and setting the updated timestamp.
+	 *
+	 * @param entity the entity with the id, new values and updated timestamp
+	 * @param expectedVersion the expected version
+	 * @return the number of updated rows, 0 if the item does not exist or is at another version
+	 */
+	public int updateIfVersion(ItemEntity entity, long expectedVersion) {
+		return entityManager.createQuery("update ItemEntity e set e.name = :name, e.description = :description,"
+				+ " e.version = e.version + 1, e.updatedTimestamp = :updatedTimestamp where e.id = :id and e.version = :version")
+				.setParameter("name", entity.getName())
+				.setParameter("description", entity.getDescription())
+				.setParameter("updatedTimestamp", entity.getUpdatedTimestamp())
+				.setParameter("id", entity.getId())
+				.setParameter("version", expectedVersion)
+				.executeUpdate();
+	}
+	
+	
+	/**
+	 * Finds which of the ids exist, without loading the items.
+	 *
+	 * @param ids the ids
+	 * @return the existing ids
+	 */
+	public List<Long> findExistingIds(Collection<Long> ids) {
+		return entityManager.createQuery("select e.id from ItemEntity e where e.id in :ids", Long.class)
+				.setParameter("ids", ids)
+				.getResultList();
+	}
+	
+	
+	/**
+	 * Deletes the items with the given ids in one statement, without loading them.
+	 *
+	 * @param ids the ids
+	 * @return the number of deleted items
+	 */
+	public int deleteAllById(Collection<Long> ids) {
+		return entityManager.createQuery("delete from ItemEntity e where e.id in :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+	}
+	
+	
+	/**
+	 * Passes every item, in id order, to the consumer.  The items are read through a
+	 * forward only cursor of a stateless session, fetch size rows at a time, and are
+	 * not kept after the consumer returns, so memory does not grow with the table.
+	 *
+	 * @param fetchSize the number of rows fetched per round trip
+	 * @param consumer the consumer
+	 */
+	public void forEach(int fetchSize, Consumer<ItemEntity> consumer) {
+		StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+		try {
+			ScrollableResults results = session.createQuery("select e from ItemEntity e order by e.id", ItemEntity.class)
+					.setFetchSize(fetchSize)
+					.setReadOnly(true)
+					.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while(results.next()) {
+					consumer.accept((ItemEntity) results.get(0));
+				}
+			}
+			finally {
+				results.close();
+			}
+		}
+		finally {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.github.michaelsteven.archetype.quarkus.items.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.OutboxEntity;
+
+
+/**
+ * Claiming and removal of item outbox entries.
+ */
+@ApplicationScoped
+public class OutboxRepository {
+
+	/** The entity manager. */
+	@Inject
+	EntityManager entityManager;
+	
+	
+	/**
+	 * Claims the oldest entries for the current transaction.  The lock clause locks the
+	 * returned rows and skips rows locked by other transactions, so concurrent relays
+	 * claim disjoint batches instead of waiting for each other.
+	 *
+	 * @param limit the maximum number of entries
+	 * @param lockClause the lock clause appended to the select
+	 * @return the entries, in id order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<OutboxEntity> claim(int limit, String lockClause) {
+		return entityManager.createNativeQuery("SELECT id, item_id, change_type, payload, created_ts FROM item_outbox"
+				+ " ORDER BY id FETCH FIRST " + limit + " ROWS ONLY " + lockClause, OutboxEntity.class)
+				.getResultList();
+	}
+	
+	
+	/**
+	 * Deletes the entries with the given ids in one statement.
+	 *
+	 * @param ids the ids
+	 * @return the number of deleted entries
+	 */
+	public int deleteAllById(Collection<Long> ids) {
+		return entityManager.createQuery("delete from OutboxEntity e where e.id in :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,512 @@
+package com.github.michaelsteven.archetype.quarkus.items.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutbox;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.db2client.DB2Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Transaction;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+
+/**
+ * Non blocking access to the items table through the reactive DB2 client.  The
+ * statements run on the vert.x event loop, so no thread is held while DB2 works.
+ * Timestamps are converted in the default time zone, the same way hibernate stores
+ * them, so rows written here and through {@link ItemRepository} read back alike.
+ */
+@ApplicationScoped
+public class ReactiveItemRepository {
+	
+	/** The selected columns, in the order read by {@link #toEntity(Row)}. */
+	private static final String COLUMNS = "id, name, description, created_ts, version, updated_ts";
+	
+	/** The update of the modifiable columns, incrementing the version as hibernate does. */
+	private static final String UPDATE = "UPDATE items SET name = ?, description = ?, version = version + 1, updated_ts = ? WHERE id = ?";
+	
+	/** The delete by id. */
+	private static final String DELETE = "DELETE FROM items WHERE id = ?";
+	
+	/** The insert of an outbox entry, the same row {@link ItemOutbox} persists. */
+	private static final String INSERT_OUTBOX = "INSERT INTO item_outbox (id, item_id, change_type, payload, created_ts)"
+			+ " VALUES (NEXT VALUE FOR item_outbox_seq, ?, ?, ?, ?)";
+	
+	/** The columns of the entity properties that can be sorted on. */
+	private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+	
+	static {
+		SORT_COLUMNS.put("id", "id");
+		SORT_COLUMNS.put("name", "name");
+		SORT_COLUMNS.put("createdTimestamp", "created_ts");
+	}
+	
+	/** The pool. */
+	@Inject
+	DB2Pool pool;
+	
+	/** The item outbox, for the payload of the entries. */
+	@Inject
+	ItemOutbox itemOutbox;
+	
+	/** The number of rows written per statement by the bulk operations. */
+	@ConfigProperty(name = "items.bulk.batch-size", defaultValue = "50")
+	int batchSize;
+	
+	
+	/**
+	 * Checks whether an entity property can be sorted on.
+	 *
+	 * @param property the property
+	 * @return true, if it can
+	 */
+	public static boolean isSortable(String property) {
+		return SORT_COLUMNS.containsKey(property);
+	}
+	
+	
+	/**
+	 * Find by id.
+	 *
+	 * @param id the id
+	 * @return the item, empty if there is none
+	 */
+	public Uni<Optional<ItemEntity>> findById(long id) {
+		return pool.preparedQuery("SELECT " + COLUMNS + " FROM items WHERE id = ?")
+				.execute(Tuple.of(id))
+				.map(ReactiveItemRepository::first);
+	}
+	
+	
+	/**
+	 * Finds one page of items.
+	 *
+	 * @param sort the sort, on sortable properties only
+	 * @param offset the number of items to skip
+	 * @param limit the maximum number of items to return
+	 * @return the items
+	 */
+	public Multi<ItemEntity> findAll(Sort sort, long offset, int limit) {
+		StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM items ORDER BY ");
+		for (Sort.Order order : sort) {
+			sql.append(column(order.getProperty())).append(order.isAscending() ? " ASC" : " DESC").append(", ");
+		}
+		sql.append("id OFFSET ").append(offset).append(" ROWS FETCH FIRST ").append(limit).append(" ROWS ONLY");
+		return stream(pool.query(sql.toString()).execute());
+	}
+	
+	
+	/**
+	 * Counts the items.
+	 *
+	 * @return the count
+	 */
+	public Uni<Long> count() {
+		return pool.query("SELECT COUNT(*) FROM items").execute()
+				.map(rows -> rows.iterator().next().getLong(0));
+	}
+	
+	
+	/**
+	 * Finds the items that follow the given position in (property, id) order, the
+	 * same seek as {@link ItemQueryRepository#findAfter(String, boolean, Object, Long, int)}.
+	 *
+	 * @param property the entity property to sort on
+	 * @param ascending whether the sort is ascending
+	 * @param lastKey the property value of the last item of the previous page
+	 * @param lastId the id of the last item of the previous page, null for the first page
+	 * @param limit the maximum number of items to return
+	 * @return the items
+	 */
+	public Multi<ItemEntity> findAfter(String property, boolean ascending, Object lastKey, Long lastId, int limit) {
+		String column = column(property);
+		String direction = ascending ? " ASC" : " DESC";
+		String comparison = ascending ? " > " : " < ";
+		boolean sortById = "id".equals(column);
+	
+		StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM items");
+		Tuple params = Tuple.tuple();
+		if(null != lastId) {
+			if(sortById) {
+				sql.append(" WHERE id").append(comparison).append("?");
+			}
+			else if(null == lastKey) {
+				sql.append(" WHERE ").append(column).append(" IS NULL AND id").append(comparison).append("?");
+			}
+			else {
+				sql.append(" WHERE (").append(column).append(comparison).append("?")
+					.append(" OR (").append(column).append(" = ? AND id").append(comparison).append("?)")
+					.append(" OR ").append(column).append(" IS NULL)");
+				Object key = toColumnValue(lastKey);
+				params.addValue(key).addValue(key);
+			}
+			params.addLong(lastId);
+		}
+		sql.append(" ORDER BY ");
+		if(!sortById) {
+			sql.append(column).append(direction).append(" NULLS LAST, ");
+		}
+		sql.append("id").append(direction).append(" FETCH FIRST ").append(limit).append(" ROWS ONLY");
+		return stream(pool.preparedQuery(sql.toString()).execute(params));
+	}
+	
+	
+	/**
+	 * Inserts an item and its outbox entry in one transaction.  The id is taken from the items
+	 * sequence; each value is the top of a block hibernate never hands out, so ids drawn here
+	 * and by hibernate do not collide.
+	 *
+	 * @param entity the entity, the id and created timestamp are set on it
+	 * @return the entity
+	 */
+	public Uni<ItemEntity> insert(ItemEntity entity) {
+		return insertAll(Collections.singletonList(entity)).map(entities -> entity);
+	}
+	
+	
+	/**
+	 * Inserts items and their outbox entries in one transaction, with one multi row insert
+	 * per batch size items.
+	 *
+	 * @param entities the entities, the ids are set on them
+	 * @return the entities
+	 */
+	public Uni<List<ItemEntity>> insertAll(List<ItemEntity> entities) {
+		return inTransaction(tx -> insertAll(tx, entities)
+				.onItem().transformToUni(inserted -> insertOutbox(tx, ItemChangeType.created, inserted).map(ignored -> inserted)));
+	}
+	
+	
+	/**
+	 * Updates the name and description of an item, reading the updated row back in the same
+	 * statement, and records the change in the outbox in the same transaction.
+	 *
+	 * @param entity the entity
+	 * @return the updated item, empty if there is none
+	 */
+	public Uni<Optional<ItemEntity>> update(ItemEntity entity) {
+		return inTransaction(tx -> tx.preparedQuery("SELECT " + COLUMNS + " FROM FINAL TABLE (" + UPDATE + ")")
+				.execute(toUpdateParams(entity))
+				.map(ReactiveItemRepository::first)
+				.onItem().transformToUni(updated -> insertOutbox(tx, ItemChangeType.updated,
+						updated.map(Collections::singletonList).orElse(Collections.emptyList()))
+						.map(ignored -> updated)));
+	}
+	
+	
+	/**
+	 * Updates the name and description of items in one transaction and one batch, with their outbox entries.
+	 *
+	 * @param entities the entities
+	 * @return the updated items by id, without the ids that do not exist
+	 */
+	public Uni<Map<Long, ItemEntity>> updateAll(List<ItemEntity> entities) {
+		List<Tuple> batch = entities.stream().map(ReactiveItemRepository::toUpdateParams).collect(Collectors.toList());
+		return inTransaction(tx -> executeBatch(tx, UPDATE, batch)
+				.onItem().transformToUni(ids -> findAllById(tx, ids))
+				.onItem().transformToUni(updated -> insertOutbox(tx, ItemChangeType.updated, updated.values()).map(ignored -> updated)));
+	}
+	
+	
+	/**
+	 * Delete by id, recording the deletion in the outbox in the same transaction.
+	 *
+	 * @param id the id
+	 * @return true, if the item existed
+	 */
+	public Uni<Boolean> deleteById(long id) {
+		return deleteAllById(Collections.singletonList(id)).map(deleted -> !deleted.isEmpty());
+	}
+	
+	
+	/**
+	 * Deletes items in one transaction and one batch, with their outbox entries.
+	 *
+	 * @param ids the ids
+	 * @return the ids of the items that existed and were deleted
+	 */
+	public Uni<Set<Long>> deleteAllById(List<Long> ids) {
+		List<Tuple> batch = ids.stream().map(id -> Tuple.of(id)).collect(Collectors.toList());
+		return inTransaction(tx -> executeBatch(tx, DELETE, batch)
+				.onItem().transformToUni(deleted -> insertOutbox(tx, deleted).map(ignored -> deleted)));
+	}
+	
+	
+	/**
+	 * Loads the items with the given ids, one query per batch size ids.
+	 *
+	 * @param client the client
+	 * @param ids the ids
+	 * @return the items by id
+	 */
+	private Uni<Map<Long, ItemEntity>> findAllById(SqlClient client, Set<Long> ids) {
+		List<Long> idList = new ArrayList<>(ids);
+		List<List<Long>> chunks = new ArrayList<>();
+		for (int start = 0; start < idList.size(); start += batchSize) {
+			chunks.add(idList.subList(start, Math.min(start + batchSize, idList.size())));
+		}
+		return Multi.createFrom().iterable(chunks)
+				.onItem().transformToMultiAndConcatenate(chunk -> {
+					String placeholders = chunk.stream().map(id -> "?").collect(Collectors.joining(", "));
+					return stream(client.preparedQuery("SELECT " + COLUMNS + " FROM items WHERE id IN (" + placeholders + ")")
+							.execute(Tuple.tuple(new ArrayList<Object>(chunk))));
+				})
+				.collectItems().in(HashMap::new, (map, entity) -> map.put(entity.getId(), entity));
+	}
+	
+	
+	/**
+	 * Inserts items, one statement per batch size items.  The ids are read back from the
+	 * inserted rows in input order.
+	 *
+	 * @param client the client
+	 * @param entities the entities
+	 * @return the entities
+	 */
+	private Uni<List<ItemEntity>> insertAll(SqlClient client, List<ItemEntity> entities) {
+		List<List<ItemEntity>> chunks = new ArrayList<>();
+		for (int start = 0; start < entities.size(); start += batchSize) {
+			chunks.add(entities.subList(start, Math.min(start + batchSize, entities.size())));
+		}
+		return Multi.createFrom().iterable(chunks)
+				.onItem().transformToUniAndConcatenate(chunk -> insertChunk(client, chunk))
+				.collectItems().last()
+				.map(ignored -> entities);
+	}
+	
+	
+	/**
+	 * Inserts one chunk of items with a single multi row insert.
+	 *
+	 * @param client the client
+	 * @param chunk the chunk
+	 * @return the chunk
+	 */
+	private Uni<List<ItemEntity>> insertChunk(SqlClient client, List<ItemEntity> chunk) {
+		StringBuilder sql = new StringBuilder("SELECT id FROM FINAL TABLE (INSERT INTO items (").append(COLUMNS).append(") VALUES ");
+		Tuple params = Tuple.tuple();
+		for (int i = 0; i < chunk.size(); i++) {
+			ItemEntity entity = chunk.get(i);
+			sql.append(i == 0 ? "" : ", ").append("(NEXT VALUE FOR items_seq, ?, ?, ?, 0, ?)");
+			params.addString(entity.getName()).addString(entity.getDescription())
+				.addValue(toColumnValue(entity.getCreatedTimestamp())).addValue(toColumnValue(entity.getCreatedTimestamp()));
+		}
+		sql.append(") ORDER BY INPUT SEQUENCE");
+		return client.preparedQuery(sql.toString()).execute(params)
+				.map(rows -> {
+					int i = 0;
+					for (Row row : rows) {
+						ItemEntity entity = chunk.get(i++);
+						entity.setId(row.getLong(0));
+						entity.setVersion(0L);
+						entity.setUpdatedTimestamp(entity.getCreatedTimestamp());
+					}
+					return chunk;
+				});
+	}
+	
+	
+	/**
+	 * Inserts the outbox entries of created or updated items in one batch.
+	 *
+	 * @param client the client
+	 * @param type the type of change
+	 * @param entities the entities after the change
+	 * @return emits once the entries are inserted
+	 */
+	private Uni<Void> insertOutbox(SqlClient client, ItemChangeType type, Collection<ItemEntity> entities) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Tuple> batch = entities.stream()
+				.map(entity -> Tuple.tuple().addLong(entity.getId()).addString(type.name())
+						.addString(itemOutbox.payload(entity)).addValue(now))
+				.collect(Collectors.toList());
+		return insertOutbox(client, batch);
+	}
+	
+	
+	/**
+	 * Inserts the outbox entries of deleted items in one batch.
+	 *
+	 * @param client the client
+	 * @param ids the ids of the deleted items
+	 * @return emits once the entries are inserted
+	 */
+	private Uni<Void> insertOutbox(SqlClient client, Collection<Long> ids) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Tuple> batch = ids.stream()
+				.map(id -> Tuple.tuple().addLong(id).addString(ItemChangeType.deleted.name()).addValue(null).addValue(now))
+				.collect(Collectors.toList());
+		return insertOutbox(client, batch);
+	}
+	
+	
+	/**
+	 * Executes the outbox insert once per tuple.
+	 *
+	 * @param client the client
+	 * @param batch the batch
+	 * @return emits once the entries are inserted
+	 */
+	private Uni<Void> insertOutbox(SqlClient client, List<Tuple> batch) {
+		if(batch.isEmpty()) {
+			return Uni.createFrom().voidItem();
+		}
+		return client.preparedQuery(INSERT_OUTBOX).executeBatch(batch).map(ignored -> null);
+	}
+	
+	
+	/**
+	 * Executes a statement once per tuple, the last value of each tuple being the id.
+	 *
+	 * @param client the client
+	 * @param sql the sql
+	 * @param batch the batch
+	 * @return the ids whose execution affected a row
+	 */
+	private Uni<Set<Long>> executeBatch(SqlClient client, String sql, List<Tuple> batch) {
+		if(batch.isEmpty()) {
+			return Uni.createFrom().item(Collections.emptySet());
+		}
+		return client.preparedQuery(sql).executeBatch(batch)
+				.map(rows -> {
+					Set<Long> affected = new LinkedHashSet<>();
+					RowSet<Row> result = rows;
+					for (Tuple tuple : batch) {
+						if(null != result && result.rowCount() > 0) {
+							affected.add(tuple.getLong(tuple.size() - 1));
+						}
+						result = null == result ? null : result.next();
+					}
+					return affected;
+				});
+	}
+	
+	
+	/**
+	 * Runs the work in a transaction, committed when the work succeeds and rolled back when it fails.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result
+	 */
+	private <T> Uni<T> inTransaction(Function<Transaction, Uni<T>> work) {
+		return pool.begin().onItem().transformToUni(tx -> work.apply(tx)
+				.onItem().transformToUni(result -> tx.commit().map(ignored -> result))
+				.onFailure().recoverWithUni(failure -> tx.rollback()
+						.onItemOrFailure().transformToUni((ignored, rollbackFailure) -> Uni.createFrom().<T>failure(failure))));
+	}
+	
+	
+	/**
+	 * Streams the rows of a result as entities.
+	 *
+	 * @param rows the rows
+	 * @return the entities
+	 */
+	private Multi<ItemEntity> stream(Uni<RowSet<Row>> rows) {
+		return rows.onItem().transformToMulti(rowSet -> Multi.createFrom().iterable(rowSet))
+				.map(ReactiveItemRepository::toEntity);
+	}
+	
+	
+	/**
+	 * Gets the first row of a result as an entity.
+	 *
+	 * @param rows the rows
+	 * @return the item, empty if there are no rows
+	 */
+	private static Optional<ItemEntity> first(RowSet<Row> rows) {
+		RowIterator<Row> iterator = rows.iterator();
+		return iterator.hasNext() ? Optional.of(toEntity(iterator.next())) : Optional.empty();
+	}
+	
+	
+	/**
+	 * Gets the column of a sortable property.
+	 *
+	 * @param property the property
+	 * @return the column
+	 */
+	private static String column(String property) {
+		String column = SORT_COLUMNS.get(property);
+		if(null == column) {
+			throw new IllegalArgumentException("Can not sort on " + property);
+		}
+		return column;
+	}
+	
+	
+	/**
+	 * Converts a property value to the value bound to its column.
+	 *
+	 * @param value the value
+	 * @return the column value
+	 */
+	private static Object toColumnValue(Object value) {
+		if(value instanceof Instant) {
+			return LocalDateTime.ofInstant((Instant) value, ZoneId.systemDefault());
+		}
+		return value;
+	}
+	
+	
+	/**
+	 * Gets the parameters of the update of an item.
+	 *
+	 * @param entity the entity
+	 * @return the parameters
+	 */
+	private static Tuple toUpdateParams(ItemEntity entity) {
+		return Tuple.of(entity.getName(), entity.getDescription(), toColumnValue(Instant.now()), entity.getId());
+	}
+	
+	
+	/**
+	 * Converts a row to an entity.
+	 *
+	 * @param row the row
+	 * @return the item entity
+	 */
+	private static ItemEntity toEntity(Row row) {
+		ItemEntity entity = new ItemEntity();
+		entity.setId(row.getLong(0));
+		entity.setName(row.getString(1));
+		entity.setDescription(row.getString(2));
+		LocalDateTime created = row.getLocalDateTime(3);
+		if(null != created) {
+			entity.setCreatedTimestamp(created.atZone(ZoneId.systemDefault()).toInstant());
+		}
+		entity.setVersion(row.getLong(4));
+		LocalDateTime updated = row.getLocalDateTime(5);
+		if(null != updated) {
+			entity.setUpdatedTimestamp(updated.atZone(ZoneId.systemDefault()).toInstant());
+		}
+		return entity;
+	}
+}
@@ -0,0 +1,250 @@
+package com.github.michaelsteven.archetype.quarkus.items.resource;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
+
+import com.github.michaelsteven.archetype.quarkus.items.configuration.BinaryFormatProvider;
+import com.github.michaelsteven.archetype.quarkus.items.interceptor.CompressionInterceptor;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+/**
+ * Entity tags and the evaluation of the If-None-Match and If-Modified-Since
+ * preconditions of conditional GETs and of the If-Match precondition of PUTs.  Evaluated on the headers rather than
+ * through {@link javax.ws.rs.core.Request}, which is bound to the request thread
+ * and so not usable from offloaded work.
+ * <p>
+ * JSON, CBOR and Smile are different representations of the same content, so the
+ * tags of the binary formats end in -cbor or -smile.  The tags a client sends back
+ * may carry the suffix of the gzipped representation as well,
+ * {@link CompressionInterceptor#TAG_SUFFIX}, which is ignored.
+ */
+final class EntityTags {
+
+	/** The FNV-1a 64 bit offset basis. */
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	/** The FNV-1a 64 bit prime. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The representations of the items, JSON first as the default. */
+	private static final List<Variant> VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+			MediaType.valueOf(BinaryFormatProvider.APPLICATION_CBOR), MediaType.valueOf(BinaryFormatProvider.APPLICATION_SMILE)).build();
+
+	private EntityTags() {
+	}
+
+
+	/**
+	 * Gets the media type the response to a request is written in.  Must be called
+	 * on the request thread.
+	 *
+	 * @param request the request
+	 * @return the media type, JSON when the Accept header allows none of them
+	 */
+	static MediaType mediaType(Request request) {
+		Variant variant = request.selectVariant(VARIANTS);
+		return null == variant ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+	}
+
+
+	/**
+	 * Gets the strong entity tag of an item version.
+	 *
+	 * @param version the version
+	 * @param mediaType the media type of the representation
+	 * @return the entity tag, null if there is no version
+	 */
+	static EntityTag strong(Long version, MediaType mediaType) {
+		return null == version ? null : new EntityTag(version + suffix(mediaType));
+	}
+
+
+	/**
+	 * Gets the weak entity tag of a page, a hash of the ids and versions of its
+	 * items and of the page properties that are rendered with them.
+	 *
+	 * @param mediaType the media type of the representation
+	 * @param content the items of the page
+	 * @param properties the page properties, such as number, size and total
+	 * @return the entity tag
+	 */
+	static EntityTag weak(MediaType mediaType, List<ItemDto> content, Object... properties) {
+		long hash = FNV_OFFSET;
+		for (ItemDto itemDto : content) {
+			hash = mix(hash, null == itemDto.getId() ? 0 : itemDto.getId());
+			hash = mix(hash, null == itemDto.getVersion() ? -1 : itemDto.getVersion());
+		}
+		for (Object property : properties) {
+			hash = mix(hash, null == property ? 0 : property.hashCode());
+		}
+		return new EntityTag(Long.toHexString(hash) + suffix(mediaType), true);
+	}
+
+
+	/**
+	 * Checks whether a conditional GET can be answered with 304.  If-None-Match is
+	 * compared weakly and, when present, decides alone; otherwise If-Modified-Since
+	 * is compared with the last modification, to the second.
+	 *
+	 * @param ifNoneMatch the If-None-Match header, may be null
+	 * @param ifModifiedSince the If-Modified-Since header, may be null
+	 * @param tag the current entity tag, may be null
+	 * @param lastModified the last modification, may be null
+	 * @return true, if not modified
+	 */
+	static boolean notModified(String ifNoneMatch, String ifModifiedSince, EntityTag tag, Instant lastModified) {
+		if(null != ifNoneMatch) {
+			return null != tag && matches(ifNoneMatch, tag);
+		}
+		if(null == ifModifiedSince || null == lastModified) {
+			return false;
+		}
+		try {
+			Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+			return lastModified.getEpochSecond() <= since.getEpochSecond();
+		}
+		catch(DateTimeParseException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Gets the version an If-Match header requires, whatever representation the tag
+	 * was sent with.  If-Match is compared strongly, so a weak or unparseable tag, or
+	 * a list of several, yields -1, a version no item is at, and the update fails its
+	 * precondition.
+	 *
+	 * @param ifMatch the If-Match header, may be null
+	 * @return the version, null if the header is absent or *
+	 */
+	static Long expectedVersion(String ifMatch) {
+		if(null == ifMatch || "*".equals(ifMatch.trim())) {
+			return null;
+		}
+		String trimmed = ifMatch.trim();
+		if(trimmed.length() < 2 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+			return -1L;
+		}
+		String value = trimmed.substring(1, trimmed.length() - 1);
+		int suffix = value.indexOf('-');
+		try {
+			return Long.valueOf(suffix < 0 ? value : value.substring(0, suffix));
+		}
+		catch(NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+
+	/**
+	 * Builds a 304 response with the validators of the current representation.
+	 *
+	 * @param tag the entity tag, may be null
+	 * @param lastModified the last modification, may be null
+	 * @return the response
+	 */
+	static Response notModifiedResponse(EntityTag tag, Instant lastModified) {
+		return withValidators(Response.notModified(), tag, lastModified).build();
+	}
+
+
+	/**
+	 * Adds the ETag and Last-Modified headers to a response.
+	 *
+	 * @param builder the builder
+	 * @param tag the entity tag, may be null
+	 * @param lastModified the last modification, may be null
+	 * @return the builder
+	 */
+	static Response.ResponseBuilder withValidators(Response.ResponseBuilder builder, EntityTag tag, Instant lastModified) {
+		if(null != tag) {
+			builder.tag(tag);
+		}
+		if(null != lastModified) {
+			builder.lastModified(Date.from(lastModified));
+		}
+		return builder;
+	}
+
+
+	/**
+	 * Checks whether an If-None-Match header lists the tag, ignoring weakness.
+	 *
+	 * @param ifNoneMatch the header
+	 * @param tag the tag
+	 * @return true, if it matches
+	 */
+	private static boolean matches(String ifNoneMatch, EntityTag tag) {
+		String value = tag.getValue();
+		for (String candidate : ifNoneMatch.split(",")) {
+			String trimmed = candidate.trim();
+			if("*".equals(trimmed)) {
+				return true;
+			}
+			if(trimmed.startsWith("W/")) {
+				trimmed = trimmed.substring(2);
+			}
+			if(trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")
+					&& value.equals(withoutSuffix(trimmed.substring(1, trimmed.length() - 1)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Gets the suffix of the entity tags of a media type.
+	 *
+	 * @param mediaType the media type
+	 * @return the suffix, empty for JSON
+	 */
+	private static String suffix(MediaType mediaType) {
+		if(mediaType.isCompatible(MediaType.valueOf(BinaryFormatProvider.APPLICATION_CBOR))) {
+			return "-cbor";
+		}
+		if(mediaType.isCompatible(MediaType.valueOf(BinaryFormatProvider.APPLICATION_SMILE))) {
+			return "-smile";
+		}
+		return "";
+	}
+
+
+	/**
+	 * Strips the suffix of the gzipped representation from an entity tag value.
+	 *
+	 * @param value the value
+	 * @return the value of the identity representation
+	 */
+	private static String withoutSuffix(String value) {
+		return value.endsWith(CompressionInterceptor.TAG_SUFFIX)
+				? value.substring(0, value.length() - CompressionInterceptor.TAG_SUFFIX.length()) : value;
+	}
+
+
+	/**
+	 * Mixes a value into a FNV-1a hash, one byte at a time.
+	 *
+	 * @param hash the hash
+	 * @param value the value
+	 * @return the hash
+	 */
+	private static long mix(long hash, long value) {
+		for (int shift = 0; shift < 64; shift += 8) {
+			hash ^= (value >>> shift) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+}
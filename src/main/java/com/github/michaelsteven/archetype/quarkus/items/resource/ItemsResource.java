@@ -1,21 +1,41 @@
 package com.github.michaelsteven.archetype.quarkus.items.resource;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.validation.ValidationException;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.enums.SecuritySchemeType;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
@@ -32,14 +52,41 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.michaelsteven.archetype.quarkus.items.configuration.BinaryFormatProvider;
+import com.github.michaelsteven.archetype.quarkus.items.execution.BlockingExecutor;
+import com.github.michaelsteven.archetype.quarkus.items.interceptor.Compressed;
 import com.github.michaelsteven.archetype.quarkus.items.interceptor.TraceLog;
 import com.github.michaelsteven.archetype.quarkus.items.model.ApiError;
 import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountStrategy;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountedPage;
+import com.github.michaelsteven.archetype.quarkus.items.model.DeleteSummaryDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ImportSummaryDto;
 import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemVersion;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
 import com.github.michaelsteven.archetype.quarkus.items.service.ItemsService;
 
+import io.micrometer.core.annotation.Timed;
+
 
 /**
  * The Class ItemsResource.
@@ -48,6 +95,7 @@ import com.github.michaelsteven.archetype.quarkus.items.service.ItemsService;
 @Tag(name = "Items", description = "The items api can be used to perform actions on Items")
 @Path("/api/v1/items")
 @TraceLog
+@Compressed
 public class ItemsResource {
 	
 	//public ItemsResource(ItemsService itemsService, MessageSource messageSource) {
@@ -55,10 +103,36 @@ public class ItemsResource {
 	//	this.messageSource = messageSource;
 	//}
 	
+	/** The media type of newline delimited json. */
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+	
+	/** The media type of comma separated values. */
+	public static final String TEXT_CSV = "text/csv";
+	
+	/** The response header that tells how the total of an offset page was found. */
+	public static final String COUNT_STRATEGY = "X-Count-Strategy";
+	
+	/** Reads items from csv with a header line, ignoring unknown columns. */
+	private static final ObjectReader CSV_READER = new CsvMapper()
+			.readerFor(ItemDto.class)
+			.with(CsvSchema.emptySchema().withHeader());
+	
 	/** The items service. */
 	@Inject
 	ItemsService itemsService;
 	
+	/** The object mapper. */
+	@Inject
+	ObjectMapper objectMapper;
+	
+	/** Runs the blocking service calls, on the request thread or offloaded. */
+	@Inject
+	BlockingExecutor blockingExecutor;
+	
+	/** How offset pages are counted when the request does not say. */
+	@ConfigProperty(name = "items.count.default-strategy", defaultValue = "exact")
+	CountStrategy defaultCountStrategy;
+	
 	/** The message source. */
 	//private MessageSource messageSource;
 	
@@ -66,21 +140,84 @@ public class ItemsResource {
     /**
      * Gets the items.
      *
-     * @param pageable the pageable
+     * @param page the page
+     * @param size the size
+     * @param sort the sort
+     * @param paging the paging mode
+     * @param cursor the keyset continuation token
+     * @param fields the fields to return
+     * @param name the exact name
+     * @param namePrefix the start of the name
+     * @param createdFrom the earliest creation time
+     * @param createdTo the latest creation time, exclusive
+     * @param count how the total of an offset page is found
+     * @param ids the ids of the items to get instead of a page
+     * @param ifNoneMatch the entity tags of the pages the client holds
+     * @param request the request, for the media type of the response
      * @return the items
      */
-    @Operation(summary = "Retrieve items", description = "Use this API to retrieve a paginated collection of items.")
+    @Operation(summary = "Retrieve items", description = "Use this API to retrieve a paginated collection of items. "
+            + "The default offset paging returns page numbers and a total count. "
+            + "With paging=keyset, or when a cursor is given, each page seeks past the nextCursor of the previous page "
+            + "and no total count is returned, so deep pages cost the same as the first one. "
+            + "Pages carry a weak ETag; a request whose If-None-Match lists it is answered with 304 and no body. "
+            + "With fields, e.g. fields=id,name, only those fields are selected and returned; the id and version always are. "
+            + "The name, namePrefix, createdFrom and createdTo filters are applied by the database; "
+            + "keyset pages must be requested with the same filters as the first one. "
+            + "The total of an offset page is found as count says: exact runs a count query, cached reuses a count for items.count.cache.expire-after-write "
+            + "while adjusting it for the changes in between, approximate reads the table statistics of the database for unfiltered listings "
+            + "and is cached otherwise, and none returns a slice that only tells whether it is the last. "
+            + "The strategy used is returned in countStrategy and in the X-Count-Strategy header. "
+            + "With ids, e.g. ids=1,2,3, the items with those ids are returned as an array in that order instead of a page; "
+            + "ids that do not exist are left out.")
     @APIResponses(value = {
-            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(implementation = PageImpl.class))),
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(oneOf = { CountedPage.class, SliceImpl.class, KeysetPage.class, ItemDto[].class }))),
+            @APIResponse(responseCode = "304", description = "Not Modified", content = @Content(schema = @Schema(implementation = Void.class))),
             @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
             @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
     @SecurityRequirement(name = "jwt", scopes = {})
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getItems(@QueryParam @DefaultValue("0") int page, @QueryParam @DefaultValue("10") int size,  @QueryParam String[] sort){
-    	Pageable pageable = PageRequest.of(page, size , Sort.by(sort));
-    	Page<ItemDto> itemDtoPage = itemsService.getItems(pageable);
-    	return Response.status(200).entity(itemDtoPage).build();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> getItems(@QueryParam @DefaultValue("0") int page, @QueryParam @DefaultValue("10") int size,  @QueryParam String[] sort,
+    		@QueryParam @DefaultValue("offset") @Parameter(description = "offset or keyset") String paging,
+    		@QueryParam @Parameter(description = "The nextCursor of the previous keyset page") String cursor,
+    		@QueryParam @Parameter(description = "A comma separated list of the fields to return, e.g. id,name") String fields,
+    		@QueryParam @Parameter(description = "Only items with exactly this name") String name,
+    		@QueryParam @Parameter(description = "Only items whose name starts with this") String namePrefix,
+    		@QueryParam @Parameter(description = "Only items created at or after this ISO-8601 instant, e.g. 2021-01-31T12:00:00Z") String createdFrom,
+    		@QueryParam @Parameter(description = "Only items created before this ISO-8601 instant") String createdTo,
+    		@QueryParam @Parameter(description = "How the total of an offset page is found: exact, cached, approximate or none") String count,
+    		@QueryParam @Parameter(description = "A comma separated list of the ids of the items to get, e.g. 1,2,3") String ids,
+    		@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch, @Context Request request){
+    	MediaType mediaType = EntityTags.mediaType(request);
+    	if(null != ids) {
+    		List<Long> itemIds = parseIds(ids);
+    		return blockingExecutor.execute(() -> {
+    			List<ItemDto> itemDtos = itemsService.getItemsById(itemIds);
+    			return pageResponse(itemDtos, EntityTags.weak(mediaType, itemDtos, itemIds.toString()), ifNoneMatch);
+    		});
+    	}
+    	Set<ItemField> itemFields = ItemField.parse(fields);
+    	ItemFilter filter = ItemFilter.of(name, namePrefix, createdFrom, createdTo);
+    	if("keyset".equalsIgnoreCase(paging) || null != cursor) {
+    		return blockingExecutor.execute(() -> {
+    			KeysetPage<ItemDto> itemDtoPage = itemsService.getItems(cursor, size, toSort(sort), filter, itemFields);
+    			EntityTag tag = EntityTags.weak(mediaType, itemDtoPage.getContent(), itemDtoPage.getSize(), itemDtoPage.isHasNext(), itemDtoPage.getNextCursor(),
+    					itemFields.toString(), filter.toString());
+    			return pageResponse(itemDtoPage, tag, ifNoneMatch);
+    		});
+    	}
+    	Pageable pageable = PageRequest.of(page, size , toSort(sort));
+    	CountStrategy countStrategy = CountStrategy.parse(count, defaultCountStrategy);
+    	return blockingExecutor.execute(() -> {
+    		Slice<ItemDto> itemDtoPage = itemsService.getItems(pageable, filter, itemFields, countStrategy);
+    		CountStrategy used = itemDtoPage instanceof CountedPage ? ((CountedPage<ItemDto>) itemDtoPage).getCountStrategy() : CountStrategy.none;
+    		Object total = itemDtoPage instanceof Page ? ((Page<ItemDto>) itemDtoPage).getTotalElements() : itemDtoPage.hasNext();
+    		EntityTag tag = EntityTags.weak(mediaType, itemDtoPage.getContent(), itemDtoPage.getNumber(), itemDtoPage.getSize(),
+    				total, used.name(), itemDtoPage.getSort().toString(), itemFields.toString(), filter.toString());
+    		return Response.fromResponse(pageResponse(itemDtoPage, tag, ifNoneMatch)).header(COUNT_STRATEGY, used.name()).build();
+    	});
 	}
     
     
@@ -100,10 +237,281 @@ public class ItemsResource {
             @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
     //@PostMapping(API_PATH)
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response saveItem(@Valid @RequestBody @Parameter(description = "A new item", required = true) ItemDto itemDto){
-    	ConfirmationDto confirmationDto = itemsService.saveItem(itemDto);
-    	return Response.status(202).entity(confirmationDto).build();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> saveItem(@Valid @RequestBody @Parameter(description = "A new item", required = true) ItemDto itemDto){
+    	return blockingExecutor.execute(() -> {
+    		ConfirmationDto confirmationDto = itemsService.saveItem(itemDto);
+    		return Response.status(202).entity(confirmationDto).build();
+    	});
+    }
+    
+    
+    /**
+     * Save items.
+     *
+     * @param itemDtos the item dtos
+     * @return the response entity
+     */
+    @Operation(summary = "Submit new items in bulk", description = "Use this API to generate many new items in one transaction. "
+            + "The items are validated in one pass and written in JDBC batches. "
+            + "One confirmation is returned per item, in request order; items that failed validation have the status FAILED and are not saved. "
+            + "The response code is 207 when at least one item failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> saveItems(@RequestBody @Parameter(description = "The new items", required = true) List<ItemDto> itemDtos){
+    	return blockingExecutor.execute(() -> bulkResponse(itemsService.saveItems(itemDtos)));
+    }
+    
+    
+    /**
+     * Search items.
+     *
+     * @param q the query
+     * @param page the page
+     * @param size the size
+     * @return the items
+     */
+    @Operation(summary = "Search items", description = "Use this API to find items whose name or description holds any of the words of a query, "
+            + "best match first. The search runs on an in memory index of the items, not on the database; changes show up once committed. "
+            + "The items carry their id, name, description and version.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(implementation = PageImpl.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @GET
+    @Path("/search")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Page<ItemDto>> searchItems(@QueryParam @Parameter(description = "The words to search for", required = true) String q,
+    		@QueryParam @DefaultValue("0") int page, @QueryParam @DefaultValue("10") int size) {
+    	return blockingExecutor.execute(() -> itemsService.searchItems(q, PageRequest.of(page, size)));
+    }
+    
+    
+    /**
+     * Suggest items.
+     *
+     * @param prefix the prefix
+     * @param size the size
+     * @return the items
+     */
+    @Operation(summary = "Suggest items", description = "Use this API for typeahead: the items whose name starts with the prefix, "
+            + "in name order, followed by the items with a later word of the name starting with it. Served from the in memory search index.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ItemDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @GET
+    @Path("/suggest")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<List<ItemDto>> suggestItems(@QueryParam @Parameter(description = "The start of the name", required = true) String prefix,
+    		@QueryParam @DefaultValue("10") int size) {
+    	return blockingExecutor.execute(() -> itemsService.suggestItems(prefix, size));
+    }
+    
+    
+    /**
+     * Rebuild search index.
+     *
+     * @return the response entity
+     */
+    @Operation(summary = "Rebuilds the search index", description = "Use this API to rebuild the in memory search index from the database, "
+            + "e.g. after items were changed through the v2 api or directly in the database. The rebuild runs in the background; "
+            + "searches keep using the current index until it completes. The response is 409 while a rebuild is already running.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(implementation = Void.class))),
+            @APIResponse(responseCode = "409", description = "A rebuild is already running", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/search/rebuild")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> rebuildSearchIndex() {
+    	return blockingExecutor.execute(() -> {
+    		if(!itemsService.rebuildSearchIndex()) {
+    			String message = "A rebuild of the search index is already running";
+    			return Response.status(Response.Status.CONFLICT).entity(new ApiError(Response.Status.CONFLICT, message, message)).build();
+    		}
+    		return Response.accepted().build();
+    	});
+    }
+    
+    
+    /**
+     * Export items.  Not handed to the blocking executor: the items are read while the
+     * container writes the body, after this method returned, on the http worker.
+     *
+     * @return the response entity
+     */
+    @Operation(summary = "Export all items", description = "Use this API to download every item as newline delimited json, one item per line in id order. "
+            + "The items are written as they are read from the database, so the download starts right away and is not limited by memory.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(mediaType = APPLICATION_NDJSON, schema = @Schema(implementation = ItemDto.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @GET
+    @Path("/export")
+    @Produces(APPLICATION_NDJSON)
+    @Timed(value = "items.resource", histogram = true)
+    public Response exportItems() {
+    	StreamingOutput output = outputStream -> {
+    		JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+    		generator.setRootValueSeparator(null);
+    		ObjectWriter writer = objectMapper.writerFor(ItemDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    		boolean[] first = { true };
+    		try {
+    			itemsService.exportItems(itemDto -> {
+    				try {
+    					writer.writeValue(generator, itemDto);
+    					generator.writeRaw('\n');
+    					if(first[0]) {
+    						// send the first line right away, the rest goes out as the buffers fill
+    						generator.flush();
+    						first[0] = false;
+    					}
+    				}
+    				catch(IOException e) {
+    					throw new UncheckedIOException(e);
+    				}
+    			});
+    		}
+    		catch(UncheckedIOException e) {
+    			throw e.getCause();
+    		}
+    		generator.flush();
+    	};
+    	return Response.ok(output).header("Content-Disposition", "attachment; filename=\"items.ndjson\"").build();
+    }
+    
+    
+    /**
+     * Import items from newline delimited json.
+     *
+     * @param body the body
+     * @return the response entity
+     */
+    @Operation(summary = "Import items from newline delimited json", description = "Use this API to load a large number of items from a stream of "
+            + "newline delimited json, one item per line. The body is read, validated and saved as it arrives, in transactions of "
+            + "items.import.batch-size items. The summary counts the accepted items, the rejected lines that could not be parsed or "
+            + "failed validation, and the failed items of batches that could not be saved.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(implementation = ImportSummaryDto.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/import")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> importNdjson(@RequestBody(description = "One item per line", required = true) InputStream body) {
+    	BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    	ObjectReader itemReader = objectMapper.readerFor(ItemDto.class);
+    	return blockingExecutor.execute(() -> readBody(() -> itemsService.importItems(() -> {
+    		String line;
+    		do {
+    			line = lines.readLine();
+    		} while(null != line && line.trim().isEmpty());
+    		if(null == line) {
+    			return null;
+    		}
+    		ItemDto itemDto;
+    		try {
+    			itemDto = itemReader.readValue(line);
+    		}
+    		catch(JsonProcessingException e) {
+    			throw new ValidationException("Malformed json: " + e.getOriginalMessage());
+    		}
+    		if(null == itemDto) {
+    			throw new ValidationException("Cannot be null.");
+    		}
+    		return itemDto;
+    	})));
+    }
+    
+    
+    /**
+     * Import items from csv.
+     *
+     * @param body the body
+     * @return the response entity
+     */
+    @Operation(summary = "Import items from csv", description = "Use this API to load a large number of items from a stream of "
+            + "comma separated values, with a header line naming the name and description columns. The body is read, validated and "
+            + "saved as it arrives, in transactions of items.import.batch-size items. The summary counts the accepted items, the rejected "
+            + "rows that could not be parsed or failed validation, and the failed items of batches that could not be saved.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(implementation = ImportSummaryDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/import")
+    @Consumes(TEXT_CSV)
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> importCsv(@RequestBody(description = "A header line and one item per row", required = true) InputStream body) {
+    	return blockingExecutor.execute(() -> readBody(() -> {
+    		MappingIterator<ItemDto> rows = CSV_READER.readValues(body);
+    		return itemsService.importItems(() -> {
+    			try {
+    				return rows.hasNextValue() ? rows.nextValue() : null;
+    			}
+    			catch(JsonProcessingException e) {
+    				throw new ValidationException("Malformed csv: " + e.getOriginalMessage());
+    			}
+    		});
+    	}));
+    }
+    
+    
+    /**
+     * Purge items.
+     *
+     * @param body the body
+     * @return the response entity
+     */
+    @Operation(summary = "Purges items", description = "Use this API to delete a large number of items given a json array of ids. "
+            + "The body is read as it arrives and the ids are deleted in transactions of items.purge.batch-size ids, "
+            + "each with a single DELETE statement that does not load the items. The summary counts the ids read and the items deleted; "
+            + "ids that do not exist are skipped. Batches deleted before a failure stay deleted, so a failed purge can be repeated.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(implementation = DeleteSummaryDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/purge")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> purgeItems(@RequestBody(description = "A json array of ids", required = true) InputStream body) {
+    	return blockingExecutor.execute(() -> readBody(() -> {
+    		JsonParser parser = objectMapper.getFactory().createParser(body);
+    		if(JsonToken.START_ARRAY != parser.nextToken()) {
+    			throw new ValidationException("Expected a json array of ids");
+    		}
+    		return itemsService.purgeItems(() -> {
+    			JsonToken token = parser.nextToken();
+    			if(JsonToken.END_ARRAY == token) {
+    				return null;
+    			}
+    			if(JsonToken.VALUE_NUMBER_INT != token) {
+    				throw new ValidationException("Expected an id but found " + token);
+    			}
+    			return parser.getLongValue();
+    		});
+    	}));
     }
     
     
@@ -111,11 +519,18 @@ public class ItemsResource {
      * Gets the item by id.
      *
      * @param id the id
+     * @param ifNoneMatch the entity tags of the versions the client holds
+     * @param ifModifiedSince the last modification the client holds
+     * @param request the request, for the media type of the response
      * @return the item by id
      */
-    @Operation(summary = "Gets an item", description = "Use this API to retrieve an existing item.")
+    @Operation(summary = "Gets an item", description = "Use this API to retrieve an existing item. "
+            + "The response carries a strong ETag, the item version, and a Last-Modified header. "
+            + "A request whose If-None-Match lists the current ETag, or whose If-Modified-Since is not older than the last change, "
+            + "is answered with 304 and no body after looking up only the version.")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = ItemDto.class))),
+            @APIResponse(responseCode = "304", description = "Not Modified", content = @Content(schema = @Schema(implementation = Void.class))),
             @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
             @APIResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = Void.class))),
             @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
@@ -123,35 +538,60 @@ public class ItemsResource {
     //@GetMapping(API_PATH + "/{id}")
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getItemById(@PathParam Long id){
-    	Optional<ItemDto> optionalResponse = itemsService.getItemById(id);
-    	return optionalResponse.map(response -> Response.ok(response).build())
-    			.orElse(Response.status(404).build());
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> getItemById(@PathParam Long id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+    		@HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince, @Context Request request){
+    	MediaType mediaType = EntityTags.mediaType(request);
+    	return blockingExecutor.execute(() -> {
+    		if(null != ifNoneMatch || null != ifModifiedSince) {
+    			Optional<ItemVersion> itemVersion = itemsService.getItemVersion(id);
+    			if(itemVersion.isPresent()) {
+    				EntityTag tag = EntityTags.strong(itemVersion.get().getVersion(), mediaType);
+    				Instant lastModified = itemVersion.get().getLastModified();
+    				if(EntityTags.notModified(ifNoneMatch, ifModifiedSince, tag, lastModified)) {
+    					return EntityTags.notModifiedResponse(tag, lastModified);
+    				}
+    			}
+    		}
+    		Optional<ItemDto> optionalResponse = itemsService.getItemById(id);
+    		return optionalResponse.map(response -> EntityTags.withValidators(Response.ok(response), EntityTags.strong(response.getVersion(), mediaType),
+    					null == response.getDateModified() ? null : response.getDateModified().toInstant()).build())
+    				.orElse(Response.status(404).build());
+    	});
     }
     
     
     /**
-     * Edits the item.
+     * Edits the item.  With an If-Match header, or else a version in the body, the item
+     * is updated in one statement only while it is at that version.
      *
      * @param id the id
+     * @param ifMatch the if match
      * @param itemDto the item dto
+     * @param request the request, for the media type of the response
      * @return the response entity
      */
     @Operation(summary = "Modifies an item", description = "Use this API to modify an item. "
             + "In some cases this PUT method may return a 202 ACCEPTED response code, "
             + "in which case the data returned will contain a status code, and an identifier. "
-            + "The identifier can then be used in subsequent GET calls to obtain the item at a later time.")
+            + "The identifier can then be used in subsequent GET calls to obtain the item at a later time. "
+            + "Send the ETag of the item as If-Match, or its version in the body, to modify it only while it is at that version; "
+            + "otherwise 412 is returned with the current ETag. A concurrent modification returns 409.")
     @APIResponses(value = {
             @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(implementation = ConfirmationDto.class))),
             @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "409", description = "Modified concurrently", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "412", description = "Version precondition failed", content = @Content(schema = @Schema(implementation = ApiError.class))),
             @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
     @SecurityRequirement(name = "jwt", scopes = {})
     //@PutMapping(API_PATH + "/{id}")
     @PUT
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response editItem(@PathParam long id, @Valid @RequestBody @Parameter(description = "A modified item", required = true) ItemDto itemDto){
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> editItem(@PathParam long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+    		@Valid @RequestBody @Parameter(description = "A modified item", required = true) ItemDto itemDto, @Context Request request){
     	if( itemDto.getId() != null && id != itemDto.getId().longValue()) {
     		//String message = messageSource.getMessage("itemscontroller.validationexception.pathiddoesntmatchobject", 
     		//		new Object[] { String.valueOf(id), String.valueOf(itemDto.getId())},
@@ -159,17 +599,48 @@ public class ItemsResource {
     		String message = "ID in path does not match ID in object";
     		throw new ValidationException(message);
     	}
+    	itemDto.setId(id);
+    	Long expectedVersion = null == ifMatch ? itemDto.getVersion() : EntityTags.expectedVersion(ifMatch);
+    	MediaType mediaType = EntityTags.mediaType(request);
     	
-    	ConfirmationDto confirmationDto = itemsService.editItem(itemDto);
-    	return Response.status(202).entity(confirmationDto).build();
+    	return blockingExecutor.execute(() -> {
+    		ConfirmationDto confirmationDto = null == expectedVersion ? itemsService.editItem(itemDto)
+    				: itemsService.editItem(itemDto, expectedVersion);
+    		return EntityTags.withValidators(Response.status(202).entity(confirmationDto),
+    				EntityTags.strong(confirmationDto.getVersion(), mediaType), null).build();
+    	});
     }
     
    
+    /**
+     * Edits items.
+     *
+     * @param itemDtos the item dtos
+     * @return the response entity
+     */
+    @Operation(summary = "Modifies items in bulk", description = "Use this API to modify many items in one transaction. "
+            + "One confirmation is returned per item, in request order; items that failed validation or do not exist "
+            + "have the status FAILED and are not saved. The response code is 207 when at least one item failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @PUT
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> editItems(@RequestBody @Parameter(description = "The modified items", required = true) List<ItemDto> itemDtos){
+    	return blockingExecutor.execute(() -> bulkResponse(itemsService.editItems(itemDtos)));
+    }
+    
+    
     /**
      * Delete by id.
      *
      * @param id the id
-     * @param response the response
+     * @return the response entity
      */
     @Operation(summary = "Deletes an item", description = "Use this API to delete an item.")
     @APIResponses(value = {
@@ -179,9 +650,148 @@ public class ItemsResource {
     //@DeleteMapping(API_PATH + "/{id}")
     @DELETE
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public void deleteById(@PathParam Long id) {
-    	itemsService.deleteItemById(id);
-    	Response.noContent().build();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> deleteById(@PathParam Long id) {
+    	return blockingExecutor.execute(() -> {
+    		itemsService.deleteItemById(id);
+    		return Response.noContent().build();
+    	});
+    }
+    
+    
+    /**
+     * Delete by ids.
+     *
+     * @param ids the ids
+     * @return the response entity
+     */
+    @Operation(summary = "Deletes items in bulk", description = "Use this API to delete many items in one transaction. "
+            + "One confirmation is returned per id, in request order; ids that do not exist have the status FAILED. "
+            + "The response code is 207 when at least one id failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @DELETE
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    @Timed(value = "items.resource", histogram = true)
+    public CompletionStage<Response> deleteByIds(@RequestBody @Parameter(description = "The ids of the items to delete", required = true) List<Long> ids) {
+    	return blockingExecutor.execute(() -> bulkResponse(itemsService.deleteItemsById(ids)));
+    }
+    
+    
+    /**
+     * Reads a request body and answers with the summary of the work done on it.
+     *
+     * @param work the work, reading the body
+     * @return the response
+     * @throws UncheckedIOException if the body could not be read
+     */
+    private static Response readBody(BodyWork work) {
+    	try {
+    		return Response.ok(work.run()).build();
+    	}
+    	catch(IOException e) {
+    		throw new UncheckedIOException(e);
+    	}
+    }
+    
+    
+    /**
+     * Work on a request body that reads it as a stream.
+     */
+    @FunctionalInterface
+    private interface BodyWork {
+    	
+    	/**
+    	 * Runs the work.
+    	 *
+    	 * @return the summary
+    	 * @throws IOException Signals that the body could not be read.
+    	 */
+    	Object run() throws IOException;
+    }
+    
+    
+    /**
+     * Builds the response of a page, 304 without a body when the client already holds it.
+     *
+     * @param itemDtoPage the page
+     * @param tag the weak entity tag of the page
+     * @param ifNoneMatch the If-None-Match header, may be null
+     * @return the response
+     */
+    private static Response pageResponse(Object itemDtoPage, EntityTag tag, String ifNoneMatch) {
+    	if(EntityTags.notModified(ifNoneMatch, null, tag, null)) {
+    		return EntityTags.notModifiedResponse(tag, null);
+    	}
+    	return Response.ok(itemDtoPage).tag(tag).build();
+    }
+    
+    
+    /**
+     * Builds the response of a bulk operation, 202 when every element succeeded
+     * and 207 when at least one failed.
+     *
+     * @param confirmationDtos the confirmation dtos
+     * @return the response
+     */
+    static Response bulkResponse(List<ConfirmationDto> confirmationDtos) {
+    	boolean failed = confirmationDtos.stream().anyMatch(confirmationDto -> ItemStatus.FAILED == confirmationDto.getStatus());
+    	return Response.status(failed ? 207 : 202).entity(confirmationDtos).build();
+    }
+    
+    
+    /**
+     * Parses a comma separated list of ids.
+     *
+     * @param ids the ids
+     * @return the ids
+     */
+    static List<Long> parseIds(String ids) {
+    	List<Long> itemIds = new ArrayList<>();
+    	for(String id : ids.split(",")) {
+    		if(id.trim().isEmpty()) {
+    			continue;
+    		}
+    		try {
+    			itemIds.add(Long.valueOf(id.trim()));
+    		}
+    		catch(NumberFormatException e) {
+    			throw new ValidationException("Invalid id " + id.trim());
+    		}
+    	}
+    	return itemIds;
+    }
+    
+    
+    /**
+     * Converts sort parameters of the form property or property,direction to a sort.
+     *
+     * @param sort the sort parameters
+     * @return the sort
+     */
+    static Sort toSort(String[] sort) {
+    	if(null == sort) {
+    		return Sort.unsorted();
+    	}
+    	List<Sort.Order> orders = new ArrayList<>();
+    	for(String param : sort) {
+    		if(param.trim().isEmpty()) {
+    			continue;
+    		}
+    		String[] parts = param.split(",");
+    		if(parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim())) {
+    			orders.add(Sort.Order.desc(parts[0].trim()));
+    		}
+    		else {
+    			orders.add(Sort.Order.asc(parts[0].trim()));
+    		}
+    	}
+    	return Sort.by(orders);
     }
 }
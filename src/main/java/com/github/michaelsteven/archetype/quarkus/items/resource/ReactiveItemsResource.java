@@ -0,0 +1,251 @@
+package com.github.michaelsteven.archetype.quarkus.items.resource;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.ValidationException;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.enums.SecuritySchemeType;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityScheme;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.annotations.jaxrs.PathParam;
+import org.jboss.resteasy.annotations.jaxrs.QueryParam;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.github.michaelsteven.archetype.quarkus.items.configuration.BinaryFormatProvider;
+import com.github.michaelsteven.archetype.quarkus.items.interceptor.Compressed;
+import com.github.michaelsteven.archetype.quarkus.items.model.ApiError;
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
+import com.github.michaelsteven.archetype.quarkus.items.service.ReactiveItemsService;
+
+import io.smallrye.mutiny.Uni;
+
+
+/**
+ * The Class ReactiveItemsResource.  The same contract as {@link ItemsResource}, served
+ * without blocking: each method returns as soon as its query is sent, and the response
+ * is written when the database answers, so a small fixed set of threads serves many
+ * concurrent requests.
+ */
+@SecurityScheme(type = SecuritySchemeType.HTTP, scheme = "bearer", bearerFormat = "jwt")
+@Tag(name = "Items (reactive)", description = "The non blocking items api, with the same contract as the items api")
+@Path("/api/v2/items")
+@Compressed
+public class ReactiveItemsResource {
+
+	/** The reactive items service. */
+	@Inject
+	ReactiveItemsService reactiveItemsService;
+
+
+    /**
+     * Gets the items.
+     *
+     * @param page the page
+     * @param size the size
+     * @param sort the sort
+     * @param paging the paging mode
+     * @param cursor the keyset continuation token
+     * @return the items
+     */
+    @Operation(summary = "Retrieve items", description = "Use this API to retrieve a paginated collection of items. "
+            + "The default offset paging returns page numbers and a total count. "
+            + "With paging=keyset, or when a cursor is given, each page seeks past the nextCursor of the previous page "
+            + "and no total count is returned, so deep pages cost the same as the first one.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Ok", content = @Content(schema = @Schema(oneOf = { PageImpl.class, KeysetPage.class }))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> getItems(@QueryParam @DefaultValue("0") int page, @QueryParam @DefaultValue("10") int size,  @QueryParam String[] sort,
+    		@QueryParam @DefaultValue("offset") @Parameter(description = "offset or keyset") String paging,
+    		@QueryParam @Parameter(description = "The nextCursor of the previous keyset page") String cursor){
+    	if("keyset".equalsIgnoreCase(paging) || null != cursor) {
+    		return reactiveItemsService.getItems(cursor, size, ItemsResource.toSort(sort))
+    				.map(itemDtoPage -> Response.status(200).entity(itemDtoPage).build());
+    	}
+    	return reactiveItemsService.getItems(PageRequest.of(page, size, ItemsResource.toSort(sort)))
+    			.map(itemDtoPage -> Response.status(200).entity(itemDtoPage).build());
+	}
+
+
+    /**
+     * Save item.
+     *
+     * @param itemDto the item dto
+     * @return the response entity
+     */
+    @Operation(summary = "Submit a new item", description = "Use this API to generate a new item.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @POST
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> saveItem(@Valid @RequestBody @Parameter(description = "A new item", required = true) ItemDto itemDto){
+    	return reactiveItemsService.saveItem(itemDto)
+    			.map(confirmationDto -> Response.status(202).entity(confirmationDto).build());
+    }
+
+
+    /**
+     * Save items.
+     *
+     * @param itemDtos the item dtos
+     * @return the response entity
+     */
+    @Operation(summary = "Submit new items in bulk", description = "Use this API to generate many new items in one transaction. "
+            + "One confirmation is returned per item, in request order; items that failed validation have the status FAILED and are not saved. "
+            + "The response code is 207 when at least one item failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @POST
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> saveItems(@RequestBody @Parameter(description = "The new items", required = true) List<ItemDto> itemDtos){
+    	return reactiveItemsService.saveItems(itemDtos).map(ItemsResource::bulkResponse);
+    }
+
+
+    /**
+     * Gets the item by id.
+     *
+     * @param id the id
+     * @return the item by id
+     */
+    @Operation(summary = "Gets an item", description = "Use this API to retrieve an existing item.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = ItemDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @GET
+    @Path("/{id}")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> getItemById(@PathParam Long id){
+    	return reactiveItemsService.getItemById(id)
+    			.map(optionalResponse -> optionalResponse.map(response -> Response.ok(response).build())
+    					.orElse(Response.status(404).build()));
+    }
+
+
+    /**
+     * Edits the item.
+     *
+     * @param id the id
+     * @param itemDto the item dto
+     * @return the response entity
+     */
+    @Operation(summary = "Modifies an item", description = "Use this API to modify an item.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @PUT
+    @Path("/{id}")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> editItem(@PathParam long id, @Valid @RequestBody @Parameter(description = "A modified item", required = true) ItemDto itemDto){
+    	if( itemDto.getId() != null && id != itemDto.getId().longValue()) {
+    		throw new ValidationException("ID in path does not match ID in object");
+    	}
+    	itemDto.setId(id);
+    	return reactiveItemsService.editItem(itemDto)
+    			.map(confirmationDto -> Response.status(202).entity(confirmationDto).build());
+    }
+
+
+    /**
+     * Edits items.
+     *
+     * @param itemDtos the item dtos
+     * @return the response entity
+     */
+    @Operation(summary = "Modifies items in bulk", description = "Use this API to modify many items in one transaction. "
+            + "One confirmation is returned per item, in request order; items that failed validation or do not exist "
+            + "have the status FAILED and are not saved. The response code is 207 when at least one item failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @PUT
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> editItems(@RequestBody @Parameter(description = "The modified items", required = true) List<ItemDto> itemDtos){
+    	return reactiveItemsService.editItems(itemDtos).map(ItemsResource::bulkResponse);
+    }
+
+
+    /**
+     * Delete by id.
+     *
+     * @param id the id
+     * @return the response entity
+     */
+    @Operation(summary = "Deletes an item", description = "Use this API to delete an item.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "204", description = "No Content", content = @Content(schema = @Schema(implementation = Void.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @DELETE
+    @Path("/{id}")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> deleteById(@PathParam Long id) {
+    	return reactiveItemsService.deleteItemById(id)
+    			.map(deleted -> Response.noContent().build());
+    }
+
+
+    /**
+     * Delete by ids.
+     *
+     * @param ids the ids
+     * @return the response entity
+     */
+    @Operation(summary = "Deletes items in bulk", description = "Use this API to delete many items in one transaction. "
+            + "One confirmation is returned per id, in request order; ids that do not exist have the status FAILED. "
+            + "The response code is 207 when at least one id failed.")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "202", description = "accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "207", description = "partially accepted", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = ConfirmationDto.class))),
+            @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ApiError.class))),
+            @APIResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = ApiError.class))) })
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @DELETE
+    @Path("/bulk")
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE })
+    public Uni<Response> deleteByIds(@RequestBody @Parameter(description = "The ids of the items to delete", required = true) List<Long> ids) {
+    	return reactiveItemsService.deleteItemsById(ids).map(ItemsResource::bulkResponse);
+    }
+}
@@ -0,0 +1,359 @@
+package com.github.michaelsteven.archetype.quarkus.items.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+/**
+ * An inverted index over the names and descriptions of items.  Terms are the
+ * lower cased runs of letters and digits.  Term queries are ranked with BM25 over
+ * both fields, a name match weighing {@link #NAME_BOOST} times a description match;
+ * prefix queries walk sorted maps of the names and name terms, so their cost
+ * depends on the number of suggestions rather than on the size of the index.
+ * <p>
+ * Not thread safe, {@link ItemSearchIndex} guards it with a read write lock.
+ */
+final class InvertedIndex {
+
+	/** The BM25 term frequency saturation. */
+	private static final double K1 = 1.2;
+
+	/** The BM25 length normalization. */
+	private static final double B = 0.75;
+
+	/** How much a name match weighs against a description match. */
+	private static final double NAME_BOOST = 2.0;
+
+	/** The indexed items by id. */
+	private final Map<Long, Document> documents = new HashMap<>();
+
+	/** The ids of the items whose name or description holds a term. */
+	private final Map<String, Set<Long>> postings = new HashMap<>();
+
+	/** The ids of the items by lower cased name. */
+	private final NavigableMap<String, Set<Long>> names = new TreeMap<>();
+
+	/** The ids of the items by name term. */
+	private final NavigableMap<String, Set<Long>> nameTerms = new TreeMap<>();
+
+	/** The sum of the description lengths, in terms. */
+	private long descriptionTerms;
+
+
+	/**
+	 * Adds an item, replacing the indexed one with the same id unless that one is
+	 * at a later version.
+	 *
+	 * @param itemDto the item
+	 * @return true, if indexed; false if a later version is
+	 */
+	boolean put(ItemDto itemDto) {
+		Document indexed = documents.get(itemDto.getId());
+		if(null != indexed && null != indexed.item.getVersion() && null != itemDto.getVersion()
+				&& itemDto.getVersion() < indexed.item.getVersion()) {
+			return false;
+		}
+		remove(itemDto.getId());
+		Document document = new Document(itemDto);
+		documents.put(itemDto.getId(), document);
+		for (String term : document.nameTerms) {
+			add(postings, term, document.id);
+			add(nameTerms, term, document.id);
+		}
+		for (String term : document.descriptionFrequencies.keySet()) {
+			add(postings, term, document.id);
+		}
+		add(names, document.name, document.id);
+		descriptionTerms += document.descriptionLength;
+		return true;
+	}
+
+
+	/**
+	 * Removes an item.
+	 *
+	 * @param id the id
+	 */
+	void remove(Long id) {
+		Document document = documents.remove(id);
+		if(null == document) {
+			return;
+		}
+		for (String term : document.nameTerms) {
+			remove(postings, term, id);
+			remove(nameTerms, term, id);
+		}
+		for (String term : document.descriptionFrequencies.keySet()) {
+			remove(postings, term, id);
+		}
+		remove(names, document.name, id);
+		descriptionTerms -= document.descriptionLength;
+	}
+
+
+	/**
+	 * Gets the number of indexed items.
+	 *
+	 * @return the size
+	 */
+	int size() {
+		return documents.size();
+	}
+
+
+	/**
+	 * Finds the items that hold any of the terms of a query.  Only the best limit
+	 * matches are kept and sorted, in a bounded heap.
+	 *
+	 * @param query the query
+	 * @param limit the number of best matches to return
+	 * @return the best matches, best first, and the number of matches
+	 */
+	Matches search(String query, int limit) {
+		Set<String> terms = new LinkedHashSet<>(terms(query));
+		Map<Long, Double> scores = new HashMap<>();
+		double averageLength = documents.isEmpty() ? 0 : Math.max(1.0, (double) descriptionTerms / documents.size());
+		for (String term : terms) {
+			Set<Long> ids = postings.get(term);
+			if(null == ids) {
+				continue;
+			}
+			double idf = Math.log(1 + (documents.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+			for (Long id : ids) {
+				Document document = documents.get(id);
+				double score = 0;
+				Integer frequency = document.descriptionFrequencies.get(term);
+				if(null != frequency) {
+					score += idf * frequency * (K1 + 1)
+							/ (frequency + K1 * (1 - B + B * document.descriptionLength / averageLength));
+				}
+				if(document.nameTerms.contains(term)) {
+					score += NAME_BOOST * idf;
+				}
+				scores.merge(id, score, Double::sum);
+			}
+		}
+		// a heap of the best matches with the worst on top
+		PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, Math.min(limit, scores.size())), Collections.reverseOrder());
+		scores.forEach((id, score) -> {
+			if(best.size() < limit) {
+				best.add(new Match(documents.get(id).item, score));
+			}
+			else if(limit > 0 && (score > best.peek().score || (score == best.peek().score && id < best.peek().item.getId()))) {
+				best.poll();
+				best.add(new Match(documents.get(id).item, score));
+			}
+		});
+		List<Match> matches = new ArrayList<>(best);
+		Collections.sort(matches);
+		return new Matches(matches, scores.size());
+	}
+
+
+	/**
+	 * Suggests items whose name starts with a prefix, followed by items with a later
+	 * name term that starts with it, each in name order.
+	 *
+	 * @param prefix the prefix
+	 * @param limit the maximum number of suggestions
+	 * @return the suggestions
+	 */
+	List<ItemDto> suggest(String prefix, int limit) {
+		String key = prefix.toLowerCase(Locale.ROOT).trim();
+		Set<Long> ids = new LinkedHashSet<>();
+		collect(names, key, ids, limit);
+		List<String> prefixTerms = terms(key);
+		if(prefixTerms.size() == 1) {
+			collect(nameTerms, prefixTerms.get(0), ids, limit);
+		}
+		List<ItemDto> suggestions = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			suggestions.add(documents.get(id).item);
+		}
+		return suggestions;
+	}
+
+
+	/**
+	 * Collects the ids under the keys that start with a prefix, in key order.
+	 *
+	 * @param map the map
+	 * @param prefix the prefix
+	 * @param ids the ids
+	 * @param limit the maximum number of ids
+	 */
+	private static void collect(NavigableMap<String, Set<Long>> map, String prefix, Set<Long> ids, int limit) {
+		for (Map.Entry<String, Set<Long>> entry : map.tailMap(prefix, true).entrySet()) {
+			if(ids.size() >= limit || !entry.getKey().startsWith(prefix)) {
+				return;
+			}
+			for (Long id : entry.getValue()) {
+				if(ids.size() >= limit) {
+					return;
+				}
+				ids.add(id);
+			}
+		}
+	}
+
+
+	/**
+	 * Splits text into lower cased terms.
+	 *
+	 * @param text the text, may be null
+	 * @return the terms
+	 */
+	static List<String> terms(String text) {
+		List<String> terms = new ArrayList<>();
+		if(null == text) {
+			return terms;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if(inTerm && start < 0) {
+				start = i;
+			}
+			else if(!inTerm && start >= 0) {
+				terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+
+	/**
+	 * Adds an id under a key.
+	 *
+	 * @param map the map
+	 * @param key the key
+	 * @param id the id
+	 */
+	private static void add(Map<String, Set<Long>> map, String key, Long id) {
+		map.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+	}
+
+
+	/**
+	 * Removes an id from under a key, and the key once it holds no ids.
+	 *
+	 * @param map the map
+	 * @param key the key
+	 * @param id the id
+	 */
+	private static void remove(Map<String, Set<Long>> map, String key, Long id) {
+		Set<Long> ids = map.get(key);
+		if(null != ids && ids.remove(id) && ids.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+
+	/**
+	 * An indexed item.
+	 */
+	private static final class Document {
+
+		/** The id. */
+		final Long id;
+
+		/** The item as returned by searches. */
+		final ItemDto item;
+
+		/** The lower cased name. */
+		final String name;
+
+		/** The terms of the name. */
+		final Set<String> nameTerms;
+
+		/** The frequencies of the description terms. */
+		final Map<String, Integer> descriptionFrequencies = new HashMap<>();
+
+		/** The number of description terms. */
+		final int descriptionLength;
+
+		/**
+		 * Instantiates a new document.
+		 *
+		 * @param itemDto the item
+		 */
+		Document(ItemDto itemDto) {
+			this.id = itemDto.getId();
+			this.item = new ItemDto(itemDto.getId(), itemDto.getName(), itemDto.getDescription(), null, itemDto.getVersion(), null);
+			this.name = null == itemDto.getName() ? "" : itemDto.getName().toLowerCase(Locale.ROOT).trim();
+			this.nameTerms = new HashSet<>(terms(itemDto.getName()));
+			List<String> terms = terms(itemDto.getDescription());
+			for (String term : terms) {
+				descriptionFrequencies.merge(term, 1, Integer::sum);
+			}
+			this.descriptionLength = terms.size();
+		}
+	}
+
+
+	/**
+	 * The best matches of a query and the number of all matches.
+	 */
+	static final class Matches {
+
+		/** The best matches, best first. */
+		final List<Match> best;
+
+		/** The number of matches. */
+		final int total;
+
+		/**
+		 * Instantiates new matches.
+		 *
+		 * @param best the best matches
+		 * @param total the number of matches
+		 */
+		Matches(List<Match> best, int total) {
+			this.best = best;
+			this.total = total;
+		}
+	}
+
+
+	/**
+	 * An item that matched a query, ordered by descending score and then by id.
+	 */
+	static final class Match implements Comparable<Match> {
+
+		/** The item. */
+		final ItemDto item;
+
+		/** The score. */
+		final double score;
+
+		/**
+		 * Instantiates a new match.
+		 *
+		 * @param item the item
+		 * @param score the score
+		 */
+		Match(ItemDto item, double score) {
+			this.item = item;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+			int byScore = Double.compare(other.score, score);
+			return 0 != byScore ? byScore : Long.compare(item.getId(), other.item.getId());
+		}
+	}
+}
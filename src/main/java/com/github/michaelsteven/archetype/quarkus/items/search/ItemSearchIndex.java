@@ -0,0 +1,325 @@
+package com.github.michaelsteven.archetype.quarkus.items.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemInvalidationEvent;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemQueryRepository;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.runtime.Startup;
+
+/**
+ * Keeps an in memory {@link InvertedIndex} of the items for search and typeahead.
+ * The index is built from the table at startup and by {@link #rebuild()}, and is kept
+ * up to date by the item change events that {@link com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutbox}
+ * fires for the changes of either api once they have committed.  The changes of the
+ * other replicas arrive as their {@link ItemInvalidationEvent}s, and the items they
+ * name are read again from the table on a thread of the index.  Changes that commit
+ * while a rebuild is scanning the table are applied to both the live index and, after
+ * the scan, to the rebuilt one, which then replaces the live index.  As the observers
+ * run on the committing threads, changes may arrive out of order; an item is never
+ * replaced by an older version of it.
+ * <p>
+ * The number of indexed items is published as items.search.documents.
+ */
+@Startup
+@ApplicationScoped
+public class ItemSearchIndex {
+
+	public static final Logger logger = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+	/** Whether the index is built at startup. */
+	@ConfigProperty(name = "items.search.rebuild-on-start", defaultValue = "true")
+	boolean rebuildOnStart;
+
+	/** The number of rows fetched per round trip by a rebuild. */
+	@ConfigProperty(name = "items.search.fetch-size", defaultValue = "1000")
+	int fetchSize;
+
+	@Inject
+	ItemQueryRepository itemQueryRepository;
+
+	@Inject
+	ItemRepository itemRepository;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** Guards the index and the pending changes. */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** The live index. */
+	private InvertedIndex index = new InvertedIndex();
+
+	/** The changes committed during a rebuild, null when no rebuild is running. */
+	private List<ItemChangeEvent> pending;
+
+	/** Whether a rebuild is running. */
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	/** The rebuild thread. */
+	private ExecutorService executor;
+
+	/** The thread reading the items changed by the other replicas. */
+	private ExecutorService refresher;
+
+
+	/**
+	 * Registers the gauge and starts the first build.
+	 */
+	@PostConstruct
+	void init() {
+		Gauge.builder("items.search.documents", this, ItemSearchIndex::size)
+				.description("The items in the search index").register(meterRegistry);
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "items-search-rebuild");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresher = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "items-search-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if(rebuildOnStart) {
+			rebuild();
+		}
+	}
+
+
+	/**
+	 * Stops the rebuild and refresh threads.
+	 */
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+		refresher.shutdownNow();
+	}
+
+
+	/**
+	 * Starts rebuilding the index from the table in the background.
+	 *
+	 * @return true, if started; false if a rebuild is already running
+	 */
+	public boolean rebuild() {
+		if(!rebuilding.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			executor.execute(this::build);
+		}
+		catch(RejectedExecutionException e) {
+			rebuilding.set(false);
+			throw e;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Searches the names and descriptions, best match first.
+	 *
+	 * @param query the query
+	 * @param pageable the page
+	 * @return the page of matching items
+	 */
+	public Page<ItemDto> search(String query, Pageable pageable) {
+		InvertedIndex.Matches matches;
+		lock.readLock().lock();
+		try {
+			matches = index.search(query, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()));
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		int from = (int) Math.min(pageable.getOffset(), matches.best.size());
+		List<ItemDto> content = matches.best.subList(from, matches.best.size()).stream()
+				.map(match -> match.item).collect(Collectors.toList());
+		return new PageImpl<>(content, pageable, matches.total);
+	}
+
+
+	/**
+	 * Suggests items by name prefix.
+	 *
+	 * @param prefix the prefix
+	 * @param limit the maximum number of suggestions
+	 * @return the suggestions
+	 */
+	public List<ItemDto> suggest(String prefix, int limit) {
+		lock.readLock().lock();
+		try {
+			return index.suggest(prefix, limit);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Gets the number of indexed items.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Applies a committed item change.
+	 *
+	 * @param event the event
+	 */
+	void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ItemChangeEvent event) {
+		lock.writeLock().lock();
+		try {
+			apply(index, event);
+			if(null != pending) {
+				pending.add(event);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Reads an item changed by another replica again, once the change has reached
+	 * this one, and applies it.
+	 *
+	 * @param event the invalidation of the peer
+	 */
+	void onPeerChange(@Observes ItemInvalidationEvent event) {
+		try {
+			refresher.execute(() -> refresh(event.getItemId()));
+		}
+		catch(RejectedExecutionException e) {
+			logger.debug("Not refreshing item {}, the index is shutting down", event.getItemId());
+		}
+	}
+
+
+	/**
+	 * Reads an item from the table and applies it as a change, or its deletion when
+	 * it is gone.
+	 *
+	 * @param id the id
+	 */
+	private void refresh(Long id) {
+		ManagedContext requestContext = Arc.container().requestContext();
+		requestContext.activate();
+		try {
+			Optional<ItemEntity> entity = itemRepository.findById(id);
+			ItemChangeEvent change = new ItemChangeEvent();
+			change.setItemId(id);
+			change.setType(entity.isPresent() ? ItemChangeType.updated : ItemChangeType.deleted);
+			change.setItem(entity.map(ItemMapper::convert).orElse(null));
+			onChange(change);
+		}
+		catch(RuntimeException e) {
+			logger.warn("Could not refresh item {} in the search index", id, e);
+		}
+		finally {
+			requestContext.terminate();
+		}
+	}
+
+
+	/**
+	 * Scans the table into a new index and swaps it in.
+	 */
+	private void build() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			pending = new ArrayList<>();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		InvertedIndex rebuilt = new InvertedIndex();
+		try {
+			itemQueryRepository.forEach(fetchSize, entity -> rebuilt.put(ItemMapper.convert(entity)));
+			lock.writeLock().lock();
+			try {
+				pending.forEach(event -> apply(rebuilt, event));
+				index = rebuilt;
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			logger.info("Rebuilt the search index with {} items in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+		}
+		catch(RuntimeException e) {
+			logger.warn("Could not rebuild the search index", e);
+		}
+		finally {
+			lock.writeLock().lock();
+			try {
+				pending = null;
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			rebuilding.set(false);
+		}
+	}
+
+
+	/**
+	 * Applies a change to an index.
+	 *
+	 * @param target the index
+	 * @param event the event
+	 */
+	private static void apply(InvertedIndex target, ItemChangeEvent event) {
+		if(ItemChangeType.deleted == event.getType() || null == event.getItem()) {
+			target.remove(event.getItemId());
+		}
+		else {
+			target.put(event.getItem());
+		}
+	}
+}
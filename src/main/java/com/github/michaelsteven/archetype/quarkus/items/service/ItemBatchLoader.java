@@ -0,0 +1,304 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reads items by id, gathering the ids asked for by concurrent requests into one
+ * WHERE id IN (...) query.  The first request to ask opens a batch and waits up to
+ * items.batch-load.max-wait for others to join it, then reads the batch on its own
+ * thread and hands each request its items; a batch that reaches
+ * items.batch-load.max-batch-size is read at once by the request that filled it.  A
+ * request alone waits the max wait, so it is kept well below a millisecond.  A
+ * request waits for the batches it joined at most items.coalesce.timeout, as it
+ * would for a coalesced read, and then reads the ids still missing itself, counted
+ * as items.batch-load.timeouts.
+ * <p>
+ * Batching is off unless items.batch-load.enabled is set; reads by id then query
+ * alone and reads of many ids in chunks of the max batch size.  The ids read per
+ * query are published as items.batch-load.size.
+ */
+@ApplicationScoped
+public class ItemBatchLoader {
+
+	/** Whether the reads of concurrent requests are batched. */
+	@ConfigProperty(name = "items.batch-load.enabled", defaultValue = "false")
+	boolean enabled;
+
+	/** The maximum number of ids read by one query. */
+	@ConfigProperty(name = "items.batch-load.max-batch-size", defaultValue = "100")
+	int maxBatchSize;
+
+	/** How long a batch waits for more ids before it is read. */
+	@ConfigProperty(name = "items.batch-load.max-wait", defaultValue = "PT0.0005S")
+	Duration maxWait;
+
+	/** How long a request waits for the batches it joined. */
+	@ConfigProperty(name = "items.coalesce.timeout", defaultValue = "PT2S")
+	Duration timeout;
+
+	@Inject
+	ItemRepository itemRepository;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	/** Guards the open batch. */
+	private final Object lock = new Object();
+
+	/** The batch requests join, null when none is open. */
+	private Batch open;
+
+	/** The ids read per query. */
+	private DistributionSummary batchSizes;
+
+	/** The ids read alone after waiting for their batch timed out. */
+	private Counter timeouts;
+
+
+	/**
+	 * Checks the configuration and registers the metrics.
+	 */
+	@PostConstruct
+	void init() {
+		if(maxBatchSize < 1) {
+			throw new IllegalArgumentException("items.batch-load.max-batch-size must be at least 1, not " + maxBatchSize);
+		}
+		if(timeout.isNegative() || timeout.isZero()) {
+			throw new IllegalArgumentException("items.coalesce.timeout must be positive, not " + timeout);
+		}
+		batchSizes = DistributionSummary.builder("items.batch-load.size")
+				.description("The item ids read per query").register(meterRegistry);
+		timeouts = Counter.builder("items.batch-load.timeouts")
+				.description("The item ids read alone after their batch took too long").register(meterRegistry);
+	}
+
+
+	/**
+	 * Reads an item.
+	 *
+	 * @param id the id
+	 * @return the item, empty if it does not exist
+	 */
+	public Optional<ItemDto> load(long id) {
+		if(!enabled) {
+			return itemRepository.findById(id).map(ItemMapper::convert);
+		}
+		return Optional.ofNullable(loadAll(Collections.singletonList(id)).get(id));
+	}
+
+
+	/**
+	 * Reads items.
+	 *
+	 * @param ids the ids
+	 * @return the items that exist by id
+	 */
+	public Map<Long, ItemDto> loadAll(Collection<Long> ids) {
+		if(!enabled) {
+			Map<Long, ItemDto> items = new HashMap<>();
+			List<Long> chunk = new ArrayList<>(Math.min(ids.size(), maxBatchSize));
+			for (Long id : ids) {
+				chunk.add(id);
+				if(chunk.size() == maxBatchSize) {
+					items.putAll(query(chunk));
+					chunk.clear();
+				}
+			}
+			if(!chunk.isEmpty()) {
+				items.putAll(query(chunk));
+			}
+			return items;
+		}
+		Map<Long, CompletableFuture<ItemDto>> futures = new LinkedHashMap<>();
+		List<Batch> full = new ArrayList<>();
+		Batch opened = null;
+		synchronized(lock) {
+			for (Long id : ids) {
+				if(null == open) {
+					open = new Batch(System.nanoTime() + maxWait.toNanos());
+					opened = open;
+				}
+				futures.put(id, open.add(id));
+				if(open.size() >= maxBatchSize) {
+					full.add(open);
+					open = null;
+					lock.notifyAll();
+				}
+			}
+		}
+		full.forEach(this::read);
+		if(null != opened && !full.contains(opened)) {
+			readWhenDue(opened);
+		}
+		Map<Long, ItemDto> items = new HashMap<>();
+		long deadline = System.nanoTime() + timeout.toNanos();
+		futures.forEach((id, future) -> {
+			ItemDto itemDto = await(id, future, deadline);
+			if(null != itemDto) {
+				items.put(id, itemDto);
+			}
+		});
+		return items;
+	}
+
+
+	/**
+	 * Waits until a batch opened by this request is due and reads it, unless it was
+	 * filled and read by another meanwhile.
+	 *
+	 * @param batch the batch
+	 */
+	private void readWhenDue(Batch batch) {
+		synchronized(lock) {
+			long remaining;
+			while(open == batch && (remaining = batch.due - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if(open != batch) {
+				return;
+			}
+			open = null;
+		}
+		read(batch);
+	}
+
+
+	/**
+	 * Reads a batch and completes the futures of its ids, with null for the ids that
+	 * do not exist.
+	 *
+	 * @param batch the batch
+	 */
+	private void read(Batch batch) {
+		try {
+			Map<Long, ItemDto> items = query(batch.futures.keySet());
+			batch.futures.forEach((id, future) -> future.complete(items.get(id)));
+		}
+		catch(RuntimeException | Error e) {
+			batch.futures.values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+
+
+	/**
+	 * Reads items in one query.
+	 *
+	 * @param ids the ids
+	 * @return the items that exist by id
+	 */
+	private Map<Long, ItemDto> query(Collection<Long> ids) {
+		batchSizes.record(ids.size());
+		Map<Long, ItemDto> items = new HashMap<>();
+		for (ItemEntity entity : itemRepository.findAllById(ids)) {
+			items.put(entity.getId(), ItemMapper.convert(entity));
+		}
+		return items;
+	}
+
+
+	/**
+	 * Waits for the item of a batch read by this or another request, until the
+	 * deadline, and then reads it alone.
+	 *
+	 * @param id the id
+	 * @param future the future
+	 * @param deadline the deadline, in nanoseconds of {@link System#nanoTime()}
+	 * @return the item, null if it does not exist
+	 */
+	private ItemDto await(Long id, CompletableFuture<ItemDto> future, long deadline) {
+		try {
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch(TimeoutException e) {
+			timeouts.increment();
+			return query(Collections.singletonList(id)).get(id);
+		}
+		catch(ExecutionException e) {
+			if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for a batch of items", e);
+		}
+	}
+
+
+	/**
+	 * The ids read by one query.
+	 */
+	private static final class Batch {
+
+		/** When the batch is read, in nanoseconds of {@link System#nanoTime()}. */
+		private final long due;
+
+		/** The futures by id. */
+		private final Map<Long, CompletableFuture<ItemDto>> futures = new LinkedHashMap<>();
+
+
+		/**
+		 * Instantiates a new batch.
+		 *
+		 * @param due when the batch is read
+		 */
+		Batch(long due) {
+			this.due = due;
+		}
+
+
+		/**
+		 * Adds an id, once however often it is asked for.
+		 *
+		 * @param id the id
+		 * @return the future of the item
+		 */
+		CompletableFuture<ItemDto> add(Long id) {
+			return futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+		}
+
+
+		/**
+		 * Gets the number of ids.
+		 *
+		 * @return the size
+		 */
+		int size() {
+			return futures.size();
+		}
+	}
+}
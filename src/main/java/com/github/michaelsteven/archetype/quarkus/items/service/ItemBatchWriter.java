@@ -0,0 +1,88 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCache;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.Compliance;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutbox;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemQueryRepository;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * Writes one batch of an import or a purge in a transaction of its own, so that a
+ * large import or purge commits as it goes and a failing batch only loses its own records.
+ * The batches, not the import or purge calls, are audited, so there is a compliance
+ * event for each item written.
+ */
+@ApplicationScoped
+public class ItemBatchWriter {
+	
+	@Inject
+	EntityManager entityManager;
+	
+	@Inject
+	ItemOutbox itemOutbox;
+	
+	@Inject
+	ItemQueryRepository itemQueryRepository;
+	
+	@Inject
+	ItemCache itemCache;
+	
+	/** The number of items written per JDBC batch. */
+	@ConfigProperty(name = "items.bulk.batch-size", defaultValue = "50")
+	int batchSize;
+	
+	
+	/**
+	 * Inserts the items, flushing every batch size items as one JDBC batch.
+	 *
+	 * @param entities the entities, the ids are set on them
+	 */
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.create)
+	@Transactional(Transactional.TxType.REQUIRES_NEW)
+	public void insert(List<ItemEntity> entities) {
+		int pending = 0;
+		for(ItemEntity entity : entities) {
+			entityManager.persist(entity);
+			itemOutbox.record(ItemChangeType.created, entity);
+			if(++pending == batchSize) {
+				entityManager.flush();
+				entityManager.clear();
+				pending = 0;
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+	
+	
+	/**
+	 * Deletes the items with the given ids, recording the deletions in the outbox,
+	 * with one statement each and without loading the items.
+	 *
+	 * @param ids the ids
+	 * @return the number of deleted items
+	 */
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.delete)
+	@Transactional(Transactional.TxType.REQUIRES_NEW)
+	public int delete(Collection<Long> ids) {
+		itemCache.invalidateAfterCompletion(ids);
+		itemOutbox.recordDeleted(ids);
+		return itemQueryRepository.deleteAllById(ids);
+	}
+}
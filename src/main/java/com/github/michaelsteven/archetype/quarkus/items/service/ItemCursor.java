@@ -0,0 +1,164 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.validation.ValidationException;
+
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+import lombok.Getter;
+
+
+/**
+ * Position in a keyset paginated item listing.  Encodes to an opaque, url safe
+ * continuation token holding the sort property, the direction and the sort key
+ * and id of the last item returned.
+ */
+@Getter
+final class ItemCursor {
+
+	/** The entity properties that keyset pagination can sort on. */
+	static final Set<String> SORT_PROPERTIES = new HashSet<>(Arrays.asList("id", "name", "createdTimestamp"));
+	
+	/** The separator between the token fields. */
+	private static final String SEPARATOR = ":";
+	
+	/** The marker for a null sort key. */
+	private static final String NULL_KEY = "~";
+	
+	/** The prefix for a non null sort key. */
+	private static final String KEY_PREFIX = "=";
+	
+	/** The sort property. */
+	private final String property;
+	
+	/** Whether the sort is ascending. */
+	private final boolean ascending;
+	
+	/** The id of the last item returned, null for the first page. */
+	private final Long lastId;
+	
+	/** The sort key of the last item returned. */
+	private final Object lastKey;
+	
+	
+	/**
+	 * Instantiates a new item cursor.
+	 *
+	 * @param property the property
+	 * @param ascending the ascending
+	 * @param lastId the last id
+	 * @param lastKey the last key
+	 */
+	private ItemCursor(String property, boolean ascending, Long lastId, Object lastKey) {
+		this.property = property;
+		this.ascending = ascending;
+		this.lastId = lastId;
+		this.lastKey = lastKey;
+	}
+	
+	
+	/**
+	 * Creates the cursor for the first page.  At most one sort order is supported,
+	 * the id is always used as the tie breaker; an unsorted request sorts by id.
+	 *
+	 * @param sort the sort
+	 * @return the item cursor
+	 */
+	static ItemCursor first(Sort sort) {
+		Iterator<Sort.Order> orders = sort.iterator();
+		if(!orders.hasNext()) {
+			return new ItemCursor("id", true, null, null);
+		}
+		Sort.Order order = orders.next();
+		if(orders.hasNext() || !SORT_PROPERTIES.contains(order.getProperty())) {
+			throw new ValidationException("Keyset pagination supports a single sort on one of " + SORT_PROPERTIES);
+		}
+		return new ItemCursor(order.getProperty(), order.isAscending(), null, null);
+	}
+	
+	
+	/**
+	 * Decodes a continuation token.
+	 *
+	 * @param token the token
+	 * @return the item cursor
+	 */
+	static ItemCursor decode(String token) {
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] fields = decoded.split(SEPARATOR, 4);
+			if(fields.length != 4 || !SORT_PROPERTIES.contains(fields[0])
+					|| !(NULL_KEY.equals(fields[3]) || fields[3].startsWith(KEY_PREFIX))) {
+				throw new ValidationException("Invalid cursor");
+			}
+			Object lastKey = NULL_KEY.equals(fields[3]) ? null : parseKey(fields[0], fields[3].substring(KEY_PREFIX.length()));
+			return new ItemCursor(fields[0], "a".equals(fields[1]), Long.valueOf(fields[2]), lastKey);
+		}
+		catch(IllegalArgumentException | DateTimeParseException e) {
+			throw new ValidationException("Invalid cursor");
+		}
+	}
+	
+	
+	/**
+	 * Creates the cursor positioned after the given item.
+	 *
+	 * @param last the last item of the current page, with the sort property selected
+	 * @return the item cursor
+	 */
+	ItemCursor after(ItemDto last) {
+		Object key;
+		switch(property) {
+			case "name":
+				key = last.getName();
+				break;
+			case "createdTimestamp":
+				key = null == last.getDateSubmitted() ? null : last.getDateSubmitted().toInstant();
+				break;
+			default:
+				key = last.getId();
+		}
+		return new ItemCursor(property, ascending, last.getId(), key);
+	}
+	
+	
+	/**
+	 * Encodes the cursor as a continuation token.
+	 *
+	 * @return the token
+	 */
+	String encode() {
+		String key = null == lastKey ? NULL_KEY : KEY_PREFIX + lastKey;
+		String decoded = property + SEPARATOR + (ascending ? "a" : "d") + SEPARATOR + lastId + SEPARATOR + key;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	/**
+	 * Parses a sort key into the type of its property.
+	 *
+	 * @param property the property
+	 * @param value the value
+	 * @return the key
+	 */
+	private static Object parseKey(String property, String value) {
+		switch(property) {
+			case "name":
+				return value;
+			case "createdTimestamp":
+				return Instant.parse(value);
+			default:
+				return Long.valueOf(value);
+		}
+	}
+}
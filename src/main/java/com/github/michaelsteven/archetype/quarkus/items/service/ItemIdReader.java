@@ -0,0 +1,19 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.io.IOException;
+
+/**
+ * The Interface ItemIdReader.  Reads the ids of a purge one at a time, so that
+ * the purge never holds more than the batch being deleted.
+ */
+@FunctionalInterface
+public interface ItemIdReader {
+	
+	/**
+	 * Reads the next id.
+	 *
+	 * @return the id, null when there are no more ids
+	 * @throws IOException Signals that the input could not be read.
+	 */
+	public abstract Long next() throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.io.IOException;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+/**
+ * The Interface ItemRecordReader.  Reads the records of an import one at a time,
+ * so that the import never holds more than the record being read.
+ */
+@FunctionalInterface
+public interface ItemRecordReader {
+	
+	/**
+	 * Reads the next record.  A record that can not be parsed is reported with a
+	 * {@link javax.validation.ValidationException}, after which reading continues with
+	 * the following record.
+	 *
+	 * @return the item, null when there are no more records
+	 * @throws IOException Signals that the input could not be read.
+	 */
+	public abstract ItemDto next() throws IOException;
+}
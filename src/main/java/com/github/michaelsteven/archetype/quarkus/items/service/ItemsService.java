@@ -1,15 +1,28 @@
 package com.github.michaelsteven.archetype.quarkus.items.service;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountStrategy;
+import com.github.michaelsteven.archetype.quarkus.items.model.DeleteSummaryDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ImportSummaryDto;
 import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemVersion;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
 
 /**
  * The Interface ItemsService.
@@ -20,9 +33,45 @@ public interface ItemsService {
 	 * Gets the items.
 	 *
 	 * @param pageable the pageable
+	 * @param filter the filter
+	 * @param fields the fields to return; the id and version are always returned
+	 * @param countStrategy how the total is found
+	 * @return the items, a {@link com.github.michaelsteven.archetype.quarkus.items.model.CountedPage} with the strategy
+	 *         that was used, which may fall back from approximate to cached, or a slice without total for none
+	 */
+	public abstract Slice<ItemDto> getItems(Pageable pageable, ItemFilter filter, Set<ItemField> fields, CountStrategy countStrategy);
+	
+	/**
+	 * Gets the items using keyset pagination.  Each page seeks past the position
+	 * in the cursor rather than skipping an offset, and no total count is run.
+	 *
+	 * @param cursor the continuation token of the previous page, null or empty for the first page
+	 * @param size the page size
+	 * @param sort the sort, only used for the first page
+	 * @param filter the filter, the same for every page
+	 * @param fields the fields to return; the id and version are always returned
 	 * @return the items
 	 */
-	public abstract Page<ItemDto> getItems(Pageable pageable);
+	public abstract KeysetPage<ItemDto> getItems(String cursor, int size, Sort sort, ItemFilter filter, Set<ItemField> fields);
+	
+	/**
+	 * Passes every item, in id order, to the consumer as it is read from the database,
+	 * without holding the items in memory.
+	 *
+	 * @param consumer the consumer
+	 */
+	public abstract void exportItems(@NotNull Consumer<ItemDto> consumer);
+	
+	/**
+	 * Import items.  The records are read, validated and written in batches as they
+	 * arrive, so the input is never held in memory.  Records that can not be parsed or
+	 * fail validation are rejected; the records of a batch that can not be written fail.
+	 *
+	 * @param reader the reader of the records
+	 * @return the summary of the import
+	 * @throws IOException Signals that the input could not be read.
+	 */
+	public abstract ImportSummaryDto importItems(@NotNull ItemRecordReader reader) throws IOException;
 	
 	/**
 	 * Gets the item by id.
@@ -32,6 +81,50 @@ public interface ItemsService {
 	 */
 	public abstract Optional<ItemDto> getItemById(long id);
 	
+	/**
+	 * Gets the items with the given ids, in the order asked for; ids that do not
+	 * exist are left out and repeated ids returned once.
+	 *
+	 * @param ids the ids
+	 * @return the items
+	 */
+	public abstract List<ItemDto> getItemsById(@NotNull List<Long> ids);
+	
+	/**
+	 * Gets the version and last modification time of an item, from the cache
+	 * or without loading the rest of the item.
+	 *
+	 * @param id the id
+	 * @return the item version
+	 */
+	public abstract Optional<ItemVersion> getItemVersion(long id);
+	
+	/**
+	 * Searches the names and descriptions of the items for the terms of a query,
+	 * best match first.
+	 *
+	 * @param query the query
+	 * @param pageable the pageable
+	 * @return the matching items, with their id, name, description and version
+	 */
+	public abstract Page<ItemDto> searchItems(String query, Pageable pageable);
+	
+	/**
+	 * Suggests items whose name, or a word of it, starts with a prefix.
+	 *
+	 * @param prefix the prefix
+	 * @param size the maximum number of suggestions
+	 * @return the suggested items, with their id, name, description and version
+	 */
+	public abstract List<ItemDto> suggestItems(String prefix, int size);
+	
+	/**
+	 * Starts rebuilding the search index from the database.
+	 *
+	 * @return true, if started; false if a rebuild is already running
+	 */
+	public abstract boolean rebuildSearchIndex();
+	
 	/**
 	 * Save item.
 	 *
@@ -40,6 +133,15 @@ public interface ItemsService {
 	 */
 	public abstract ConfirmationDto saveItem(@NotNull @Valid ItemDto itemDto);
 	
+	/**
+	 * Save items in one transaction.  Items that fail validation are not saved
+	 * and are reported with a FAILED confirmation.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return one confirmation dto per item, in the same order
+	 */
+	public abstract List<ConfirmationDto> saveItems(@NotNull List<ItemDto> itemDtos);
+	
 	/**
 	 * Edits the item.
 	 *
@@ -48,11 +150,49 @@ public interface ItemsService {
 	 */
 	public abstract ConfirmationDto editItem(@NotNull @Valid ItemDto itemDto);
 	
+	/**
+	 * Edits the item if it is still at the expected version.
+	 *
+	 * @param itemDto the item dto
+	 * @param expectedVersion the expected version
+	 * @return the confirmation dto
+	 */
+	public abstract ConfirmationDto editItem(@NotNull @Valid ItemDto itemDto, long expectedVersion);
+	
+	/**
+	 * Edits items in one transaction.  Items that fail validation or do not exist
+	 * are not saved and are reported with a FAILED confirmation.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return one confirmation dto per item, in the same order
+	 */
+	public abstract List<ConfirmationDto> editItems(@NotNull List<ItemDto> itemDtos);
+	
 	/**
 	 * Delete item by id.
 	 *
 	 * @param id the id
+	 * @return the number of deleted items, 0 if it did not exist
+	 */
+	public abstract int deleteItemById(long id);
+	
+	/**
+	 * Delete items by id in one transaction.  Ids that do not exist are reported
+	 * with a FAILED confirmation.
+	 *
+	 * @param ids the ids
+	 * @return one confirmation dto per id, in the same order
+	 */
+	public abstract List<ConfirmationDto> deleteItemsById(@NotNull List<Long> ids);
+	
+	/**
+	 * Purge items.  The ids are read and deleted in batches as they arrive, each batch
+	 * with one statement in a transaction of its own, so the input is never held in memory.
+	 *
+	 * @param reader the reader of the ids
+	 * @return the summary of the purge
+	 * @throws IOException Signals that the input could not be read.
 	 */
-	public abstract void deleteItemById(long id);
+	public abstract DeleteSummaryDto purgeItems(@NotNull ItemIdReader reader) throws IOException;
 
 }
@@ -1,32 +1,75 @@
 package com.github.michaelsteven.archetype.quarkus.items.service;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
 import javax.validation.ValidationException;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCache;
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCountCache;
+import com.github.michaelsteven.archetype.quarkus.items.exception.ItemVersionMismatchException;
+import com.github.michaelsteven.archetype.quarkus.items.execution.RequestCoalescer;
 import com.github.michaelsteven.archetype.quarkus.items.interceptor.TraceLog;
 import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountStrategy;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountedPage;
+import com.github.michaelsteven.archetype.quarkus.items.model.DeleteSummaryDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ImportSummaryDto;
 import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
 import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
 import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemVersion;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
 import com.github.michaelsteven.archetype.quarkus.items.model.event.Compliance;
 import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutbox;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemQueryRepository;
 import com.github.michaelsteven.archetype.quarkus.items.repository.ItemRepository;
+import com.github.michaelsteven.archetype.quarkus.items.search.ItemSearchIndex;
+
+import io.micrometer.core.annotation.Timed;
 
 /**
  * The Class ItemsServiceImpl.
@@ -37,25 +80,238 @@ public class ItemsServiceImpl implements ItemsService {
 		
 	public static final Logger logger = LoggerFactory.getLogger(ItemsServiceImpl.class);
 	
+	/** The name of the coalesced reads by id. */
+	static final String ITEM_READ = "item";
+	
+	/** The name of the coalesced listings. */
+	static final String LISTING_READ = "listing";
+	
 	@Inject
 	ItemRepository itemRepository;
 	
-	private MessageSource messageSource;
+	@Inject
+	ItemQueryRepository itemQueryRepository;
+	
+	@Inject
+	ItemCache itemCache;
+	
+	@Inject
+	ItemCountCache itemCountCache;
+	
+	@Inject
+	EntityManager entityManager;
+	
+	@Inject
+	Validator validator;
+	
+	@Inject
+	ItemBatchWriter itemBatchWriter;
+	
+	@Inject
+	ItemSearchIndex itemSearchIndex;
+	
+	@Inject
+	ItemOutbox itemOutbox;
+	
+	@Inject
+	ManagedExecutor managedExecutor;
+	
+	@Inject
+	RequestCoalescer requestCoalescer;
+	
+	@Inject
+	ItemBatchLoader itemBatchLoader;
+	
+	/** The number of items written per JDBC batch by the bulk operations. */
+	@ConfigProperty(name = "items.bulk.batch-size", defaultValue = "50")
+	int batchSize;
+	
+	/** The maximum number of items accepted by one bulk operation. */
+	@ConfigProperty(name = "items.bulk.max-items", defaultValue = "1000")
+	int maxBulkItems;
 	
+	/** The number of records written per transaction by the import. */
+	@ConfigProperty(name = "items.import.batch-size", defaultValue = "1000")
+	int importBatchSize;
 	
+	/** The number of ids deleted per statement and transaction by the purge. */
+	@ConfigProperty(name = "items.purge.batch-size", defaultValue = "1000")
+	int purgeBatchSize;
+	
+	/** The maximum number of errors reported by an import. */
+	@ConfigProperty(name = "items.import.max-errors", defaultValue = "100")
+	int maxImportErrors;
+	
+	/** The number of rows fetched per round trip by the export. */
+	@ConfigProperty(name = "items.export.fetch-size", defaultValue = "500")
+	int exportFetchSize;
 	
 	
 	/**
-	 * Gets the items.
+	 * Gets the items.  Only the requested columns are selected, straight into item
+	 * dtos, so no entities are loaded into the persistence context.  The total is only
+	 * counted when the page does not tell it, and then as the count strategy says.
+	 * The table statistics only cover unfiltered listings, so an approximate count
+	 * falls back to a cached one for filtered listings or without statistics; a
+	 * cached or approximate total is raised to what the page shows there is at least.
+	 * Identical listings in flight at the same time share one query.
 	 *
 	 * @param pageable the pageable
+	 * @param filter the filter
+	 * @param fields the fields
+	 * @param countStrategy the count strategy
 	 * @return the items
 	 */
 	@Override
+	@Timed(value = "items.service", histogram = true)
 	@Compliance(action = ComplianceAction.read)
-	public Page<ItemDto> getItems(Pageable pageable){
-		Page<ItemEntity> page = itemRepository.findAll(pageable);
-		return page.map(obj -> convert(obj));
+	public Slice<ItemDto> getItems(Pageable pageable, ItemFilter filter, Set<ItemField> fields, CountStrategy countStrategy){
+		return requestCoalescer.coalesce(LISTING_READ, Arrays.asList(pageable, filter, fields, countStrategy),
+				() -> findItems(pageable, filter, fields, countStrategy));
+	}
+	
+	
+	/**
+	 * Finds a page of items and its total.
+	 *
+	 * @param pageable the pageable
+	 * @param filter the filter
+	 * @param fields the fields
+	 * @param countStrategy the count strategy
+	 * @return the items
+	 */
+	private Slice<ItemDto> findItems(Pageable pageable, ItemFilter filter, Set<ItemField> fields, CountStrategy countStrategy){
+		if(CountStrategy.none == countStrategy) {
+			// fetch one extra row to find out whether there is a next page
+			List<ItemDto> items = itemQueryRepository.findAll(withIdentity(fields), filter, pageable.getSort(),
+					pageable.getOffset(), pageable.getPageSize() + 1);
+			boolean hasNext = items.size() > pageable.getPageSize();
+			return new SliceImpl<>(hasNext ? new ArrayList<>(items.subList(0, pageable.getPageSize())) : items, pageable, hasNext);
+		}
+		List<ItemDto> items = itemQueryRepository.findAll(withIdentity(fields), filter, pageable.getSort(),
+				pageable.getOffset(), pageable.getPageSize());
+		long shown = pageable.getOffset() + items.size();
+		if(items.size() < pageable.getPageSize() && (items.size() > 0 || pageable.getOffset() == 0)) {
+			return new CountedPage<>(items, pageable, shown, CountStrategy.exact);
+		}
+		CountStrategy used = countStrategy;
+		OptionalLong estimate = OptionalLong.empty();
+		if(CountStrategy.approximate == used) {
+			estimate = filter.isEmpty() ? itemQueryRepository.estimateCount() : OptionalLong.empty();
+			used = estimate.isPresent() ? used : CountStrategy.cached;
+		}
+		switch(used) {
+			case approximate:
+				return new CountedPage<>(items, pageable, Math.max(shown, estimate.getAsLong()), used);
+			case cached:
+				return new CountedPage<>(items, pageable, Math.max(shown, itemCountCache.get(filter, () -> itemQueryRepository.count(filter))), used);
+			default:
+				return new CountedPage<>(items, pageable, itemQueryRepository.count(filter), CountStrategy.exact);
+		}
+	}
+	
+	
+	/**
+	 * Gets the items using keyset pagination.
+	 *
+	 * @param cursor the cursor
+	 * @param size the size
+	 * @param sort the sort
+	 * @param filter the filter
+	 * @param fields the fields
+	 * @return the items
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public KeysetPage<ItemDto> getItems(String cursor, int size, Sort sort, ItemFilter filter, Set<ItemField> fields){
+		if(size < 1) {
+			throw new ValidationException("Page size must be at least 1");
+		}
+		ItemCursor itemCursor = (null == cursor || cursor.isEmpty()) ? ItemCursor.first(sort) : ItemCursor.decode(cursor);
+		
+		// the sort key is selected for the next cursor even when it was not requested
+		Set<ItemField> selected = withIdentity(fields);
+		ItemField sortField = ItemField.ofProperty(itemCursor.getProperty());
+		boolean sortFieldRequested = !selected.add(sortField);
+		
+		// fetch one extra row to find out whether there is a next page
+		List<ItemDto> items = itemQueryRepository.findAfter(selected, filter, itemCursor.getProperty(), itemCursor.isAscending(),
+				itemCursor.getLastKey(), itemCursor.getLastId(), size + 1);
+		boolean hasNext = items.size() > size;
+		List<ItemDto> content = hasNext ? new ArrayList<>(items.subList(0, size)) : items;
+		String nextCursor = hasNext ? itemCursor.after(content.get(size - 1)).encode() : null;
+		if(!sortFieldRequested) {
+			content.forEach(itemDto -> sortField.set(itemDto, null));
+		}
+		return new KeysetPage<>(content, size, hasNext, nextCursor);
+	}
+	
+	
+	/**
+	 * Export items.
+	 *
+	 * @param consumer the consumer
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public void exportItems(@NotNull Consumer<ItemDto> consumer) {
+		itemQueryRepository.forEach(exportFetchSize, entity -> consumer.accept(ItemMapper.convert(entity)));
+	}
+	
+	
+	/**
+	 * Import items.  Valid records are collected into batches of the import batch size;
+	 * each batch is written in a transaction of its own on another thread while the next
+	 * one is read.  Reading waits for the previous write before handing over a batch, so
+	 * at most two batches are held however large the input is.
+	 *
+	 * @param reader the reader
+	 * @return the import summary
+	 * @throws IOException Signals that the input could not be read.
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	public ImportSummaryDto importItems(@NotNull ItemRecordReader reader) throws IOException {
+		ImportSummaryDto summary = new ImportSummaryDto();
+		PendingBatch pending = null;
+		List<ItemEntity> batch = new ArrayList<>(importBatchSize);
+		long record = 0;
+		Instant now = Instant.now();
+		for(;;) {
+			ItemDto itemDto;
+			try {
+				itemDto = reader.next();
+			}
+			catch(ValidationException e) {
+				reject(summary, ++record, Collections.singletonList(e.getMessage()));
+				continue;
+			}
+			if(null == itemDto) {
+				break;
+			}
+			record++;
+			List<String> errors = validate(validator, itemDto);
+			if(!errors.isEmpty()) {
+				reject(summary, record, errors);
+				continue;
+			}
+			ItemEntity itemEntity = ItemMapper.convert(itemDto);
+			itemEntity.setId(null);
+			itemEntity.setCreatedTimestamp(now);
+			batch.add(itemEntity);
+			if(batch.size() == importBatchSize) {
+				complete(summary, pending);
+				pending = write(batch, record);
+				batch = new ArrayList<>(importBatchSize);
+			}
+		}
+		complete(summary, pending);
+		if(!batch.isEmpty()) {
+			complete(summary, write(batch, record));
+		}
+		return summary;
 	}
 	
 	
@@ -66,10 +322,112 @@ public class ItemsServiceImpl implements ItemsService {
 	 * @return the item by id
 	 */
 	@Override
+	@Timed(value = "items.service", histogram = true)
 	@Compliance(action = ComplianceAction.read)
 	public Optional<ItemDto> getItemById(long id){
-		Optional<ItemEntity> optionalEntity = itemRepository.findById(id);
-		return optionalEntity.map(entity -> Optional.of(convert(entity))).orElse(Optional.empty());
+		return itemCache.get(id, key -> requestCoalescer.coalesce(ITEM_READ, key, () -> itemBatchLoader.load(key)));
+	}
+	
+	
+	/**
+	 * Gets the items by id.  Cached items are taken from the cache and the others
+	 * read by the batch loader, together with the reads by id of other requests
+	 * when batching is on, and cached.
+	 *
+	 * @param ids the ids
+	 * @return the items
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public List<ItemDto> getItemsById(@NotNull List<Long> ids) {
+		checkBulkSize(ids);
+		Set<Long> distinct = new LinkedHashSet<>(ids);
+		Map<Long, ItemDto> items = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for(Long id : distinct) {
+			ItemDto cached = itemCache.getIfPresent(id);
+			if(null == cached) {
+				missing.add(id);
+			}
+			else {
+				items.put(id, cached);
+			}
+		}
+		Map<Long, ItemDto> loaded = itemBatchLoader.loadAll(missing);
+		for(Long id : missing) {
+			itemCache.get(id, key -> Optional.ofNullable(loaded.get(key))).ifPresent(itemDto -> items.put(id, itemDto));
+		}
+		return distinct.stream().map(items::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+	
+	
+	/**
+	 * Search items, in the search index rather than the database.
+	 *
+	 * @param query the query
+	 * @param pageable the pageable
+	 * @return the items
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public Page<ItemDto> searchItems(String query, Pageable pageable) {
+		if(null == query || query.trim().isEmpty()) {
+			throw new ValidationException("The query must not be empty");
+		}
+		return itemSearchIndex.search(query, pageable);
+	}
+	
+	
+	/**
+	 * Suggest items, from the search index rather than the database.
+	 *
+	 * @param prefix the prefix
+	 * @param size the size
+	 * @return the items
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public List<ItemDto> suggestItems(String prefix, int size) {
+		if(null == prefix || prefix.trim().isEmpty()) {
+			throw new ValidationException("The prefix must not be empty");
+		}
+		if(size < 1) {
+			throw new ValidationException("Size must be at least 1");
+		}
+		return itemSearchIndex.suggest(prefix, size);
+	}
+	
+	
+	/**
+	 * Rebuild search index.
+	 *
+	 * @return true, if started
+	 */
+	@Override
+	public boolean rebuildSearchIndex() {
+		return itemSearchIndex.rebuild();
+	}
+	
+	
+	/**
+	 * Gets the item version.  A cached item answers without a query.
+	 *
+	 * @param id the id
+	 * @return the item version
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Compliance(action = ComplianceAction.read)
+	public Optional<ItemVersion> getItemVersion(long id){
+		ItemDto cached = itemCache.getIfPresent(id);
+		if(null != cached) {
+			return Optional.of(new ItemVersion(cached.getVersion(),
+					null == cached.getDateModified() ? null : cached.getDateModified().toInstant()));
+		}
+		return itemQueryRepository.findVersion(id);
 	}
 	
 	
@@ -80,52 +438,406 @@ public class ItemsServiceImpl implements ItemsService {
 	 * @return the confirmation dto
 	 */
 	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
 	@Compliance(action = ComplianceAction.create)
 	public ConfirmationDto saveItem(@NotNull @Valid ItemDto itemDto) {
-		ItemEntity itemEntity = convert(itemDto);
+		ItemEntity itemEntity = ItemMapper.convert(itemDto);
 		itemEntity.setCreatedTimestamp(Instant.now());
 		ItemEntity savedEntity = itemRepository.save(itemEntity);
+		itemOutbox.record(ItemChangeType.created, savedEntity);
 		return createConfirmationDto(ItemStatus.SUBMITTED, savedEntity);
 	}
 	
 	
 	/**
-	 * Edits the item.
+	 * Save items.  Valid items are persisted and flushed every batch size items
+	 * so that hibernate sends them as JDBC batches.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
+	@Compliance(action = ComplianceAction.create)
+	public List<ConfirmationDto> saveItems(@NotNull List<ItemDto> itemDtos) {
+		checkBulkSize(itemDtos);
+		List<ConfirmationDto> confirmations = new ArrayList<>(itemDtos.size());
+		int pending = 0;
+		Instant now = Instant.now();
+		for(ItemDto itemDto : itemDtos) {
+			List<String> errors = validate(validator, itemDto);
+			if(!errors.isEmpty()) {
+				confirmations.add(createFailedConfirmationDto(null, errors));
+				continue;
+			}
+			ItemEntity itemEntity = ItemMapper.convert(itemDto);
+			itemEntity.setId(null);
+			itemEntity.setCreatedTimestamp(now);
+			entityManager.persist(itemEntity);
+			itemOutbox.record(ItemChangeType.created, itemEntity);
+			confirmations.add(createConfirmationDto(ItemStatus.SUBMITTED, itemEntity));
+			if(++pending == batchSize) {
+				flushAndClear();
+				pending = 0;
+			}
+		}
+		flushAndClear();
+		return confirmations;
+	}
+	
+	
+	/**
+	 * Edits the item.  The item is loaded and updated with a version check, so an
+	 * update committed in between fails with an optimistic lock exception instead
+	 * of being overwritten.
 	 *
 	 * @param itemDto the item dto
 	 * @return the confirmation dto
 	 */
 	@Override
+	@Timed(value = "items.service", histogram = true)
 	@Transactional
 	@Compliance(action = ComplianceAction.update)
 	public ConfirmationDto editItem(@NotNull @Valid ItemDto itemDto) {
 		return itemRepository.findById(itemDto.getId())
 				.map( entity -> { 
-						applyToEntity(itemDto, entity); // call to void method - original entity modified byref
-						return entity; 
+						itemCache.invalidateAfterCompletion(entity.getId());
+						ItemMapper.applyToEntity(itemDto, entity); // call to void method - original entity modified byref
+						entityManager.flush(); // a conflict surfaces here rather than at commit
+						itemOutbox.record(ItemChangeType.updated, entity);
+						return createConfirmationDto(ItemStatus.SUBMITTED, entity);
 					})
-				.map( itemRepository::save )
-				.map( savedItem -> createConfirmationDto(ItemStatus.SUBMITTED, savedItem) )
-				.orElseThrow( () -> new ValidationException (
-							messageSource.getMessage("itemsservice.validationexception.entitynotfoundforid", 
-								new Object[] { String.valueOf(itemDto.getId()) },
-								//LocaleContextHolder.getLocale()
-								Locale.US
-							)
-						)
-					);
+				.orElseThrow( () -> new ValidationException("No item found for ID " + itemDto.getId()) );
+	}
+	
+	
+	/**
+	 * Edits the item if it is still at the expected version, in one update statement
+	 * without loading it first.  Only when no row was updated is the version looked up,
+	 * to tell a missing item from a changed one.  The outbox entry and the confirmation
+	 * carry the version and updated timestamp the statement set, not the creation time,
+	 * which is not read.
+	 *
+	 * @param itemDto the item dto
+	 * @param expectedVersion the expected version
+	 * @return the confirmation dto
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
+	@Compliance(action = ComplianceAction.update)
+	public ConfirmationDto editItem(@NotNull @Valid ItemDto itemDto, long expectedVersion) {
+		ItemEntity entity = ItemMapper.convert(itemDto);
+		entity.setUpdatedTimestamp(Instant.now());
+		if(0 == itemQueryRepository.updateIfVersion(entity, expectedVersion)) {
+			Long currentVersion = itemQueryRepository.findVersion(itemDto.getId())
+					.map(ItemVersion::getVersion)
+					.orElseThrow( () -> new ValidationException("No item found for ID " + itemDto.getId()) );
+			throw new ItemVersionMismatchException(itemDto.getId(), expectedVersion, currentVersion);
+		}
+		entity.setVersion(expectedVersion + 1);
+		itemCache.invalidateAfterCompletion(entity.getId());
+		itemOutbox.record(ItemChangeType.updated, entity);
+		return createConfirmationDto(ItemStatus.SUBMITTED, entity);
 	}
 	
 	
 	/**
-	 * Delete item by id.
+	 * Edits items.  The existing items are loaded one batch at a time and
+	 * flushed as JDBC batches.  An item that carries a version is only updated
+	 * while it is at that version.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
+	@Compliance(action = ComplianceAction.update)
+	public List<ConfirmationDto> editItems(@NotNull List<ItemDto> itemDtos) {
+		checkBulkSize(itemDtos);
+		List<ConfirmationDto> confirmations = new ArrayList<>(itemDtos.size());
+		for(int start = 0; start < itemDtos.size(); start += batchSize) {
+			int end = Math.min(start + batchSize, itemDtos.size());
+			List<ItemDto> chunk = itemDtos.subList(start, end);
+			Map<Long, ItemEntity> entities = findAllById(chunk.stream()
+					.filter(itemDto -> null != itemDto && null != itemDto.getId())
+					.map(ItemDto::getId)
+					.collect(Collectors.toSet()));
+			Map<Integer, ItemEntity> updated = new HashMap<>();
+			Map<Integer, List<String>> failed = new HashMap<>();
+			for(int i = start; i < end; i++) {
+				ItemDto itemDto = itemDtos.get(i);
+				Long id = null == itemDto ? null : itemDto.getId();
+				List<String> errors = validate(validator, itemDto);
+				ItemEntity entity = null == id ? null : entities.get(id);
+				if(null == entity) {
+					errors = new ArrayList<>(errors);
+					errors.add("id: No item found for ID " + id);
+				}
+				else if(null != itemDto.getVersion() && !itemDto.getVersion().equals(entity.getVersion())) {
+					errors = new ArrayList<>(errors);
+					errors.add("version: Expected version " + itemDto.getVersion() + " but the item is at version " + entity.getVersion());
+				}
+				if(!errors.isEmpty()) {
+					failed.put(i, errors);
+					continue;
+				}
+				itemCache.invalidateAfterCompletion(entity.getId());
+				ItemMapper.applyToEntity(itemDto, entity);
+				updated.put(i, entity);
+			}
+			// flush first, so the outbox entries and confirmations carry the new versions
+			entityManager.flush();
+			for(int i = start; i < end; i++) {
+				ItemEntity entity = updated.get(i);
+				if(null == entity) {
+					ItemDto itemDto = itemDtos.get(i);
+					confirmations.add(createFailedConfirmationDto(null == itemDto ? null : itemDto.getId(), failed.get(i)));
+					continue;
+				}
+				itemOutbox.record(ItemChangeType.updated, entity);
+				confirmations.add(createConfirmationDto(ItemStatus.SUBMITTED, entity));
+			}
+			flushAndClear();
+		}
+		return confirmations;
+	}
+	
+	
+	/**
+	 * Delete item by id, without loading it.
 	 *
 	 * @param id the id
+	 * @return the number of deleted items
 	 */
 	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
 	@Compliance(action = ComplianceAction.delete)
-	public void deleteItemById(long id){
-		itemRepository.findById(id).ifPresent(entity -> itemRepository.delete(entity));
+	public int deleteItemById(long id){
+		List<Long> ids = Collections.singletonList(id);
+		itemCache.invalidateAfterCompletion(id);
+		itemOutbox.recordDeleted(ids);
+		return itemQueryRepository.deleteAllById(ids);
+	}
+	
+	
+	/**
+	 * Delete items by id.  The existing ids are looked up one batch at a time and
+	 * deleted with one statement per batch, without loading the items.
+	 *
+	 * @param ids the ids
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	@Transactional
+	@Compliance(action = ComplianceAction.delete)
+	public List<ConfirmationDto> deleteItemsById(@NotNull List<Long> ids) {
+		checkBulkSize(ids);
+		List<ConfirmationDto> confirmations = new ArrayList<>(ids.size());
+		for(int start = 0; start < ids.size(); start += batchSize) {
+			List<Long> chunk = ids.subList(start, Math.min(start + batchSize, ids.size()));
+			Set<Long> requested = chunk.stream()
+					.filter(id -> null != id)
+					.collect(Collectors.toSet());
+			Set<Long> existing = requested.isEmpty() ? Collections.emptySet()
+					: new HashSet<>(itemQueryRepository.findExistingIds(requested));
+			List<Long> deletes = new ArrayList<>(existing);
+			for(Long id : chunk) {
+				if(null == id || !existing.remove(id)) {
+					confirmations.add(createFailedConfirmationDto(id, Collections.singletonList("id: No item found for ID " + id)));
+					continue;
+				}
+				ConfirmationDto confirmationDto = new ConfirmationDto();
+				confirmationDto.setId(id);
+				confirmationDto.setStatus(ItemStatus.PROCESSED);
+				confirmations.add(confirmationDto);
+			}
+			if(!deletes.isEmpty()) {
+				itemCache.invalidateAfterCompletion(deletes);
+				itemOutbox.recordDeleted(deletes);
+				itemQueryRepository.deleteAllById(deletes);
+			}
+		}
+		return confirmations;
+	}
+	
+	
+	/**
+	 * Purge items.  Each batch of the purge batch size distinct ids is deleted in a
+	 * transaction of its own.  A failing batch stops the purge; the batches before it
+	 * stay deleted, so the purge can simply be repeated.
+	 *
+	 * @param reader the reader
+	 * @return the delete summary
+	 * @throws IOException Signals that the input could not be read.
+	 */
+	@Override
+	@Timed(value = "items.service", histogram = true)
+	public DeleteSummaryDto purgeItems(@NotNull ItemIdReader reader) throws IOException {
+		DeleteSummaryDto summary = new DeleteSummaryDto();
+		Set<Long> batch = new HashSet<>();
+		for(Long id = reader.next(); null != id; id = reader.next()) {
+			summary.setRequested(summary.getRequested() + 1);
+			batch.add(id);
+			if(batch.size() == purgeBatchSize) {
+				summary.setDeleted(summary.getDeleted() + itemBatchWriter.delete(batch));
+				batch = new HashSet<>();
+			}
+		}
+		if(!batch.isEmpty()) {
+			summary.setDeleted(summary.getDeleted() + itemBatchWriter.delete(batch));
+		}
+		return summary;
+	}
+	
+	
+	/**
+	 * Starts writing a batch of imported items.
+	 *
+	 * @param batch the batch
+	 * @param lastRecord the number of the last record of the batch
+	 * @return the pending batch
+	 */
+	private PendingBatch write(List<ItemEntity> batch, long lastRecord) {
+		CompletableFuture<RuntimeException> result = CompletableFuture.supplyAsync(() -> {
+			try {
+				itemBatchWriter.insert(batch);
+				return null;
+			}
+			catch(RuntimeException e) {
+				logger.warn("Import batch ending at record {} failed", lastRecord, e);
+				return e;
+			}
+		}, managedExecutor);
+		return new PendingBatch(batch.size(), lastRecord, result);
+	}
+	
+	
+	/**
+	 * Waits for a batch to be written and adds its outcome to the summary.
+	 *
+	 * @param summary the summary
+	 * @param pending the pending batch, may be null
+	 */
+	private void complete(ImportSummaryDto summary, PendingBatch pending) {
+		if(null == pending) {
+			return;
+		}
+		RuntimeException failure = pending.result.join();
+		if(null == failure) {
+			summary.setAccepted(summary.getAccepted() + pending.size);
+		}
+		else {
+			summary.setFailed(summary.getFailed() + pending.size);
+			addError(summary, "records up to " + pending.lastRecord + ": " + failure.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * Counts a rejected record and records its errors.
+	 *
+	 * @param summary the summary
+	 * @param record the number of the record
+	 * @param errors the errors
+	 */
+	private void reject(ImportSummaryDto summary, long record, List<String> errors) {
+		summary.setRejected(summary.getRejected() + 1);
+		for(String error : errors) {
+			addError(summary, "record " + record + ": " + error);
+		}
+	}
+	
+	
+	/**
+	 * Adds an error to the summary unless it already holds the maximum number of errors.
+	 *
+	 * @param summary the summary
+	 * @param error the error
+	 */
+	private void addError(ImportSummaryDto summary, String error) {
+		if(summary.getErrors().size() < maxImportErrors) {
+			summary.getErrors().add(error);
+		}
+	}
+	
+	
+	/**
+	 * Checks that a bulk request is not empty and within the configured limit.
+	 *
+	 * @param items the items
+	 */
+	private void checkBulkSize(List<?> items) {
+		if(items.isEmpty() || items.size() > maxBulkItems) {
+			throw new ValidationException("A bulk request must contain between 1 and " + maxBulkItems + " items");
+		}
+	}
+	
+	
+	/**
+	 * Validates an item against its constraints.
+	 *
+	 * @param validator the validator
+	 * @param itemDto the item dto
+	 * @return the constraint violation messages, empty if the item is valid
+	 */
+	static List<String> validate(Validator validator, ItemDto itemDto) {
+		if(null == itemDto) {
+			return Collections.singletonList("Cannot be null.");
+		}
+		Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+		if(violations.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.collect(Collectors.toList());
+	}
+	
+	
+	/**
+	 * Loads the items with the given ids in one query.
+	 *
+	 * @param ids the ids
+	 * @return the items by id
+	 */
+	private Map<Long, ItemEntity> findAllById(Set<Long> ids) {
+		if(ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return itemRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(ItemEntity::getId, Function.identity()));
+	}
+	
+	
+	/**
+	 * Flushes the pending changes as one JDBC batch and detaches the written
+	 * entities so the persistence context does not grow with the request.
+	 */
+	private void flushAndClear() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+	
+	
+	/**
+	 * Creates the confirmation dto for an item that was not written.
+	 *
+	 * @param id the id, if known
+	 * @param errors the errors
+	 * @return the confirmation dto
+	 */
+	static ConfirmationDto createFailedConfirmationDto(Long id, List<String> errors) {
+		ConfirmationDto confirmationDto = new ConfirmationDto();
+		confirmationDto.setId(id);
+		confirmationDto.setStatus(ItemStatus.FAILED);
+		confirmationDto.setErrors(errors);
+		return confirmationDto;
 	}
 	
 	
@@ -136,11 +848,12 @@ public class ItemsServiceImpl implements ItemsService {
 	 * @param entity the entity
 	 * @return the confirmation dto
 	 */
-	private ConfirmationDto createConfirmationDto(ItemStatus itemStatus, ItemEntity entity) {
+	static ConfirmationDto createConfirmationDto(ItemStatus itemStatus, ItemEntity entity) {
 		ConfirmationDto confirmationDto = new ConfirmationDto();
 		confirmationDto.setStatus(itemStatus);
 		if(null != entity) {
 			confirmationDto.setId(entity.getId());
+			confirmationDto.setVersion(entity.getVersion());
 			if(null != entity.getCreatedTimestamp()) {
 				ZonedDateTime dateSubmitted = ZonedDateTime.ofInstant(entity.getCreatedTimestamp(), ZoneOffset.UTC);
 				confirmationDto.setDateSubmitted(dateSubmitted);
@@ -152,47 +865,47 @@ public class ItemsServiceImpl implements ItemsService {
 		return confirmationDto;
 	}
 	
+
 	/**
-	 * Convert.
+	 * Adds the id and version to the requested fields; they identify an item
+	 * and the entity tag of the page it is listed in.
 	 *
-	 * @param sourceDto the source dto
-	 * @return the item entity
+	 * @param fields the requested fields
+	 * @return the fields to select
 	 */
-	private ItemEntity convert(ItemDto sourceDto) {
-		ItemEntity entity = new ItemEntity();
-		applyToEntity(sourceDto, entity);
-		return entity;
+	private static Set<ItemField> withIdentity(Set<ItemField> fields) {
+		Set<ItemField> selected = EnumSet.of(ItemField.id, ItemField.version);
+		selected.addAll(fields);
+		return selected;
 	}
 	
-	/**
-	 * Apply changes to entity.
-	 *
-	 * @param sourceDto the source dto
-	 * @param targetEntity the target entity
-	 */
-	private void applyToEntity(@NotNull ItemDto sourceDto, ItemEntity targetEntity) {
-		if(null != targetEntity) {
-			targetEntity.setId(sourceDto.getId());
-			targetEntity.setName(sourceDto.getName());
-			targetEntity.setDescription(sourceDto.getDescription());
-		}
-	}
 	
 	/**
-	 * Convert.
-	 *
-	 * @param sourceEntity the source entity
-	 * @return the item dto
+	 * An import batch that is being written.
 	 */
-	private ItemDto convert(ItemEntity sourceEntity) {
-		if(null == sourceEntity) {
-			return null;
-		}
-		ZonedDateTime dateSubmitted = null;
+	private static final class PendingBatch {
+		
+		/** The number of items in the batch. */
+		final int size;
+		
+		/** The number of the last record of the batch. */
+		final long lastRecord;
+		
+		/** The failure of the write, null when it succeeded. */
+		final CompletableFuture<RuntimeException> result;
+		
 		
-		if(null != sourceEntity.getCreatedTimestamp()) {
-			dateSubmitted = ZonedDateTime.ofInstant(sourceEntity.getCreatedTimestamp(), ZoneOffset.UTC);
+		/**
+		 * Instantiates a new pending batch.
+		 *
+		 * @param size the size
+		 * @param lastRecord the last record
+		 * @param result the result
+		 */
+		PendingBatch(int size, long lastRecord, CompletableFuture<RuntimeException> result) {
+			this.size = size;
+			this.lastRecord = lastRecord;
+			this.result = result;
 		}
-		return new ItemDto(sourceEntity.getId(), sourceEntity.getName(), sourceEntity.getDescription(), dateSubmitted);
 	}
 }
@@ -0,0 +1,100 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
+
+import io.smallrye.mutiny.Uni;
+
+/**
+ * The Interface ReactiveItemsService.  The non blocking counterpart of {@link ItemsService},
+ * with the same behaviour; every result is emitted once the database has answered,
+ * without a thread waiting on it.
+ */
+public interface ReactiveItemsService {
+	
+	/**
+	 * Gets the items.
+	 *
+	 * @param pageable the pageable
+	 * @return the items
+	 */
+	public abstract Uni<Page<ItemDto>> getItems(Pageable pageable);
+	
+	/**
+	 * Gets the items using keyset pagination.
+	 *
+	 * @param cursor the continuation token of the previous page, null or empty for the first page
+	 * @param size the page size
+	 * @param sort the sort, only used for the first page
+	 * @return the items
+	 */
+	public abstract Uni<KeysetPage<ItemDto>> getItems(String cursor, int size, Sort sort);
+	
+	/**
+	 * Gets the item by id.
+	 *
+	 * @param id the id
+	 * @return the item by id
+	 */
+	public abstract Uni<Optional<ItemDto>> getItemById(long id);
+	
+	/**
+	 * Save item.
+	 *
+	 * @param itemDto the item dto
+	 * @return the confirmation dto
+	 */
+	public abstract Uni<ConfirmationDto> saveItem(@NotNull @Valid ItemDto itemDto);
+	
+	/**
+	 * Save items in one transaction.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return one confirmation dto per item, in the same order
+	 */
+	public abstract Uni<List<ConfirmationDto>> saveItems(@NotNull List<ItemDto> itemDtos);
+	
+	/**
+	 * Edits the item.
+	 *
+	 * @param itemDto the item dto
+	 * @return the confirmation dto
+	 */
+	public abstract Uni<ConfirmationDto> editItem(@NotNull @Valid ItemDto itemDto);
+	
+	/**
+	 * Edits items in one transaction.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return one confirmation dto per item, in the same order
+	 */
+	public abstract Uni<List<ConfirmationDto>> editItems(@NotNull List<ItemDto> itemDtos);
+	
+	/**
+	 * Delete item by id.
+	 *
+	 * @param id the id
+	 * @return emits once the item is deleted
+	 */
+	public abstract Uni<Void> deleteItemById(long id);
+	
+	/**
+	 * Delete items by id in one transaction.
+	 *
+	 * @param ids the ids
+	 * @return one confirmation dto per id, in the same order
+	 */
+	public abstract Uni<List<ConfirmationDto>> deleteItemsById(@NotNull List<Long> ids);
+
+}
@@ -0,0 +1,320 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.HibernateCacheRegions;
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+import com.github.michaelsteven.archetype.quarkus.items.model.KeysetPage;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.Compliance;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutbox;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ReactiveItemRepository;
+
+import io.smallrye.mutiny.Uni;
+
+/**
+ * The Class ReactiveItemsServiceImpl.  Validation and conversion are shared with
+ * {@link ItemsServiceImpl}.  Writes evict the Hibernate cache regions, which do not see
+ * writes made without Hibernate, and once committed fire the same item change events as
+ * the blocking api, so the item cache, its peers, the search index and the cached
+ * counts follow them.
+ */
+@ApplicationScoped
+public class ReactiveItemsServiceImpl implements ReactiveItemsService {
+	
+	@Inject
+	ReactiveItemRepository reactiveItemRepository;
+	
+	@Inject
+	ItemOutbox itemOutbox;
+	
+	@Inject
+	HibernateCacheRegions hibernateCacheRegions;
+	
+	@Inject
+	Validator validator;
+	
+	/** The maximum number of items accepted by one bulk operation. */
+	@ConfigProperty(name = "items.bulk.max-items", defaultValue = "1000")
+	int maxBulkItems;
+	
+	
+	/**
+	 * Gets the items.  The page and the count are queried concurrently.
+	 *
+	 * @param pageable the pageable
+	 * @return the items
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.read)
+	public Uni<Page<ItemDto>> getItems(Pageable pageable){
+		for(Sort.Order order : pageable.getSort()) {
+			if(!ReactiveItemRepository.isSortable(order.getProperty())) {
+				throw new ValidationException("Sorting is supported on " + ItemCursor.SORT_PROPERTIES);
+			}
+		}
+		Uni<List<ItemDto>> content = reactiveItemRepository.findAll(pageable.getSort(), pageable.getOffset(), pageable.getPageSize())
+				.map(ItemMapper::convert)
+				.collectItems().asList();
+		return Uni.combine().all().unis(content, reactiveItemRepository.count()).asTuple()
+				.map(tuple -> new PageImpl<>(tuple.getItem1(), pageable, tuple.getItem2()));
+	}
+	
+	
+	/**
+	 * Gets the items using keyset pagination.
+	 *
+	 * @param cursor the cursor
+	 * @param size the size
+	 * @param sort the sort
+	 * @return the items
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.read)
+	public Uni<KeysetPage<ItemDto>> getItems(String cursor, int size, Sort sort){
+		if(size < 1) {
+			throw new ValidationException("Page size must be at least 1");
+		}
+		ItemCursor itemCursor = (null == cursor || cursor.isEmpty()) ? ItemCursor.first(sort) : ItemCursor.decode(cursor);
+	
+		// fetch one extra row to find out whether there is a next page
+		return reactiveItemRepository.findAfter(itemCursor.getProperty(), itemCursor.isAscending(),
+				itemCursor.getLastKey(), itemCursor.getLastId(), size + 1)
+				.collectItems().asList()
+				.map(entities -> {
+					boolean hasNext = entities.size() > size;
+					List<ItemEntity> content = hasNext ? entities.subList(0, size) : entities;
+					List<ItemDto> items = content.stream().map(ItemMapper::convert).collect(Collectors.toList());
+					String nextCursor = hasNext ? itemCursor.after(items.get(size - 1)).encode() : null;
+					return new KeysetPage<>(items, size, hasNext, nextCursor);
+				});
+	}
+	
+	
+	/**
+	 * Gets the item by id.
+	 *
+	 * @param id the id
+	 * @return the item by id
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.read)
+	public Uni<Optional<ItemDto>> getItemById(long id){
+		return reactiveItemRepository.findById(id)
+				.map(optionalEntity -> optionalEntity.map(ItemMapper::convert));
+	}
+	
+	
+	/**
+	 * Save item.
+	 *
+	 * @param itemDto the item dto
+	 * @return the confirmation dto
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.create)
+	public Uni<ConfirmationDto> saveItem(@NotNull @Valid ItemDto itemDto) {
+		ItemEntity itemEntity = ItemMapper.convert(itemDto);
+		itemEntity.setCreatedTimestamp(Instant.now());
+		return reactiveItemRepository.insert(itemEntity)
+				.map(savedEntity -> {
+					hibernateCacheRegions.evictListings();
+					itemOutbox.fireCommitted(ItemChangeType.created, savedEntity.getId(), savedEntity);
+					return ItemsServiceImpl.createConfirmationDto(ItemStatus.SUBMITTED, savedEntity);
+				});
+	}
+	
+	
+	/**
+	 * Save items.  Valid items are inserted in one transaction, invalid ones are reported as failed.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.create)
+	public Uni<List<ConfirmationDto>> saveItems(@NotNull List<ItemDto> itemDtos) {
+		checkBulkSize(itemDtos);
+		List<ConfirmationDto> confirmations = new ArrayList<>(itemDtos.size());
+		List<ItemEntity> entities = new ArrayList<>(itemDtos.size());
+		List<ItemEntity> inserts = new ArrayList<>(itemDtos.size());
+		Instant now = Instant.now();
+		for(ItemDto itemDto : itemDtos) {
+			List<String> errors = ItemsServiceImpl.validate(validator, itemDto);
+			if(!errors.isEmpty()) {
+				confirmations.add(ItemsServiceImpl.createFailedConfirmationDto(null, errors));
+				entities.add(null);
+				continue;
+			}
+			ItemEntity itemEntity = ItemMapper.convert(itemDto);
+			itemEntity.setId(null);
+			itemEntity.setCreatedTimestamp(now);
+			confirmations.add(null);
+			entities.add(itemEntity);
+			inserts.add(itemEntity);
+		}
+		Uni<List<ItemEntity>> inserted = inserts.isEmpty() ? Uni.createFrom().item(inserts) : reactiveItemRepository.insertAll(inserts);
+		return inserted.map(ignored -> {
+			hibernateCacheRegions.evictListings();
+			inserts.forEach(entity -> itemOutbox.fireCommitted(ItemChangeType.created, entity.getId(), entity));
+			for(int i = 0; i < confirmations.size(); i++) {
+				if(null == confirmations.get(i)) {
+					confirmations.set(i, ItemsServiceImpl.createConfirmationDto(ItemStatus.SUBMITTED, entities.get(i)));
+				}
+			}
+			return confirmations;
+		});
+	}
+	
+	
+	/**
+	 * Edits the item.
+	 *
+	 * @param itemDto the item dto
+	 * @return the confirmation dto
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.update)
+	public Uni<ConfirmationDto> editItem(@NotNull @Valid ItemDto itemDto) {
+		return reactiveItemRepository.update(ItemMapper.convert(itemDto))
+				.map(optionalEntity -> optionalEntity
+						.map(entity -> {
+							hibernateCacheRegions.evict(Collections.singleton(entity.getId()));
+							itemOutbox.fireCommitted(ItemChangeType.updated, entity.getId(), entity);
+							return ItemsServiceImpl.createConfirmationDto(ItemStatus.SUBMITTED, entity);
+						})
+						.orElseThrow(() -> new ValidationException("No item found for ID " + itemDto.getId())));
+	}
+	
+	
+	/**
+	 * Edits items.  Valid items are updated in one transaction, invalid and missing ones are reported as failed.
+	 *
+	 * @param itemDtos the item dtos
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.update)
+	public Uni<List<ConfirmationDto>> editItems(@NotNull List<ItemDto> itemDtos) {
+		checkBulkSize(itemDtos);
+		List<List<String>> validationErrors = new ArrayList<>(itemDtos.size());
+		List<ItemEntity> updates = new ArrayList<>(itemDtos.size());
+		for(ItemDto itemDto : itemDtos) {
+			List<String> errors = ItemsServiceImpl.validate(validator, itemDto);
+			validationErrors.add(errors);
+			if(errors.isEmpty() && null != itemDto.getId()) {
+				updates.add(ItemMapper.convert(itemDto));
+			}
+		}
+		Uni<Map<Long, ItemEntity>> updated = updates.isEmpty() ? Uni.createFrom().item(Collections.emptyMap()) : reactiveItemRepository.updateAll(updates);
+		return updated.map(entities -> {
+			hibernateCacheRegions.evict(entities.keySet());
+			entities.forEach((id, entity) -> itemOutbox.fireCommitted(ItemChangeType.updated, id, entity));
+			List<ConfirmationDto> confirmations = new ArrayList<>(itemDtos.size());
+			for(int i = 0; i < itemDtos.size(); i++) {
+				ItemDto itemDto = itemDtos.get(i);
+				Long id = null == itemDto ? null : itemDto.getId();
+				List<String> errors = validationErrors.get(i);
+				ItemEntity entity = null == id ? null : entities.get(id);
+				if(null == entity) {
+					errors = new ArrayList<>(errors);
+					errors.add("id: No item found for ID " + id);
+				}
+				confirmations.add(errors.isEmpty()
+						? ItemsServiceImpl.createConfirmationDto(ItemStatus.SUBMITTED, entity)
+						: ItemsServiceImpl.createFailedConfirmationDto(id, errors));
+			}
+			return confirmations;
+		});
+	}
+	
+	
+	/**
+	 * Delete item by id.
+	 *
+	 * @param id the id
+	 * @return emits once the item is deleted
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.delete)
+	public Uni<Void> deleteItemById(long id){
+		return reactiveItemRepository.deleteById(id)
+				.map(deleted -> {
+					hibernateCacheRegions.evict(Collections.singleton(id));
+					if(deleted) {
+						itemOutbox.fireCommitted(ItemChangeType.deleted, id, null);
+					}
+					return null;
+				});
+	}
+	
+	
+	/**
+	 * Delete items by id in one transaction.
+	 *
+	 * @param ids the ids
+	 * @return the confirmation dtos
+	 */
+	@Override
+	@Compliance(action = ComplianceAction.delete)
+	public Uni<List<ConfirmationDto>> deleteItemsById(@NotNull List<Long> ids) {
+		checkBulkSize(ids);
+		List<Long> deletes = ids.stream().filter(id -> null != id).distinct().collect(Collectors.toList());
+		Uni<Set<Long>> deleted = deletes.isEmpty() ? Uni.createFrom().item(Collections.emptySet()) : reactiveItemRepository.deleteAllById(deletes);
+		return deleted.map(deletedIds -> {
+			hibernateCacheRegions.evict(deletedIds);
+			deletedIds.forEach(id -> itemOutbox.fireCommitted(ItemChangeType.deleted, id, null));
+			Set<Long> unconfirmed = new HashSet<>(deletedIds);
+			List<ConfirmationDto> confirmations = new ArrayList<>(ids.size());
+			for(Long id : ids) {
+				if(null == id || !unconfirmed.remove(id)) {
+					confirmations.add(ItemsServiceImpl.createFailedConfirmationDto(id, Collections.singletonList("id: No item found for ID " + id)));
+					continue;
+				}
+				ConfirmationDto confirmationDto = new ConfirmationDto();
+				confirmationDto.setId(id);
+				confirmationDto.setStatus(ItemStatus.PROCESSED);
+				confirmations.add(confirmationDto);
+			}
+			return confirmations;
+		});
+	}
+	
+	
+	/**
+	 * Checks that a bulk request is not empty and within the configured limit.
+	 *
+	 * @param items the items
+	 */
+	private void checkBulkSize(List<?> items) {
+		if(items.isEmpty() || items.size() > maxBulkItems) {
+			throw new ValidationException("A bulk request must contain between 1 and " + maxBulkItems + " items");
+		}
+	}
+}
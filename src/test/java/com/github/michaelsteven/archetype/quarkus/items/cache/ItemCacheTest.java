@@ -0,0 +1,156 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link ItemCache}.
+ */
+class ItemCacheTest {
+
+	/** The number of loads. */
+	private final AtomicInteger loads = new AtomicInteger();
+
+	/** The cache. */
+	private ItemCache cache;
+
+
+	/**
+	 * Creates an enabled cache.
+	 */
+	@BeforeEach
+	void setUp() {
+		cache = new ItemCache();
+		cache.enabled = true;
+		cache.maximumSize = 100;
+		cache.expireAfterWrite = Duration.ofMinutes(5);
+		cache.meterRegistry = new SimpleMeterRegistry();
+		cache.init();
+	}
+
+
+	/**
+	 * An item is loaded once and then served from the cache until it is invalidated.
+	 */
+	@Test
+	void loadsOnceUntilInvalidated() {
+		ItemDto itemDto = cache.get(1L, loader(1L)).get();
+		assertSame(itemDto, cache.get(1L, loader(1L)).get());
+		assertEquals(1, loads.get());
+
+		cache.invalidate(1L);
+		cache.get(1L, loader(1L));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getStats().hitCount());
+	}
+
+
+	/**
+	 * Items that do not exist are read again every time.
+	 */
+	@Test
+	void doesNotCacheMissingItems() {
+		assertEquals(Optional.empty(), cache.get(1L, id -> load(null)));
+		assertEquals(Optional.empty(), cache.get(1L, id -> load(null)));
+		assertEquals(2, loads.get());
+	}
+
+
+	/**
+	 * After an invalidation at a version, copies older than that version are neither
+	 * served nor cached, and the version itself is.
+	 */
+	@Test
+	void refusesVersionsOlderThanAnInvalidation() {
+		cache.get(1L, loader(4L));
+		cache.invalidate(1L, 5L);
+		assertNull(cache.getIfPresent(1L));
+
+		cache.get(1L, loader(4L));
+		assertNull(cache.getIfPresent(1L));
+		cache.get(1L, loader(5L));
+		assertEquals(5L, cache.getIfPresent(1L).getVersion().longValue());
+	}
+
+
+	/**
+	 * An invalidation that comes in while the old row is being read keeps the read
+	 * from caching it.
+	 */
+	@Test
+	void refusesAReadRacingAnInvalidation() {
+		ItemDto loaded = cache.get(1L, id -> {
+			cache.invalidate(id, 2L);
+			return load(1L);
+		}).get();
+		assertEquals(1L, loaded.getVersion().longValue());
+		assertNull(cache.getIfPresent(1L));
+	}
+
+
+	/**
+	 * Invalidations may arrive in any order: an older one leaves a newer copy cached,
+	 * and a delete keeps every version out.
+	 */
+	@Test
+	void appliesTheHighestInvalidation() {
+		cache.get(1L, loader(5L));
+		cache.invalidate(1L, 3L);
+		assertEquals(5L, cache.getIfPresent(1L).getVersion().longValue());
+
+		cache.invalidate(1L, null);
+		cache.invalidate(1L, 6L);
+		assertNull(cache.getIfPresent(1L));
+		cache.get(1L, loader(7L));
+		assertNull(cache.getIfPresent(1L));
+	}
+
+
+	/**
+	 * A disabled cache reads every time.
+	 */
+	@Test
+	void loadsEveryTimeWhenDisabled() {
+		cache.enabled = false;
+		cache.get(1L, loader(1L));
+		cache.get(1L, loader(1L));
+		assertEquals(2, loads.get());
+		assertNull(cache.getIfPresent(1L));
+	}
+
+
+	/**
+	 * Gets a loader of the item at a version.
+	 *
+	 * @param version the version
+	 * @return the loader
+	 */
+	private LongFunction<Optional<ItemDto>> loader(Long version) {
+		return id -> load(version);
+	}
+
+
+	/**
+	 * Loads the item 1.
+	 *
+	 * @param version the version, null if the item does not exist
+	 * @return the item
+	 */
+	private Optional<ItemDto> load(Long version) {
+		loads.incrementAndGet();
+		return null == version ? Optional.empty() : Optional.of(new ItemDto(1L, "item", null, null, version, null));
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Creates item caches outside of CDI for the tests and the benchmarks.  They run
+ * without JTA, so the invalidations after completion take effect at once.
+ */
+public final class ItemCaches {
+
+	/**
+	 * Instantiates a new item caches.
+	 */
+	private ItemCaches() {
+	}
+	
+	
+	/**
+	 * Creates an item cache with the default bounds.
+	 *
+	 * @param enabled whether the cache is enabled
+	 * @return the item cache
+	 */
+	public static ItemCache create(boolean enabled) {
+		ItemCache itemCache = new ItemCache();
+		itemCache.enabled = enabled;
+		itemCache.maximumSize = 10000;
+		itemCache.expireAfterWrite = Duration.ofMinutes(5);
+		itemCache.meterRegistry = new SimpleMeterRegistry();
+		itemCache.transactionSynchronizationRegistry = (TransactionSynchronizationRegistry) Proxy.newProxyInstance(
+				TransactionSynchronizationRegistry.class.getClassLoader(), new Class<?>[] { TransactionSynchronizationRegistry.class },
+				(proxy, method, args) -> {
+					if(!"getTransactionStatus".equals(method.getName())) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					return Status.STATUS_NO_TRANSACTION;
+				});
+		itemCache.init();
+		return itemCache;
+	}
+}
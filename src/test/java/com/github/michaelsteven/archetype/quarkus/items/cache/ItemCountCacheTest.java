@@ -0,0 +1,174 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import javax.transaction.Status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+
+/**
+ * Tests the {@link ItemCountCache}.
+ */
+class ItemCountCacheTest {
+
+	/** The unfiltered listing. */
+	private static final ItemFilter ALL = new ItemFilter();
+
+	/** The listing of the items named a. */
+	private static final ItemFilter NAMED_A = new ItemFilter("a", null, null, null);
+
+	/** The number of count queries. */
+	private final AtomicInteger queries = new AtomicInteger();
+
+	/** The status of the transaction the observers see. */
+	private int transactionStatus = Status.STATUS_COMMITTED;
+
+	/** The cache. */
+	private ItemCountCache cache;
+
+
+	/**
+	 * Creates a cache.
+	 */
+	@BeforeEach
+	void setUp() {
+		cache = ItemCountCaches.create(() -> transactionStatus);
+	}
+
+
+	/**
+	 * A count is queried once per filter.
+	 */
+	@Test
+	void countsOncePerFilter() {
+		assertEquals(10, cache.get(ALL, counter(10)));
+		assertEquals(10, cache.get(ALL, counter(99)));
+		assertEquals(3, cache.get(NAMED_A, counter(3)));
+		assertEquals(2, queries.get());
+	}
+
+
+	/**
+	 * A committed creation is counted by the filters the item passes; a committed
+	 * deletion is taken off the unfiltered count and drops the filtered ones.
+	 */
+	@Test
+	void adjustsTheCountsToCommittedChanges() {
+		cache.get(ALL, counter(10));
+		cache.get(NAMED_A, counter(3));
+		change(ItemChangeType.created, "a");
+		change(ItemChangeType.created, "b");
+		assertEquals(12, cache.get(ALL, counter(99)));
+		assertEquals(4, cache.get(NAMED_A, counter(99)));
+
+		change(ItemChangeType.deleted, null);
+		assertEquals(11, cache.get(ALL, counter(99)));
+		assertEquals(7, cache.get(NAMED_A, counter(7)));
+		assertEquals(3, queries.get());
+	}
+
+
+	/**
+	 * A rolled back change leaves the counts as they are.
+	 */
+	@Test
+	void ignoresRolledBackChanges() {
+		cache.get(ALL, counter(10));
+		transactionStatus = Status.STATUS_ROLLEDBACK;
+		change(ItemChangeType.created, "a");
+		assertEquals(10, cache.get(ALL, counter(99)));
+	}
+
+
+	/**
+	 * A change that committed before it was told, as those of the v2 api, drops the
+	 * counts it affects instead of adjusting them.
+	 */
+	@Test
+	void dropsTheCountsOfChangesCommittedBeforeTold() {
+		cache.get(ALL, counter(10));
+		cache.get(new ItemFilter("b", null, null, null), counter(1));
+		transactionStatus = Status.STATUS_NO_TRANSACTION;
+		change(ItemChangeType.created, "a");
+		assertEquals(11, cache.get(ALL, counter(11)));
+		assertEquals(1, cache.get(new ItemFilter("b", null, null, null), counter(99)));
+		assertEquals(3, queries.get());
+	}
+
+
+	/**
+	 * A count queried while a change is under way, or while one begins, may or may
+	 * not hold it and is not kept; the next one, with no change under way, is.
+	 */
+	@Test
+	void doesNotKeepACountRacingAChange() {
+		ItemChangeEvent event = event(ItemChangeType.created, "a");
+		cache.onChanging(event);
+		assertEquals(10, cache.get(ALL, counter(10)));
+		cache.onChange(event);
+		assertEquals(11, cache.get(ALL, counter(11)));
+
+		ItemChangeEvent racing = event(ItemChangeType.created, "a");
+		cache = ItemCountCaches.create(() -> transactionStatus);
+		assertEquals(11, cache.get(ALL, () -> {
+			cache.onChanging(racing);
+			return counter(11).getAsLong();
+		}));
+		cache.onChange(racing);
+		assertEquals(12, cache.get(ALL, counter(12)));
+		assertEquals(12, cache.get(ALL, counter(99)));
+		assertEquals(4, queries.get());
+	}
+
+
+	/**
+	 * Makes a change and completes its transaction.
+	 *
+	 * @param type the type
+	 * @param name the name of the item, null for a deletion
+	 */
+	private void change(ItemChangeType type, String name) {
+		ItemChangeEvent event = event(type, name);
+		cache.onChanging(event);
+		cache.onChange(event);
+	}
+
+
+	/**
+	 * Creates a change event.
+	 *
+	 * @param type the type
+	 * @param name the name of the item, null for a deletion
+	 * @return the item change event
+	 */
+	private static ItemChangeEvent event(ItemChangeType type, String name) {
+		ItemChangeEvent event = new ItemChangeEvent();
+		event.setItemId(1L);
+		event.setType(type);
+		event.setItem(null == name ? null : new ItemDto(1L, name, null, null, 0L, null));
+		return event;
+	}
+
+
+	/**
+	 * Counts the queries of a count.
+	 *
+	 * @param count the count
+	 * @return the counter
+	 */
+	private LongSupplier counter(long count) {
+		return () -> {
+			queries.incrementAndGet();
+			return count;
+		};
+	}
+}
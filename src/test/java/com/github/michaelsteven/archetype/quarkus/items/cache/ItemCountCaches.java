@@ -0,0 +1,47 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.function.IntSupplier;
+
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Creates item count caches outside of CDI for the tests.
+ */
+public final class ItemCountCaches {
+
+	/**
+	 * Instantiates a new item count caches.
+	 */
+	private ItemCountCaches() {
+	}
+	
+	
+	/**
+	 * Creates an item count cache with the default bounds.
+	 *
+	 * @param transactionStatus gives the status of the transaction the observers of the
+	 * change events see, one of {@link javax.transaction.Status}
+	 * @return the item count cache
+	 */
+	public static ItemCountCache create(IntSupplier transactionStatus) {
+		ItemCountCache itemCountCache = new ItemCountCache();
+		itemCountCache.maximumSize = 1000;
+		itemCountCache.expireAfterWrite = Duration.ofMinutes(1);
+		itemCountCache.meterRegistry = new SimpleMeterRegistry();
+		itemCountCache.transactionSynchronizationRegistry = (TransactionSynchronizationRegistry) Proxy.newProxyInstance(
+				TransactionSynchronizationRegistry.class.getClassLoader(), new Class<?>[] { TransactionSynchronizationRegistry.class },
+				(proxy, method, args) -> {
+					if(!"getTransactionStatus".equals(method.getName())) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					return transactionStatus.getAsInt();
+				});
+		itemCountCache.init();
+		return itemCountCache;
+	}
+}
@@ -0,0 +1,192 @@
+package com.github.michaelsteven.archetype.quarkus.items.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import javax.enterprise.event.Event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemInvalidationEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link ItemInvalidationBus} of two replicas joined by a loopback transport.
+ */
+class ItemInvalidationBusTest {
+
+	/** The transport joining the replicas. */
+	private final LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport();
+
+	/** The ids evicted from the Hibernate regions of the second replica. */
+	private final List<Long> evicted = new ArrayList<>();
+
+	/** The invalidations fired to the observers of the second replica. */
+	private final List<ItemInvalidationEvent> fired = new ArrayList<>();
+
+	/** The bus of the first replica. */
+	private ItemInvalidationBus first;
+
+	/** The bus of the second replica. */
+	private ItemInvalidationBus second;
+
+
+	/**
+	 * Creates the two replicas, each with an item cache holding item 1 at version 2.
+	 */
+	@BeforeEach
+	void setUp() {
+		first = bus("first", new ArrayList<>(), new ArrayList<>());
+		second = bus("second", evicted, fired);
+		cache(first, 2L);
+		cache(second, 2L);
+	}
+
+
+	/**
+	 * A committed change drops the copies of both replicas; the peer also evicts its
+	 * Hibernate regions and tells its observers, the replica that made it does not
+	 * apply it twice.
+	 */
+	@Test
+	void invalidatesTheCopiesOfEveryReplica() {
+		first.onChange(change(ItemChangeType.updated, 3L));
+
+		assertNull(first.itemCache.getIfPresent(1L));
+		assertNull(second.itemCache.getIfPresent(1L));
+		assertEquals(Collections.singletonList(1L), evicted);
+		assertEquals(1, fired.size());
+		assertEquals(3L, fired.get(0).getVersion().longValue());
+		assertEquals(1.0, counted(first, "published"));
+		assertEquals(1.0, counted(second, "received"));
+		assertEquals(0.0, counted(first, "received"));
+	}
+
+
+	/**
+	 * An invalidation that arrives late leaves a copy at its version or later, and a
+	 * deletion drops any copy.
+	 */
+	@Test
+	void keepsCopiesNewerThanALateInvalidation() {
+		transport.publish(new ItemInvalidationEvent("first", 1L, 2L));
+		assertNotNull(second.itemCache.getIfPresent(1L));
+
+		first.onChange(change(ItemChangeType.deleted, null));
+		assertNull(second.itemCache.getIfPresent(1L));
+	}
+
+
+	/**
+	 * A change that can not be broadcast is counted, not thrown, as it has committed,
+	 * and is still applied to the local cache.
+	 */
+	@Test
+	void countsInvalidationsThatCouldNotBeSent() {
+		first.transport = new InvalidationTransport() {
+			@Override
+			public void publish(ItemInvalidationEvent event) throws IOException {
+				throw new IOException("broker down");
+			}
+
+			@Override
+			public void subscribe(Consumer<ItemInvalidationEvent> listener) {
+				// nothing to receive
+			}
+		};
+		first.onChange(change(ItemChangeType.updated, 3L));
+
+		assertNull(first.itemCache.getIfPresent(1L));
+		assertNotNull(second.itemCache.getIfPresent(1L));
+		assertEquals(1.0, counted(first, "failed"));
+	}
+
+
+	/**
+	 * Creates the bus of a replica on the transport.
+	 *
+	 * @param nodeId the node id
+	 * @param evicted receives the ids evicted from the Hibernate regions
+	 * @param fired receives the invalidations fired to the local observers
+	 * @return the item invalidation bus
+	 */
+	@SuppressWarnings("unchecked")
+	private ItemInvalidationBus bus(String nodeId, List<Long> evicted, List<ItemInvalidationEvent> fired) {
+		ItemInvalidationBus bus = new ItemInvalidationBus();
+		bus.enabled = true;
+		bus.configuredNodeId = Optional.of(nodeId);
+		bus.itemCache = ItemCaches.create(true);
+		bus.hibernateCacheRegions = new HibernateCacheRegions() {
+			@Override
+			public void evict(Collection<Long> ids) {
+				evicted.addAll(ids);
+			}
+		};
+		bus.transport = transport;
+		bus.meterRegistry = new SimpleMeterRegistry();
+		bus.peerInvalidations = (Event<ItemInvalidationEvent>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[] { Event.class },
+				(proxy, method, args) -> {
+					if(!"fire".equals(method.getName())) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					fired.add((ItemInvalidationEvent) args[0]);
+					return null;
+				});
+		bus.init();
+		return bus;
+	}
+
+
+	/**
+	 * Caches item 1 in the item cache of a replica.
+	 *
+	 * @param bus the bus of the replica
+	 * @param version the version of the item
+	 */
+	private static void cache(ItemInvalidationBus bus, Long version) {
+		bus.itemCache.get(1L, id -> Optional.of(new ItemDto(id, "item" + id, null, null, version, null)));
+	}
+
+
+	/**
+	 * Creates the committed change of item 1.
+	 *
+	 * @param type the type
+	 * @param version the new version, null for a deletion
+	 * @return the item change event
+	 */
+	private static ItemChangeEvent change(ItemChangeType type, Long version) {
+		ItemChangeEvent event = new ItemChangeEvent();
+		event.setItemId(1L);
+		event.setType(type);
+		event.setItem(null == version ? null : new ItemDto(1L, "item1", null, null, version, null));
+		return event;
+	}
+
+
+	/**
+	 * Gets an items.cache.invalidations count of a replica.
+	 *
+	 * @param bus the bus of the replica
+	 * @param result the result
+	 * @return the count
+	 */
+	private static double counted(ItemInvalidationBus bus, String result) {
+		return bus.meterRegistry.get("items.cache.invalidations").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,146 @@
+package com.github.michaelsteven.archetype.quarkus.items.compliance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link RingBuffer}.
+ */
+class RingBufferTest {
+
+	/**
+	 * The capacity is rounded up to a power of two.
+	 */
+	@Test
+	void roundsCapacityUp() {
+		assertEquals(1, new RingBuffer<>(1).capacity());
+		assertEquals(8, new RingBuffer<>(5).capacity());
+		assertEquals(8, new RingBuffer<>(8).capacity());
+		assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+	}
+
+
+	/**
+	 * A full buffer refuses elements until the consumer frees slots.
+	 */
+	@Test
+	void refusesElementsWhenFull() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertEquals(Arrays.asList(0, 1), drained);
+		assertTrue(buffer.offer(4));
+		assertTrue(buffer.offer(5));
+		assertFalse(buffer.offer(6));
+
+		drained.clear();
+		assertEquals(4, buffer.drainTo(drained, 10));
+		assertEquals(Arrays.asList(2, 3, 4, 5), drained);
+		assertEquals(0, buffer.size());
+	}
+
+
+	/**
+	 * Elements keep their order while the positions wrap around the slots many times.
+	 */
+	@Test
+	void keepsOrderAcrossWrapAround() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		List<Integer> drained = new ArrayList<>();
+		int next = 0;
+		for (int round = 0; round < 50; round++) {
+			// 1 to 4 elements a round, so the positions wrap at every slot
+			for (int i = 0; i <= round % 4; i++) {
+				assertTrue(buffer.offer(next++));
+			}
+			buffer.drainTo(drained, 1);
+			buffer.drainTo(drained, Integer.MAX_VALUE);
+		}
+		assertEquals(next, drained.size());
+		for (int i = 0; i < next; i++) {
+			assertEquals(i, drained.get(i).intValue());
+		}
+	}
+
+
+	/**
+	 * An empty buffer drains nothing.
+	 */
+	@Test
+	void drainsNothingWhenEmpty() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(2);
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(0, buffer.drainTo(drained, 10));
+		assertTrue(drained.isEmpty());
+	}
+
+
+	/**
+	 * Every element offered by concurrent producers is drained exactly once.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	void deliversEveryElementOfConcurrentProducersOnce() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 5000;
+		RingBuffer<Integer> buffer = new RingBuffer<>(64);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int p = 0; p < producers; p++) {
+			int first = p * perProducer;
+			executor.execute(() -> {
+				try {
+					start.await();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = first; i < first + perProducer; i++) {
+					while(!buffer.offer(i)) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+		start.countDown();
+
+		BitSet seen = new BitSet(producers * perProducer);
+		List<Integer> batch = new ArrayList<>();
+		int received = 0;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while(received < producers * perProducer && System.nanoTime() < deadline) {
+			batch.clear();
+			buffer.drainTo(batch, 32);
+			for (Integer element : batch) {
+				assertFalse(seen.get(element), "drained twice: " + element);
+				seen.set(element);
+			}
+			received += batch.size();
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(producers * perProducer, received);
+		assertEquals(producers * perProducer, seen.cardinality());
+	}
+}
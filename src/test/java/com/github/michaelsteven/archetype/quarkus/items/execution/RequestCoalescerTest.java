@@ -0,0 +1,229 @@
+package com.github.michaelsteven.archetype.quarkus.items.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link RequestCoalescer}.
+ */
+class RequestCoalescerTest {
+
+	/** The name of the reads. */
+	private static final String NAME = "test";
+
+	/** The meter registry. */
+	private SimpleMeterRegistry meterRegistry;
+
+	/** The coalescer. */
+	private RequestCoalescer coalescer;
+
+
+	/**
+	 * Creates a coalescer with a short timeout.
+	 */
+	@BeforeEach
+	void setUp() {
+		coalescer = RequestCoalescers.create(true);
+		coalescer.timeout = Duration.ofMillis(200);
+		meterRegistry = (SimpleMeterRegistry) coalescer.meterRegistry;
+	}
+
+
+	/**
+	 * A caller that arrives while a read is in flight shares its result.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void sharesTheResultOfTheLeader() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = new CompletableFuture<>();
+		start(() -> {
+			await(release);
+			return "loaded";
+		}, leader);
+		awaitInFlight();
+		CompletableFuture<String> joined = new CompletableFuture<>();
+		awaitWaiting(start(() -> fail("the follower must not load"), joined), joined);
+		release.countDown();
+
+		assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("loaded", joined.get(5, TimeUnit.SECONDS));
+		assertEquals(1, count("loaded"));
+		assertEquals(1, count("joined"));
+	}
+
+
+	/**
+	 * The failure of the leader is thrown to the callers waiting for it, and the next
+	 * caller reads again.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void sharesTheFailureOfTheLeader() throws Exception {
+		IllegalStateException failure = new IllegalStateException("query failed");
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = new CompletableFuture<>();
+		start(() -> {
+			await(release);
+			throw failure;
+		}, leader);
+		awaitInFlight();
+		CompletableFuture<String> joined = new CompletableFuture<>();
+		awaitWaiting(start(() -> fail("the follower must not load"), joined), joined);
+		release.countDown();
+
+		assertSame(failure, cause(leader));
+		assertSame(failure, cause(joined));
+		assertEquals("again", coalescer.coalesce(NAME, "key", () -> "again"));
+		assertEquals(2, count("loaded"));
+	}
+
+
+	/**
+	 * A caller that waited the timeout for the leader reads by itself.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void readsAloneAfterTheTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = new CompletableFuture<>();
+		start(() -> {
+			await(release);
+			return "late";
+		}, leader);
+		awaitInFlight();
+
+		long start = System.nanoTime();
+		assertEquals("own", coalescer.coalesce(NAME, "key", () -> "own"));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+		assertEquals(1, count("timed-out"));
+
+		release.countDown();
+		assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+	}
+
+
+	/**
+	 * Without coalescing every caller reads.
+	 */
+	@Test
+	void readsEveryTimeWhenDisabled() {
+		coalescer.enabled = false;
+		AtomicInteger reads = new AtomicInteger();
+		coalescer.coalesce(NAME, "key", reads::incrementAndGet);
+		coalescer.coalesce(NAME, "key", reads::incrementAndGet);
+		assertEquals(2, reads.get());
+	}
+
+
+	/**
+	 * Reads the key on a thread of its own.
+	 *
+	 * @param loader the loader
+	 * @param result completed with the result of the read
+	 * @return the thread
+	 */
+	private Thread start(Supplier<String> loader, CompletableFuture<String> result) {
+		Thread thread = new Thread(() -> {
+			try {
+				result.complete(coalescer.coalesce(NAME, "key", loader));
+			}
+			catch(RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+
+	/**
+	 * Waits until the read of the key is in flight.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private void awaitInFlight() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(null == meterRegistry.find("items.coalesce.in-flight").gauge()
+				|| meterRegistry.find("items.coalesce.in-flight").gauge().value() < 1) {
+			assertTrue(System.nanoTime() < deadline, "the read never started");
+			Thread.sleep(1);
+		}
+	}
+
+
+	/**
+	 * Waits until a caller waits for the read in flight.
+	 *
+	 * @param thread the thread of the caller
+	 * @param result the result of the caller
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private static void awaitWaiting(Thread thread, CompletableFuture<String> result) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(thread.getState() != Thread.State.TIMED_WAITING && !result.isDone()) {
+			assertTrue(System.nanoTime() < deadline, "the caller never waited");
+			Thread.sleep(1);
+		}
+	}
+
+
+	/**
+	 * Gets the failure of a read.
+	 *
+	 * @param result the result
+	 * @return the cause
+	 * @throws Exception the exception
+	 */
+	private static Throwable cause(CompletableFuture<String> result) throws Exception {
+		ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+		return e.getCause();
+	}
+
+
+	/**
+	 * Waits for a latch.
+	 *
+	 * @param latch the latch
+	 */
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * Gets the count of an outcome.
+	 *
+	 * @param result the result tag
+	 * @return the count
+	 */
+	private long count(String result) {
+		return (long) meterRegistry.get("items.coalesce.requests").tag("name", NAME).tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,37 @@
+package com.github.michaelsteven.archetype.quarkus.items.execution;
+
+import java.time.Duration;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Creates request coalescers outside of CDI for the tests and the benchmarks.
+ */
+public final class RequestCoalescers {
+
+	/**
+	 * Instantiates a new request coalescers.
+	 */
+	private RequestCoalescers() {
+	}
+	
+	
+	/**
+	 * Creates a request coalescer with the default timeout.
+	 *
+	 * @param enabled whether reads are coalesced
+	 * @return the request coalescer
+	 */
+	public static RequestCoalescer create(boolean enabled) {
+		RequestCoalescer requestCoalescer = new RequestCoalescer();
+		requestCoalescer.enabled = enabled;
+		requestCoalescer.timeout = Duration.ofSeconds(2);
+		requestCoalescer.config = ConfigProvider.getConfig();
+		requestCoalescer.meterRegistry = new SimpleMeterRegistry();
+		requestCoalescer.init();
+		return requestCoalescer;
+	}
+}
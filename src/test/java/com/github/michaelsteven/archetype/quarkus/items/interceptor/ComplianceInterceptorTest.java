@@ -0,0 +1,156 @@
+package com.github.michaelsteven.archetype.quarkus.items.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import javax.interceptor.InvocationContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.compliance.CompliancePublisher;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceAction;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ComplianceOutcome;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+import com.github.michaelsteven.archetype.quarkus.items.service.ItemsServiceImpl;
+import com.github.michaelsteven.archetype.quarkus.items.service.ItemsServices;
+
+/**
+ * Tests the events published by the {@link ComplianceInterceptor} around the items
+ * service on a test database.
+ */
+class ComplianceInterceptorTest {
+
+	/** The events published, as action, id and outcome. */
+	private final List<String> published = new ArrayList<>();
+
+	/** The database. */
+	private TestDatabase database;
+
+	/** The items service. */
+	private ItemsServiceImpl itemsService;
+
+	/** The interceptor. */
+	private ComplianceInterceptor interceptor;
+
+
+	/**
+	 * Creates an empty database, a service on it and an interceptor recording what it
+	 * publishes.
+	 */
+	@BeforeEach
+	void setUp() {
+		database = new TestDatabase();
+		itemsService = ItemsServices.create(database, new ArrayList<>());
+		interceptor = new ComplianceInterceptor();
+		interceptor.compliancePublisher = new CompliancePublisher() {
+			@Override
+			public void publish(ComplianceAction action, String source, Long resourceId, ComplianceOutcome outcome) {
+				published.add(action + " " + resourceId + " " + outcome);
+			}
+		};
+	}
+
+
+	/**
+	 * Drops the database.
+	 */
+	@AfterEach
+	void tearDown() {
+		database.close();
+	}
+
+
+	/**
+	 * A bulk delete of n ids is audited with n events, one per id, failed for the id
+	 * that did not exist.
+	 */
+	@Test
+	void auditsEachIdOfABulkDelete() throws Exception {
+		database.insertItems(3);
+		List<Long> ids = Arrays.asList(1L, 2L, 99L, 3L);
+		intercept(ItemsServiceImpl.class.getMethod("deleteItemsById", List.class), ids,
+				() -> database.inTransaction(() -> itemsService.deleteItemsById(ids)));
+
+		assertEquals(Arrays.asList("delete 1 success", "delete 2 success", "delete 99 failure", "delete 3 success"), published);
+	}
+
+
+	/**
+	 * A call not about items by id is audited with one event without an id.
+	 */
+	@Test
+	void auditsACallWithoutIdsOnce() throws Exception {
+		intercept(ItemsServiceImpl.class.getMethod("exportItems", Consumer.class), null, () -> null);
+
+		assertEquals(Collections.singletonList("read null success"), published);
+	}
+
+
+	/**
+	 * Calls the interceptor around a call.
+	 *
+	 * @param method the method called
+	 * @param parameter the first parameter of the call
+	 * @param call the call
+	 * @return the result of the call
+	 * @throws Exception the exception of the call
+	 */
+	private Object intercept(Method method, Object parameter, Callable<Object> call) throws Exception {
+		Object[] parameters = { parameter };
+		Map<String, Object> contextData = new HashMap<>();
+		return interceptor.auditMethod(new InvocationContext() {
+
+			@Override
+			public Object getTarget() {
+				return null;
+			}
+
+			@Override
+			public Object getTimer() {
+				return null;
+			}
+
+			@Override
+			public Method getMethod() {
+				return method;
+			}
+
+			@Override
+			public Constructor<?> getConstructor() {
+				return null;
+			}
+
+			@Override
+			public Object[] getParameters() {
+				return parameters;
+			}
+
+			@Override
+			public void setParameters(Object[] params) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Map<String, Object> getContextData() {
+				return contextData;
+			}
+
+			@Override
+			public Object proceed() throws Exception {
+				return call.call();
+			}
+		});
+	}
+}
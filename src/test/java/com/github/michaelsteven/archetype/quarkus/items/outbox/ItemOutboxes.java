@@ -0,0 +1,49 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import javax.enterprise.event.Event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.michaelsteven.archetype.quarkus.items.configuration.JsonConfig;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+
+/**
+ * Creates item outboxes outside of CDI for the tests.
+ */
+public final class ItemOutboxes {
+
+	/**
+	 * Instantiates a new item outboxes.
+	 */
+	private ItemOutboxes() {
+	}
+
+
+	/**
+	 * Creates an item outbox writing to a test database.
+	 *
+	 * @param database the database
+	 * @param fired receives the change events fired, in order
+	 * @return the item outbox
+	 */
+	@SuppressWarnings("unchecked")
+	public static ItemOutbox create(TestDatabase database, List<ItemChangeEvent> fired) {
+		ItemOutbox itemOutbox = new ItemOutbox();
+		itemOutbox.entityManager = database.entityManager();
+		itemOutbox.itemQueryRepository = database.itemQueryRepository();
+		itemOutbox.objectMapper = new ObjectMapper();
+		new JsonConfig().customize(itemOutbox.objectMapper);
+		itemOutbox.itemChanges = (Event<ItemChangeEvent>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[] { Event.class },
+				(proxy, method, args) -> {
+					if(!"fire".equals(method.getName())) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					fired.add((ItemChangeEvent) args[0]);
+					return null;
+				});
+		return itemOutbox;
+	}
+}
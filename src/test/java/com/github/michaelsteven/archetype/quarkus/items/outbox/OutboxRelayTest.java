@@ -0,0 +1,139 @@
+package com.github.michaelsteven.archetype.quarkus.items.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeType;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link OutboxRelay} on a test database.
+ */
+class OutboxRelayTest {
+
+	/** The events published to the sink. */
+	private final List<ItemChangeEvent> published = new ArrayList<>();
+
+	/** Whether the sink fails. */
+	private boolean sinkFails;
+
+	/** The database. */
+	private TestDatabase database;
+
+	/** The relay. */
+	private OutboxRelay relay;
+
+
+	/**
+	 * Creates a database with three items, the outbox entries of their creation and of
+	 * the deletion of the second, and a relay of batches of two that is never scheduled.
+	 */
+	@BeforeEach
+	void setUp() {
+		database = new TestDatabase();
+		database.insertItems(3);
+		ItemOutbox itemOutbox = ItemOutboxes.create(database, new ArrayList<>());
+		database.inTransaction(() -> {
+			for(ItemEntity entity : database.itemRepository().findAll()) {
+				itemOutbox.record(ItemChangeType.created, entity);
+			}
+			itemOutbox.recordDeleted(Arrays.asList(2L, 99L));
+		});
+
+		relay = new OutboxRelay();
+		relay.enabled = true;
+		relay.batchSize = 2;
+		relay.pollInterval = Duration.ofHours(1);
+		relay.claimLock = "FOR UPDATE";
+		relay.outboxRepository = database.outboxRepository();
+		relay.itemOutbox = itemOutbox;
+		relay.itemChangeSink = events -> {
+			if(sinkFails) {
+				throw new IOException("sink down");
+			}
+			published.addAll(events);
+		};
+		relay.meterRegistry = new SimpleMeterRegistry();
+		relay.init();
+	}
+
+
+	/**
+	 * Stops the relay and drops the database.
+	 */
+	@AfterEach
+	void tearDown() {
+		relay.shutdown();
+		database.close();
+	}
+
+
+	/**
+	 * The entries are published in batches, in the order they were recorded, with the
+	 * item they carry, and deleted once published.
+	 */
+	@Test
+	void relaysTheEntriesInOrderAndDeletesThem() {
+		assertEquals(2, relayBatch());
+		assertEquals(2, relayBatch());
+		assertEquals(0, relayBatch());
+
+		assertEquals(Arrays.asList("created 1", "created 2", "created 3", "deleted 2"), changes());
+		assertEquals("item1", published.get(0).getItem().getName());
+		assertNull(published.get(3).getItem());
+		assertEquals(4.0, relay.meterRegistry.get("items.outbox.relayed").counter().count());
+	}
+
+
+	/**
+	 * A batch the sink could not take is rolled back and claimed again.
+	 */
+	@Test
+	void claimsAFailedBatchAgain() {
+		sinkFails = true;
+		assertThrows(UncheckedIOException.class, this::relayBatch);
+		assertEquals(Collections.emptyList(), changes());
+
+		sinkFails = false;
+		assertEquals(2, relayBatch());
+		assertEquals(Arrays.asList("created 1", "created 2"), changes());
+	}
+
+
+	/**
+	 * Relays one batch in a transaction of its own.
+	 *
+	 * @return the number of relayed entries
+	 */
+	private int relayBatch() {
+		return database.inTransaction(relay::relayBatch);
+	}
+
+
+	/**
+	 * Gets the published changes, as type and item id.
+	 *
+	 * @return the changes
+	 */
+	private List<String> changes() {
+		return published.stream().map(event -> event.getType() + " " + event.getItemId()).collect(Collectors.toList());
+	}
+}
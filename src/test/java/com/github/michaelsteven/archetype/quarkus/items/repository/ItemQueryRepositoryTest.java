@@ -0,0 +1,131 @@
+package com.github.michaelsteven.archetype.quarkus.items.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+
+/**
+ * Tests the filters of the {@link ItemQueryRepository} in the SQL run on a test database.
+ */
+class ItemQueryRepositoryTest {
+
+	/** The creation time of the first item, each next one is an hour later. */
+	private static final Instant START = Instant.parse("2021-01-31T00:00:00Z");
+
+	/** The database. */
+	private TestDatabase database;
+
+	/** The item query repository. */
+	private ItemQueryRepository itemQueryRepository;
+
+
+	/**
+	 * Creates a database with items whose names hold the wildcards of LIKE.
+	 */
+	@BeforeEach
+	void setUp() {
+		database = new TestDatabase();
+		itemQueryRepository = database.itemQueryRepository();
+		List<String> names = Arrays.asList("wigit", "wigit", "wig_it", "wig%", "wig!", "sprocket");
+		database.inTransaction(() -> {
+			for(int i = 0; i < names.size(); i++) {
+				ItemEntity entity = new ItemEntity();
+				entity.setName(names.get(i));
+				entity.setDescription("description of " + names.get(i));
+				entity.setCreatedTimestamp(START.plusSeconds(3600L * i));
+				database.entityManager().persist(entity);
+			}
+		});
+	}
+
+
+	/**
+	 * Drops the database.
+	 */
+	@AfterEach
+	void tearDown() {
+		database.close();
+	}
+
+
+	/**
+	 * The name is compared for equality.
+	 */
+	@Test
+	void filtersByName() {
+		assertFound(Arrays.asList(1L, 2L), new ItemFilter("wigit", null, null, null));
+		assertFound(Arrays.asList(4L), new ItemFilter("wig%", null, null, null));
+	}
+
+
+	/**
+	 * The wildcards of LIKE and its escape character in a prefix match themselves only.
+	 */
+	@Test
+	void filtersByNamePrefix() {
+		assertFound(Arrays.asList(1L, 2L, 3L, 4L, 5L), new ItemFilter(null, "wig", null, null));
+		assertFound(Arrays.asList(3L), new ItemFilter(null, "wig_", null, null));
+		assertFound(Arrays.asList(4L), new ItemFilter(null, "wig%", null, null));
+		assertFound(Arrays.asList(5L), new ItemFilter(null, "wig!", null, null));
+	}
+
+
+	/**
+	 * The creation range includes its start and excludes its end, and combines with
+	 * the name filters.
+	 */
+	@Test
+	void filtersByCreationTime() {
+		Instant second = START.plusSeconds(3600);
+		Instant fourth = START.plusSeconds(3 * 3600);
+		assertFound(Arrays.asList(2L, 3L), new ItemFilter(null, null, second, fourth));
+		assertFound(Arrays.asList(4L, 5L, 6L), new ItemFilter(null, null, fourth, null));
+		assertFound(Arrays.asList(1L), new ItemFilter(null, null, null, second));
+		assertFound(Arrays.asList(2L), new ItemFilter("wigit", null, second, null));
+	}
+
+
+	/**
+	 * Keyset pages are filtered like offset pages.
+	 */
+	@Test
+	void filtersKeysetPages() {
+		ItemFilter filter = new ItemFilter(null, "wig", null, null);
+		List<ItemDto> first = database.inTransaction(() ->
+				itemQueryRepository.findAfter(ItemField.ALL, filter, "name", true, null, null, 2));
+		assertEquals(Arrays.asList("wig!", "wig%"), first.stream().map(ItemDto::getName).collect(Collectors.toList()));
+
+		ItemDto last = first.get(1);
+		List<ItemDto> next = database.inTransaction(() ->
+				itemQueryRepository.findAfter(ItemField.ALL, filter, "name", true, last.getName(), last.getId(), 10));
+		assertEquals(Arrays.asList(3L, 1L, 2L), next.stream().map(ItemDto::getId).collect(Collectors.toList()));
+	}
+
+
+	/**
+	 * Asserts that an offset page and the count find the given items and no others.
+	 *
+	 * @param ids the ids of the items, in id order
+	 * @param filter the filter
+	 */
+	private void assertFound(List<Long> ids, ItemFilter filter) {
+		List<ItemDto> items = database.inTransaction(() ->
+				itemQueryRepository.findAll(EnumSet.of(ItemField.id, ItemField.name), filter, Sort.by("id"), 0, 100));
+		assertEquals(ids, items.stream().map(ItemDto::getId).collect(Collectors.toList()), filter.toString());
+		assertEquals(ids.size(), database.inTransaction(() -> itemQueryRepository.count(filter)).intValue(), filter.toString());
+	}
+}
@@ -0,0 +1,238 @@
+package com.github.michaelsteven.archetype.quarkus.items.repository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TransactionRequiredException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.OutboxEntity;
+
+/**
+ * An in-memory H2 database in DB2 mode holding the items and the outbox, so the tests
+ * and the benchmarks run the JPA, Hibernate and JDBC code of the repositories without
+ * a DB2 server.  Hibernate is bootstrapped by itself with resource local transactions;
+ * the entity manager handed out stands in for the transaction scoped one of the
+ * application and may only be used within {@link #inTransaction(Supplier)}.
+ */
+public final class TestDatabase implements AutoCloseable {
+
+	/** Numbers the databases, each test gets an empty one. */
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+
+	/** The session factory. */
+	private final SessionFactory sessionFactory;
+
+	/** The entity manager of the transaction of the current thread. */
+	private final ThreadLocal<EntityManager> current = new ThreadLocal<>();
+
+
+	/**
+	 * Instantiates a new, empty database.
+	 */
+	public TestDatabase() {
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(ItemEntity.class)
+				.addAnnotatedClass(OutboxEntity.class)
+				.setProperty("hibernate.connection.url", "jdbc:h2:mem:items" + DATABASES.incrementAndGet() + ";MODE=DB2;DB_CLOSE_DELAY=-1")
+				.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+				.setProperty("hibernate.hbm2ddl.auto", "create-drop")
+				.setProperty("hibernate.jdbc.batch_size", "50")
+				.setProperty("hibernate.order_inserts", "true")
+				.buildSessionFactory();
+	}
+
+
+	/**
+	 * Gets the entity manager factory.
+	 *
+	 * @return the entity manager factory
+	 */
+	public EntityManagerFactory getEntityManagerFactory() {
+		return sessionFactory;
+	}
+
+
+	/**
+	 * Gets the entity manager of the current transaction, whichever it is when a
+	 * method is called.
+	 *
+	 * @return the entity manager
+	 */
+	public EntityManager entityManager() {
+		return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] { EntityManager.class },
+				(proxy, method, args) -> {
+					EntityManager entityManager = current.get();
+					if(null == entityManager) {
+						throw new TransactionRequiredException("No transaction of the test database is active");
+					}
+					try {
+						return method.invoke(entityManager, args);
+					}
+					catch(InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+
+	/**
+	 * Runs work in a transaction, or in the transaction of the current thread when one
+	 * is active.  The transaction is rolled back when the work fails.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result
+	 */
+	public <T> T inTransaction(Supplier<T> work) {
+		if(null != current.get()) {
+			return work.get();
+		}
+		EntityManager entityManager = sessionFactory.createEntityManager();
+		current.set(entityManager);
+		try {
+			entityManager.getTransaction().begin();
+			T result = work.get();
+			entityManager.getTransaction().commit();
+			return result;
+		}
+		finally {
+			if(entityManager.getTransaction().isActive()) {
+				entityManager.getTransaction().rollback();
+			}
+			current.remove();
+			entityManager.close();
+		}
+	}
+
+
+	/**
+	 * Runs work in a transaction.
+	 *
+	 * @param work the work
+	 */
+	public void inTransaction(Runnable work) {
+		inTransaction(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+
+	/**
+	 * Inserts items named item1, item2 and so on, which get the ids 1 to count in an
+	 * empty database.
+	 *
+	 * @param count the count
+	 */
+	public void insertItems(int count) {
+		inTransaction(() -> {
+			EntityManager entityManager = current.get();
+			for(int i = 1; i <= count; i++) {
+				ItemEntity entity = new ItemEntity();
+				entity.setName("item" + i);
+				entity.setDescription("description of item " + i);
+				entity.setCreatedTimestamp(Instant.now());
+				entityManager.persist(entity);
+				if(0 == i % 50) {
+					entityManager.flush();
+					entityManager.clear();
+				}
+			}
+		});
+	}
+
+
+	/**
+	 * Creates an item query repository on the entity manager of the current transaction.
+	 *
+	 * @return the item query repository
+	 */
+	public ItemQueryRepository itemQueryRepository() {
+		ItemQueryRepository itemQueryRepository = new ItemQueryRepository();
+		itemQueryRepository.entityManager = entityManager();
+		itemQueryRepository.entityManagerFactory = sessionFactory;
+		itemQueryRepository.approximateCountQuery = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'ITEMS'";
+		return itemQueryRepository;
+	}
+
+
+	/**
+	 * Creates an outbox repository on the entity manager of the current transaction.
+	 *
+	 * @return the outbox repository
+	 */
+	public OutboxRepository outboxRepository() {
+		OutboxRepository outboxRepository = new OutboxRepository();
+		outboxRepository.entityManager = entityManager();
+		return outboxRepository;
+	}
+
+
+	/**
+	 * Creates an item repository on the entity manager of the current transaction,
+	 * implementing the spring data methods the application calls the way spring data
+	 * does.  Any other method fails, naming itself.
+	 *
+	 * @return the item repository
+	 */
+	public ItemRepository itemRepository() {
+		EntityManager entityManager = entityManager();
+		return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(), new Class<?>[] { ItemRepository.class },
+				(proxy, method, args) -> {
+					int arguments = null == args ? 0 : args.length;
+					switch(method.getName() + "/" + arguments) {
+						case "findById/1":
+							return Optional.ofNullable(entityManager.find(ItemEntity.class, args[0]));
+						case "existsById/1":
+							return null != entityManager.find(ItemEntity.class, args[0]);
+						case "findAllById/1":
+							List<Object> ids = new ArrayList<>();
+							((Iterable<?>) args[0]).forEach(ids::add);
+							return ids.isEmpty() ? Collections.emptyList()
+									: entityManager.createQuery("select e from ItemEntity e where e.id in :ids", ItemEntity.class)
+										.setParameter("ids", ids).getResultList();
+						case "findAll/0":
+							return entityManager.createQuery("select e from ItemEntity e order by e.id", ItemEntity.class).getResultList();
+						case "count/0":
+							return entityManager.createQuery("select count(e) from ItemEntity e", Long.class).getSingleResult();
+						case "save/1":
+							ItemEntity entity = (ItemEntity) args[0];
+							if(null == entity.getId()) {
+								entityManager.persist(entity);
+								return entity;
+							}
+							return entityManager.merge(entity);
+						case "hashCode/0":
+							return System.identityHashCode(proxy);
+						case "equals/1":
+							return proxy == args[0];
+						case "toString/0":
+							return "ItemRepository on " + TestDatabase.this;
+						default:
+							throw new UnsupportedOperationException("ItemRepository." + method.getName() + " is not implemented by the test database");
+					}
+				});
+	}
+
+
+	/**
+	 * Drops the database.
+	 */
+	@Override
+	public void close() {
+		sessionFactory.close();
+	}
+}
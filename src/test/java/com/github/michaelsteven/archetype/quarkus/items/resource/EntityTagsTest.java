@@ -0,0 +1,122 @@
+package com.github.michaelsteven.archetype.quarkus.items.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.configuration.BinaryFormatProvider;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+/**
+ * Tests the {@link EntityTags}.
+ */
+class EntityTagsTest {
+
+	/** The CBOR media type. */
+	private static final MediaType CBOR = MediaType.valueOf(BinaryFormatProvider.APPLICATION_CBOR);
+
+	/** The last modification of the item. */
+	private static final Instant LAST_MODIFIED = Instant.parse("2021-01-31T12:00:00.500Z");
+
+
+	/**
+	 * The version is read from a single strong tag of any representation; anything
+	 * else requires a version no item is at.
+	 */
+	@Test
+	void readsTheExpectedVersion() {
+		assertNull(EntityTags.expectedVersion(null));
+		assertNull(EntityTags.expectedVersion(" * "));
+		assertEquals(3L, EntityTags.expectedVersion("\"3\"").longValue());
+		assertEquals(3L, EntityTags.expectedVersion(" \"3\" ").longValue());
+		assertEquals(3L, EntityTags.expectedVersion("\"3-gzip\"").longValue());
+		assertEquals(3L, EntityTags.expectedVersion("\"3-cbor\"").longValue());
+		assertEquals(3L, EntityTags.expectedVersion("\"3-smile-gzip\"").longValue());
+		assertEquals(-1L, EntityTags.expectedVersion("W/\"3\"").longValue());
+		assertEquals(-1L, EntityTags.expectedVersion("3").longValue());
+		assertEquals(-1L, EntityTags.expectedVersion("\"three\"").longValue());
+		assertEquals(-1L, EntityTags.expectedVersion("\"1\", \"2\"").longValue());
+		assertEquals(-1L, EntityTags.expectedVersion("\"").longValue());
+	}
+
+
+	/**
+	 * If-None-Match is compared weakly, with or without the gzip suffix, against
+	 * any tag of a list.
+	 */
+	@Test
+	void matchesIfNoneMatch() {
+		EntityTag tag = EntityTags.strong(3L, MediaType.APPLICATION_JSON_TYPE);
+		assertTrue(EntityTags.notModified("\"3\"", null, tag, null));
+		assertTrue(EntityTags.notModified("W/\"3\"", null, tag, null));
+		assertTrue(EntityTags.notModified("\"3-gzip\"", null, tag, null));
+		assertTrue(EntityTags.notModified("\"1\", \"3\"", null, tag, null));
+		assertTrue(EntityTags.notModified("*", null, tag, null));
+		assertFalse(EntityTags.notModified("\"2\"", null, tag, null));
+		assertFalse(EntityTags.notModified("\"3-cbor\"", null, tag, null));
+		assertFalse(EntityTags.notModified("3", null, tag, null));
+		assertFalse(EntityTags.notModified("\"3\"", null, null, null));
+		assertTrue(EntityTags.notModified("\"3-cbor-gzip\"", null, EntityTags.strong(3L, CBOR), null));
+	}
+
+
+	/**
+	 * If-Modified-Since is compared to the second, and only without If-None-Match.
+	 */
+	@Test
+	void comparesIfModifiedSince() {
+		EntityTag tag = EntityTags.strong(3L, MediaType.APPLICATION_JSON_TYPE);
+		assertTrue(EntityTags.notModified(null, httpDate(LAST_MODIFIED), tag, LAST_MODIFIED));
+		assertTrue(EntityTags.notModified(null, httpDate(LAST_MODIFIED.plusSeconds(60)), tag, LAST_MODIFIED));
+		assertFalse(EntityTags.notModified(null, httpDate(LAST_MODIFIED.minusSeconds(1)), tag, LAST_MODIFIED));
+		assertFalse(EntityTags.notModified(null, "yesterday", tag, LAST_MODIFIED));
+		assertFalse(EntityTags.notModified(null, httpDate(LAST_MODIFIED), tag, null));
+		assertFalse(EntityTags.notModified(null, null, tag, LAST_MODIFIED));
+		assertFalse(EntityTags.notModified("\"2\"", httpDate(LAST_MODIFIED), tag, LAST_MODIFIED));
+	}
+
+
+	/**
+	 * Each media type has tags of its own.
+	 */
+	@Test
+	void tagsEachMediaType() {
+		assertNull(EntityTags.strong(null, MediaType.APPLICATION_JSON_TYPE));
+		assertEquals(new EntityTag("3"), EntityTags.strong(3L, MediaType.APPLICATION_JSON_TYPE));
+		assertEquals(new EntityTag("3-cbor"), EntityTags.strong(3L, CBOR));
+		assertEquals(new EntityTag("3-smile"), EntityTags.strong(3L, MediaType.valueOf(BinaryFormatProvider.APPLICATION_SMILE)));
+
+		List<ItemDto> content = Arrays.asList(new ItemDto(1L, "a", null, null, 0L, null), new ItemDto(2L, "b", null, null, 4L, null));
+		EntityTag json = EntityTags.weak(MediaType.APPLICATION_JSON_TYPE, content, 0, 10);
+		assertTrue(json.isWeak());
+		assertEquals(json, EntityTags.weak(MediaType.APPLICATION_JSON_TYPE, content, 0, 10));
+		assertEquals(json.getValue() + "-cbor", EntityTags.weak(CBOR, content, 0, 10).getValue());
+		assertNotEquals(json, EntityTags.weak(MediaType.APPLICATION_JSON_TYPE, content, 1, 10));
+		assertNotEquals(json, EntityTags.weak(MediaType.APPLICATION_JSON_TYPE,
+				Arrays.asList(content.get(0), new ItemDto(2L, "b", null, null, 5L, null)), 0, 10));
+	}
+
+
+	/**
+	 * Formats an HTTP date.
+	 *
+	 * @param instant the instant
+	 * @return the date
+	 */
+	private static String httpDate(Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+	}
+}
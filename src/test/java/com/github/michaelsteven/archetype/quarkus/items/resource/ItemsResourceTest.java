@@ -0,0 +1,47 @@
+package com.github.michaelsteven.archetype.quarkus.items.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+
+/**
+ * Tests the responses built by the {@link ItemsResource}.
+ */
+class ItemsResourceTest {
+
+	/**
+	 * A bulk operation answers 202 when every element succeeded and 207 with every
+	 * confirmation when any failed.
+	 */
+	@Test
+	void answersBulkOperationsWithMultiStatusOnPartialFailure() {
+		List<ConfirmationDto> accepted = Arrays.asList(confirmation(ItemStatus.SUBMITTED), confirmation(ItemStatus.PROCESSED));
+		assertEquals(202, ItemsResource.bulkResponse(accepted).getStatus());
+
+		List<ConfirmationDto> partial = Arrays.asList(confirmation(ItemStatus.SUBMITTED), confirmation(ItemStatus.FAILED));
+		Response response = ItemsResource.bulkResponse(partial);
+		assertEquals(207, response.getStatus());
+		assertEquals(partial, response.getEntity());
+	}
+
+
+	/**
+	 * Creates a confirmation.
+	 *
+	 * @param status the status
+	 * @return the confirmation dto
+	 */
+	private static ConfirmationDto confirmation(ItemStatus status) {
+		ConfirmationDto confirmationDto = new ConfirmationDto();
+		confirmationDto.setStatus(status);
+		return confirmationDto;
+	}
+}
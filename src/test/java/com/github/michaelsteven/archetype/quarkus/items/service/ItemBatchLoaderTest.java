@@ -0,0 +1,284 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.repository.ItemRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link ItemBatchLoader}.
+ */
+class ItemBatchLoaderTest {
+
+	/** The ids of each query, in the order they ran. */
+	private final List<Set<Long>> queries = new CopyOnWriteArrayList<>();
+
+	/** Released to let the first query return, counted down already unless a test holds it. */
+	private volatile CountDownLatch firstQuery = new CountDownLatch(0);
+
+	/** The meter registry. */
+	private SimpleMeterRegistry meterRegistry;
+
+	/** The loader. */
+	private ItemBatchLoader loader;
+
+
+	/**
+	 * Creates a batching loader over a repository holding the items 1 to 10.
+	 */
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		loader = new ItemBatchLoader();
+		loader.enabled = true;
+		loader.maxBatchSize = 3;
+		loader.maxWait = Duration.ofSeconds(10);
+		loader.timeout = Duration.ofSeconds(10);
+		loader.meterRegistry = meterRegistry;
+		loader.itemRepository = repository();
+		loader.init();
+	}
+
+
+	/**
+	 * A batch is read by the request that fills it, without waiting for it to be due,
+	 * and the request that opened it gets its item from that read.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void readsAFullBatchAtOnce() throws Exception {
+		long start = System.nanoTime();
+		CompletableFuture<Optional<ItemDto>> opener = new CompletableFuture<>();
+		awaitWaiting(load(1, opener));
+		CompletableFuture<Optional<ItemDto>> second = new CompletableFuture<>();
+		awaitWaiting(load(2, second));
+		assertEquals(3L, loader.load(3).get().getId().longValue());
+
+		assertEquals(1L, opener.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertEquals(2L, second.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertEquals(Collections.singletonList(ids(1, 2, 3)), queries);
+		assertTrue(System.nanoTime() - start < loader.maxWait.toNanos());
+	}
+
+
+	/**
+	 * A batch that does not fill is read by its opener once due, with the ids that
+	 * joined it meanwhile.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void readsABatchWhenDue() throws Exception {
+		loader.maxWait = Duration.ofMillis(200);
+		long start = System.nanoTime();
+		CompletableFuture<Optional<ItemDto>> opener = new CompletableFuture<>();
+		awaitWaiting(load(1, opener));
+		CompletableFuture<Optional<ItemDto>> joined = new CompletableFuture<>();
+		load(2, joined);
+
+		assertEquals(1L, opener.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertEquals(2L, joined.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+		assertEquals(Collections.singletonList(ids(1, 2)), queries);
+	}
+
+
+	/**
+	 * An opener interrupted while it waits reads its batch right away and keeps its
+	 * interrupt status.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void readsAtOnceWhenTheOpenerIsInterrupted() throws Exception {
+		CompletableFuture<Optional<ItemDto>> opener = new CompletableFuture<>();
+		CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			opener.complete(loader.load(1));
+			interrupted.complete(Thread.currentThread().isInterrupted());
+		});
+		thread.start();
+		awaitWaiting(thread);
+		thread.interrupt();
+
+		assertEquals(1L, opener.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertTrue(interrupted.get(5, TimeUnit.SECONDS));
+		assertEquals(Collections.singletonList(ids(1)), queries);
+	}
+
+
+	/**
+	 * A request whose batch is held up past the timeout reads its id alone.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	void readsAloneAfterTheTimeout() throws Exception {
+		loader.maxBatchSize = 100;
+		loader.maxWait = Duration.ofMillis(100);
+		loader.timeout = Duration.ofMillis(200);
+		firstQuery = new CountDownLatch(1);
+		CompletableFuture<Optional<ItemDto>> opener = new CompletableFuture<>();
+		awaitWaiting(load(1, opener));
+		Map<Long, ItemDto> items = loader.loadAll(Arrays.asList(2L, 4L));
+
+		assertEquals(ids(2, 4), items.keySet());
+		assertEquals(2.0, meterRegistry.get("items.batch-load.timeouts").counter().count());
+		firstQuery.countDown();
+		assertEquals(1L, opener.get(5, TimeUnit.SECONDS).get().getId().longValue());
+		assertEquals(Arrays.asList(ids(1, 2, 4), ids(2), ids(4)), queries);
+	}
+
+
+	/**
+	 * Ids that do not exist are left out, and many ids are read in chunks of the
+	 * maximum batch size.
+	 */
+	@Test
+	void readsManyIdsInBatches() {
+		loader.maxWait = Duration.ofMillis(10);
+		Map<Long, ItemDto> items = loader.loadAll(Arrays.asList(1L, 2L, 3L, 4L, 99L));
+
+		assertEquals(ids(1, 2, 3, 4), items.keySet());
+		assertEquals(ids(1, 2, 3), queries.get(0));
+		assertEquals(ids(4, 99), queries.get(1));
+	}
+
+
+	/**
+	 * Without batching each id is read by itself.
+	 */
+	@Test
+	void readsAloneWhenDisabled() {
+		loader.enabled = false;
+		assertEquals(5L, loader.load(5).get().getId().longValue());
+		assertEquals(Optional.empty(), loader.load(99));
+		assertTrue(queries.isEmpty());
+	}
+
+
+	/**
+	 * Loads an id on a thread of its own.
+	 *
+	 * @param id the id
+	 * @param result completed with the item
+	 * @return the thread
+	 */
+	private Thread load(long id, CompletableFuture<Optional<ItemDto>> result) {
+		Thread thread = new Thread(() -> {
+			try {
+				result.complete(loader.load(id));
+			}
+			catch(RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+
+	/**
+	 * Waits until a thread waits, for its batch to be due or to be read.
+	 *
+	 * @param thread the thread
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING) {
+			assertTrue(thread.isAlive() && System.nanoTime() < deadline, "the request never waited");
+			Thread.sleep(1);
+		}
+	}
+
+
+	/**
+	 * Gets a set of ids.
+	 *
+	 * @param ids the ids
+	 * @return the set
+	 */
+	private static Set<Long> ids(long... ids) {
+		Set<Long> set = new TreeSet<>();
+		for (long id : ids) {
+			set.add(id);
+		}
+		return set;
+	}
+
+
+	/**
+	 * Creates a repository holding the items 1 to 10 that records the ids of each
+	 * findAllById and holds the first one until {@link #firstQuery} is released.
+	 *
+	 * @return the repository
+	 */
+	private ItemRepository repository() {
+		return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(), new Class<?>[] { ItemRepository.class },
+				(proxy, method, args) -> {
+					switch(method.getName()) {
+						case "findById":
+							return Optional.ofNullable(item((Long) args[0]));
+						case "findAllById":
+							Set<Long> ids = new TreeSet<>();
+							((Iterable<?>) args[0]).forEach(id -> ids.add((Long) id));
+							queries.add(ids);
+							if(1 == queries.size() && firstQuery.getCount() > 0) {
+								firstQuery.await(5, TimeUnit.SECONDS);
+							}
+							List<ItemEntity> found = new ArrayList<>();
+							for (Long id : ids) {
+								if(null != item(id)) {
+									found.add(item(id));
+								}
+							}
+							return found;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+
+	/**
+	 * Gets an item of the repository.
+	 *
+	 * @param id the id
+	 * @return the item, null unless from 1 to 10
+	 */
+	private static ItemEntity item(long id) {
+		if(id < 1 || id > 10) {
+			return null;
+		}
+		ItemEntity entity = new ItemEntity();
+		entity.setId(id);
+		entity.setName("item" + id);
+		entity.setVersion(0L);
+		return entity;
+	}
+}
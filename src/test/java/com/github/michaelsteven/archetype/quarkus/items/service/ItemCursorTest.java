@@ -0,0 +1,139 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import javax.validation.ValidationException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+
+/**
+ * Tests the {@link ItemCursor}.
+ */
+class ItemCursorTest {
+
+	/**
+	 * An unsorted listing starts at the beginning in id order.
+	 */
+	@Test
+	void startsUnsortedListingsById() {
+		ItemCursor cursor = ItemCursor.first(Sort.unsorted());
+		assertEquals("id", cursor.getProperty());
+		assertTrue(cursor.isAscending());
+		assertNull(cursor.getLastId());
+		assertNull(cursor.getLastKey());
+	}
+
+
+	/**
+	 * A cursor after an item with a null name keeps the null key through its token.
+	 */
+	@Test
+	void roundTripsANullName() {
+		ItemCursor cursor = roundTrip(ItemCursor.first(Sort.by("name").descending()).after(item(7L, null, null)));
+		assertEquals("name", cursor.getProperty());
+		assertFalse(cursor.isAscending());
+		assertEquals(7L, cursor.getLastId().longValue());
+		assertNull(cursor.getLastKey());
+	}
+
+
+	/**
+	 * A cursor after an item with no creation time keeps the null key through its token.
+	 */
+	@Test
+	void roundTripsANullCreationTime() {
+		ItemCursor cursor = roundTrip(ItemCursor.first(Sort.by("createdTimestamp")).after(item(8L, "name", null)));
+		assertEquals("createdTimestamp", cursor.getProperty());
+		assertTrue(cursor.isAscending());
+		assertEquals(8L, cursor.getLastId().longValue());
+		assertNull(cursor.getLastKey());
+	}
+
+
+	/**
+	 * Keys are decoded into the type of their property, whatever characters they hold.
+	 */
+	@Test
+	void roundTripsKeys() {
+		Instant created = Instant.parse("2021-01-31T12:00:00.123Z");
+		assertEquals(created, roundTrip(ItemCursor.first(Sort.by("createdTimestamp")).after(item(1L, "a", created))).getLastKey());
+		assertEquals("a:b~=c", roundTrip(ItemCursor.first(Sort.by("name")).after(item(2L, "a:b~=c", null))).getLastKey());
+		assertEquals("~", roundTrip(ItemCursor.first(Sort.by("name")).after(item(3L, "~", null))).getLastKey());
+		assertEquals(4L, roundTrip(ItemCursor.first(Sort.unsorted()).after(item(4L, "d", null))).getLastKey());
+	}
+
+
+	/**
+	 * Only a single sort on a keyset property is accepted.
+	 */
+	@Test
+	void rejectsUnsupportedSorts() {
+		assertThrows(ValidationException.class, () -> ItemCursor.first(Sort.by("description")));
+		assertThrows(ValidationException.class, () -> ItemCursor.first(Sort.by("name", "id")));
+	}
+
+
+	/**
+	 * Tokens that were not produced by a cursor are rejected.
+	 */
+	@Test
+	void rejectsInvalidTokens() {
+		assertThrows(ValidationException.class, () -> ItemCursor.decode("not a token!"));
+		assertThrows(ValidationException.class, () -> ItemCursor.decode(token("description:a:1:=x")));
+		assertThrows(ValidationException.class, () -> ItemCursor.decode(token("id:a:one:=1")));
+		assertThrows(ValidationException.class, () -> ItemCursor.decode(token("id:a:1")));
+		assertThrows(ValidationException.class, () -> ItemCursor.decode(token("id:a:1:1")));
+		assertThrows(ValidationException.class, () -> ItemCursor.decode(token("createdTimestamp:a:1:=yesterday")));
+	}
+
+
+	/**
+	 * Encodes and decodes a cursor.
+	 *
+	 * @param cursor the cursor
+	 * @return the decoded cursor
+	 */
+	private static ItemCursor roundTrip(ItemCursor cursor) {
+		return ItemCursor.decode(cursor.encode());
+	}
+
+
+	/**
+	 * Encodes a token.
+	 *
+	 * @param decoded the decoded token
+	 * @return the token
+	 */
+	private static String token(String decoded) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	/**
+	 * Creates an item.
+	 *
+	 * @param id the id
+	 * @param name the name
+	 * @param created the creation time
+	 * @return the item dto
+	 */
+	private static ItemDto item(Long id, String name, Instant created) {
+		ItemDto itemDto = new ItemDto();
+		itemDto.setId(id);
+		itemDto.setName(name);
+		itemDto.setDateSubmitted(null == created ? null : created.atZone(ZoneOffset.UTC));
+		return itemDto;
+	}
+}
@@ -0,0 +1,320 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import javax.validation.ValidationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import com.github.michaelsteven.archetype.quarkus.items.exception.ItemVersionMismatchException;
+import com.github.michaelsteven.archetype.quarkus.items.exception.ItemVersionMismatchExceptionMapper;
+import com.github.michaelsteven.archetype.quarkus.items.model.ConfirmationDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountStrategy;
+import com.github.michaelsteven.archetype.quarkus.items.model.CountedPage;
+import com.github.michaelsteven.archetype.quarkus.items.model.DeleteSummaryDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemDto;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemEntity;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemField;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemFilter;
+import com.github.michaelsteven.archetype.quarkus.items.model.ItemStatus;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+
+/**
+ * Tests the {@link ItemsServiceImpl} on a test database.
+ */
+class ItemsServiceImplTest {
+
+	/** The change events fired. */
+	private final List<ItemChangeEvent> fired = new CopyOnWriteArrayList<>();
+
+	/** The database. */
+	private TestDatabase database;
+
+	/** The items service. */
+	private ItemsServiceImpl itemsService;
+
+
+	/**
+	 * Creates an empty database and a service on it.
+	 */
+	@BeforeEach
+	void setUp() {
+		database = new TestDatabase();
+		itemsService = ItemsServices.create(database, fired);
+	}
+
+
+	/**
+	 * Drops the database.
+	 */
+	@AfterEach
+	void tearDown() {
+		database.close();
+	}
+
+
+	/**
+	 * A full page is counted as its strategy says: exactly every time, once per filter
+	 * when cached, from the table statistics when approximate and unfiltered, and not
+	 * at all when none, which only tells whether there is a next page.  The last page
+	 * counts itself.
+	 */
+	@Test
+	void countsEachStrategy() {
+		database.insertItems(25);
+		Pageable first = PageRequest.of(0, 10, Sort.by("id"));
+		assertEquals(25, total(first, new ItemFilter(), CountStrategy.exact));
+		assertEquals(25, total(first, new ItemFilter(), CountStrategy.cached));
+
+		database.insertItems(5);
+		assertEquals(30, total(first, new ItemFilter(), CountStrategy.exact));
+		assertEquals(25, total(first, new ItemFilter(), CountStrategy.cached));
+		assertEquals(CountStrategy.approximate, page(first, new ItemFilter(), CountStrategy.approximate).getCountStrategy());
+		assertEquals(CountStrategy.cached, page(first, new ItemFilter(null, "item", null, null), CountStrategy.approximate).getCountStrategy());
+		assertEquals(CountStrategy.exact, page(PageRequest.of(1, 20, Sort.by("id")), new ItemFilter(), CountStrategy.cached).getCountStrategy());
+
+		Slice<ItemDto> slice = database.inTransaction(() -> itemsService.getItems(first, new ItemFilter(), ItemField.ALL, CountStrategy.none));
+		assertFalse(slice instanceof CountedPage);
+		assertEquals(10, slice.getNumberOfElements());
+		assertTrue(slice.hasNext());
+	}
+
+
+	/**
+	 * A bulk create saves the valid items and reports each invalid one in its place,
+	 * without failing the others.
+	 */
+	@Test
+	void savesTheValidItemsOfABulkCreate() {
+		List<ConfirmationDto> confirmations = database.inTransaction(() -> itemsService.saveItems(
+				Arrays.asList(item(null, "a"), item(null, null), null, item(null, "d"))));
+
+		assertEquals(Arrays.asList(ItemStatus.SUBMITTED, ItemStatus.FAILED, ItemStatus.FAILED, ItemStatus.SUBMITTED), statuses(confirmations));
+		assertNotNull(confirmations.get(0).getId());
+		assertNull(confirmations.get(1).getId());
+		assertTrue(confirmations.get(1).getErrors().get(0).startsWith("name: "), confirmations.get(1).getErrors().toString());
+		assertEquals(Collections.singletonList("Cannot be null."), confirmations.get(2).getErrors());
+		assertEquals(Arrays.asList("a", "d"), names());
+		assertEquals(2, fired.size());
+	}
+
+
+	/**
+	 * A bulk update saves the items that exist at the version given, if any, and
+	 * reports the others in their place.
+	 */
+	@Test
+	void updatesTheMatchingItemsOfABulkUpdate() {
+		database.insertItems(3);
+		List<ConfirmationDto> confirmations = database.inTransaction(() -> itemsService.editItems(
+				Arrays.asList(item(1L, "a"), item(99L, "b"), versioned(item(2L, "c"), 5L), versioned(item(3L, "d"), 0L))));
+
+		assertEquals(Arrays.asList(ItemStatus.SUBMITTED, ItemStatus.FAILED, ItemStatus.FAILED, ItemStatus.SUBMITTED), statuses(confirmations));
+		assertEquals(Arrays.asList(1L, 99L, 2L, 3L), confirmations.stream().map(ConfirmationDto::getId).collect(Collectors.toList()));
+		assertEquals(1L, confirmations.get(0).getVersion().longValue());
+		assertEquals(Collections.singletonList("id: No item found for ID 99"), confirmations.get(1).getErrors());
+		assertEquals(Collections.singletonList("version: Expected version 5 but the item is at version 0"), confirmations.get(2).getErrors());
+		assertEquals(Arrays.asList("a", "item2", "d"), names());
+	}
+
+
+	/**
+	 * An edit at the expected version is written in one statement and confirmed, and
+	 * recorded, with the next version.
+	 */
+	@Test
+	void editsAnItemAtTheExpectedVersion() {
+		database.insertItems(1);
+		ConfirmationDto confirmation = database.inTransaction(() -> itemsService.editItem(item(1L, "a"), 0L));
+
+		assertEquals(1L, confirmation.getVersion().longValue());
+		assertEquals(1L, database.inTransaction(() -> itemsService.itemRepository.findById(1L).get().getVersion()).longValue());
+		assertEquals(Collections.singletonList("a"), names());
+		assertEquals(1L, fired.get(0).getItem().getVersion().longValue());
+		assertNotNull(fired.get(0).getItem().getDateModified());
+	}
+
+
+	/**
+	 * An edit of an item at another version fails the If-Match precondition with the
+	 * current version and leaves the item as it is; an edit of a missing item is invalid.
+	 */
+	@Test
+	void refusesAnEditAtAnotherVersion() {
+		database.insertItems(1);
+		ItemVersionMismatchException e = assertThrows(ItemVersionMismatchException.class,
+				() -> database.inTransaction(() -> itemsService.editItem(item(1L, "a"), 3L)));
+		assertEquals(0L, e.getCurrentVersion().longValue());
+		Response response = new ItemVersionMismatchExceptionMapper().toResponse(e);
+		assertEquals(412, response.getStatus());
+		assertEquals(new EntityTag("0"), response.getEntityTag());
+		assertEquals(Collections.singletonList("item1"), names());
+
+		assertThrows(ValidationException.class, () -> database.inTransaction(() -> itemsService.editItem(item(99L, "a"), 0L)));
+	}
+
+
+	/**
+	 * A bulk delete deletes the items that exist and reports the missing ids in their
+	 * place.
+	 */
+	@Test
+	void deletesTheExistingItemsOfABulkDelete() {
+		database.insertItems(3);
+		List<ConfirmationDto> confirmations = database.inTransaction(() -> itemsService.deleteItemsById(Arrays.asList(1L, 99L, null, 3L)));
+
+		assertEquals(Arrays.asList(ItemStatus.PROCESSED, ItemStatus.FAILED, ItemStatus.FAILED, ItemStatus.PROCESSED), statuses(confirmations));
+		assertEquals(Collections.singletonList("item2"), names());
+	}
+
+
+	/**
+	 * A delete by id answers the number of items it deleted, 0 for a missing item.
+	 */
+	@Test
+	void countsTheDeletedItem() {
+		database.insertItems(1);
+		assertEquals(1, database.inTransaction(() -> itemsService.deleteItemById(1L)).intValue());
+		assertEquals(0, database.inTransaction(() -> itemsService.deleteItemById(1L)).intValue());
+		assertEquals(Collections.emptyList(), names());
+	}
+
+
+	/**
+	 * A purge counts every id read as requested, and only the existing items, once
+	 * each, as deleted, across its batches.
+	 */
+	@Test
+	void countsTheItemsOfAPurge() {
+		database.insertItems(5);
+		itemsService.purgeBatchSize = 2;
+		Iterator<Long> ids = Arrays.asList(1L, 2L, 2L, 99L, 4L, 5L).iterator();
+		DeleteSummaryDto summary = database.inTransaction(() -> {
+			try {
+				return itemsService.purgeItems(() -> ids.hasNext() ? ids.next() : null);
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+		assertEquals(6, summary.getRequested());
+		assertEquals(4, summary.getDeleted());
+		assertEquals(Collections.singletonList("item3"), names());
+	}
+
+
+	/**
+	 * An empty bulk request, or one over the limit, is rejected as a whole.
+	 */
+	@Test
+	void rejectsBulkRequestsOutsideTheLimit() {
+		itemsService.maxBulkItems = 2;
+		assertThrows(ValidationException.class, () -> itemsService.saveItems(Collections.emptyList()));
+		assertThrows(ValidationException.class, () -> itemsService.saveItems(Arrays.asList(item(null, "a"), item(null, "b"), item(null, "c"))));
+		assertThrows(ValidationException.class, () -> itemsService.deleteItemsById(Arrays.asList(1L, 2L, 3L)));
+	}
+
+
+	/**
+	 * Gets a page of items.
+	 *
+	 * @param pageable the pageable
+	 * @param filter the filter
+	 * @param countStrategy the count strategy
+	 * @return the page
+	 */
+	private CountedPage<ItemDto> page(Pageable pageable, ItemFilter filter, CountStrategy countStrategy) {
+		return (CountedPage<ItemDto>) database.inTransaction(() -> itemsService.getItems(pageable, filter, ItemField.ALL, countStrategy));
+	}
+
+
+	/**
+	 * Gets the total of a page of items.
+	 *
+	 * @param pageable the pageable
+	 * @param filter the filter
+	 * @param countStrategy the count strategy
+	 * @return the total
+	 */
+	private long total(Pageable pageable, ItemFilter filter, CountStrategy countStrategy) {
+		return page(pageable, filter, countStrategy).getTotalElements();
+	}
+
+
+	/**
+	 * Gets the names of the stored items, in id order.
+	 *
+	 * @return the names
+	 */
+	private List<String> names() {
+		return database.inTransaction(() -> itemsService.itemRepository.findAll().stream()
+				.map(ItemEntity::getName).collect(Collectors.toList()));
+	}
+
+
+	/**
+	 * Gets the statuses of confirmations.
+	 *
+	 * @param confirmations the confirmations
+	 * @return the statuses
+	 */
+	private static List<ItemStatus> statuses(List<ConfirmationDto> confirmations) {
+		List<ItemStatus> statuses = new ArrayList<>();
+		confirmations.forEach(confirmationDto -> statuses.add(confirmationDto.getStatus()));
+		return statuses;
+	}
+
+
+	/**
+	 * Creates an item.
+	 *
+	 * @param id the id
+	 * @param name the name
+	 * @return the item dto
+	 */
+	private static ItemDto item(Long id, String name) {
+		ItemDto itemDto = new ItemDto();
+		itemDto.setId(id);
+		itemDto.setName(name);
+		itemDto.setDescription("description of " + name);
+		return itemDto;
+	}
+
+
+	/**
+	 * Sets the version of an item.
+	 *
+	 * @param itemDto the item dto
+	 * @param version the version
+	 * @return the item dto
+	 */
+	private static ItemDto versioned(ItemDto itemDto, long version) {
+		itemDto.setVersion(version);
+		return itemDto;
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.michaelsteven.archetype.quarkus.items.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.transaction.Status;
+import javax.validation.Validation;
+
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCaches;
+import com.github.michaelsteven.archetype.quarkus.items.cache.ItemCountCaches;
+import com.github.michaelsteven.archetype.quarkus.items.execution.RequestCoalescers;
+import com.github.michaelsteven.archetype.quarkus.items.model.event.ItemChangeEvent;
+import com.github.michaelsteven.archetype.quarkus.items.outbox.ItemOutboxes;
+import com.github.michaelsteven.archetype.quarkus.items.repository.TestDatabase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Creates items services outside of CDI for the tests, on a test database, with the
+ * item cache, the count cache and request coalescing on and batched reads off.  The
+ * search index and the executor of the import are not set.
+ */
+public final class ItemsServices {
+
+	/**
+	 * Instantiates a new items services.
+	 */
+	private ItemsServices() {
+	}
+
+
+	/**
+	 * Creates an items service.
+	 *
+	 * @param database the database
+	 * @param fired receives the change events fired, in order
+	 * @return the items service
+	 */
+	public static ItemsServiceImpl create(TestDatabase database, List<ItemChangeEvent> fired) {
+		ItemsServiceImpl itemsService = new ItemsServiceImpl();
+		itemsService.itemRepository = database.itemRepository();
+		itemsService.itemQueryRepository = database.itemQueryRepository();
+		itemsService.itemCache = ItemCaches.create(true);
+		itemsService.itemCountCache = ItemCountCaches.create(() -> Status.STATUS_NO_TRANSACTION);
+		itemsService.entityManager = database.entityManager();
+		itemsService.validator = Validation.buildDefaultValidatorFactory().getValidator();
+		itemsService.itemOutbox = ItemOutboxes.create(database, fired);
+		itemsService.requestCoalescer = RequestCoalescers.create(true);
+		itemsService.batchSize = 50;
+		itemsService.maxBulkItems = 1000;
+		itemsService.importBatchSize = 1000;
+		itemsService.purgeBatchSize = 1000;
+		itemsService.maxImportErrors = 100;
+		itemsService.exportFetchSize = 500;
+
+		itemsService.itemBatchLoader = new ItemBatchLoader();
+		itemsService.itemBatchLoader.itemRepository = itemsService.itemRepository;
+		itemsService.itemBatchLoader.maxBatchSize = 100;
+		itemsService.itemBatchLoader.maxWait = Duration.ofNanos(500000);
+		itemsService.itemBatchLoader.timeout = Duration.ofSeconds(2);
+		itemsService.itemBatchLoader.meterRegistry = new SimpleMeterRegistry();
+		itemsService.itemBatchLoader.init();
+
+		itemsService.itemBatchWriter = new ItemBatchWriter();
+		itemsService.itemBatchWriter.entityManager = itemsService.entityManager;
+		itemsService.itemBatchWriter.itemOutbox = itemsService.itemOutbox;
+		itemsService.itemBatchWriter.itemQueryRepository = itemsService.itemQueryRepository;
+		itemsService.itemBatchWriter.itemCache = itemsService.itemCache;
+		itemsService.itemBatchWriter.batchSize = 50;
+		return itemsService;
+	}
+}